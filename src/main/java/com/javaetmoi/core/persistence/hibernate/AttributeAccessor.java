@@ -0,0 +1,150 @@
+package com.javaetmoi.core.persistence.hibernate;
+
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.function.Function;
+
+import org.hibernate.metamodel.mapping.AttributeMapping;
+import org.hibernate.property.access.spi.GetterFieldImpl;
+import org.hibernate.property.access.spi.GetterMethodImpl;
+
+/**
+ * Fast read access to an attribute, generated at runtime on first use.
+ * <p>
+ * Public getters of public classes are accessed through a {@link LambdaMetafactory} generated function,
+ * other getters and fields through a {@link MethodHandle}.
+ * Other property accesses, e.g. of bytecode enhanced entities, fall back to the mapping metamodel.
+ * </p>
+ */
+abstract class AttributeAccessor {
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    /**
+     * Read the attribute.
+     *
+     * @param owner
+     *            Entity or embeddable, not a proxy.
+     */
+    abstract Object get(Object owner);
+
+    /**
+     * Create the fastest available accessor of an attribute.
+     */
+    static AttributeAccessor of(AttributeMapping attributeMapping) {
+        var getter = attributeMapping.getPropertyAccess().getGetter();
+        // Exact classes only: Subclasses, like the one for enhanced entities, may add behavior.
+        var getterClass = getter.getClass();
+        if (getterClass != GetterMethodImpl.class && getterClass != GetterFieldImpl.class) {
+            return new MetamodelAccessor(attributeMapping);
+        }
+
+        try {
+            var member = getter.getMember();
+            if (member instanceof Method) {
+                return of((Method) member);
+            } else if (member instanceof Field) {
+                return of((Field) member);
+            }
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Inaccessible, e.g. because of the module system: Fall back to the metamodel.
+        }
+        return new MetamodelAccessor(attributeMapping);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static AttributeAccessor of(Method method) throws ReflectiveOperationException {
+        if (Modifier.isPublic(method.getModifiers()) && Modifier.isPublic(method.getDeclaringClass().getModifiers()) &&
+                isVisible(method.getDeclaringClass()) && isVisible(method.getReturnType())) {
+            try {
+                var lookup = MethodHandles.lookup();
+                var callSite = LambdaMetafactory.metafactory(lookup, "apply",
+                        MethodType.methodType(Function.class), GETTER_TYPE.erase(),
+                        lookup.unreflect(method), MethodType.methodType(method.getReturnType(), method.getDeclaringClass()));
+                return new FunctionAccessor((Function<Object, Object>) callSite.getTarget().invokeExact());
+            } catch (Throwable e) {
+                // Fall back to the method handle.
+            }
+        }
+        var lookup = MethodHandles.privateLookupIn(method.getDeclaringClass(), MethodHandles.lookup());
+        return new MethodHandleAccessor(lookup.unreflect(method));
+    }
+
+    /**
+     * Is the class visible from this class, so that generated functions in its nest can link against it?.
+     */
+    private static boolean isVisible(Class<?> type) {
+        if (type.isPrimitive()) {
+            return true;
+        }
+        try {
+            return Class.forName(type.getName(), false, AttributeAccessor.class.getClassLoader()) == type;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    private static AttributeAccessor of(Field field) throws ReflectiveOperationException {
+        var lookup = MethodHandles.privateLookupIn(field.getDeclaringClass(), MethodHandles.lookup());
+        return new MethodHandleAccessor(lookup.unreflectGetter(field));
+    }
+
+    /**
+     * Accessor through a function generated by the {@link LambdaMetafactory}.
+     */
+    private static final class FunctionAccessor extends AttributeAccessor {
+        private final Function<Object, Object> function;
+
+        private FunctionAccessor(Function<Object, Object> function) {
+            this.function = function;
+        }
+
+        @Override
+        Object get(Object owner) {
+            return function.apply(owner);
+        }
+    }
+
+    /**
+     * Accessor through a method handle.
+     */
+    private static final class MethodHandleAccessor extends AttributeAccessor {
+        private final MethodHandle handle;
+
+        private MethodHandleAccessor(MethodHandle handle) {
+            this.handle = handle.asType(GETTER_TYPE);
+        }
+
+        @Override
+        Object get(Object owner) {
+            try {
+                return handle.invokeExact(owner);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                // Getters of entities do not throw checked exceptions, but they may declare them.
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    /**
+     * Accessor through the mapping metamodel.
+     */
+    private static final class MetamodelAccessor extends AttributeAccessor {
+        private final AttributeMapping attributeMapping;
+
+        private MetamodelAccessor(AttributeMapping attributeMapping) {
+            this.attributeMapping = attributeMapping;
+        }
+
+        @Override
+        Object get(Object owner) {
+            return attributeMapping.getValue(owner);
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.javaetmoi.core.persistence.hibernate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.hibernate.FlushMode;
+import org.hibernate.Hibernate;
+import org.hibernate.collection.spi.AbstractPersistentCollection;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.metamodel.mapping.AttributeMapping;
+import org.hibernate.metamodel.mapping.EntityMappingType;
+import org.hibernate.metamodel.mapping.EntityValuedModelPart;
+import org.hibernate.metamodel.mapping.PluralAttributeMapping;
+import org.hibernate.proxy.HibernateProxy;
+
+/**
+ * Batched loading of the uninitialized collections and proxies of the attributes of sibling entities,
+ * see {@link Hydrator#withBatching(int, int)}.
+ * <p>
+ * The collections of an attribute are initialized by queries fetch joining them for a batch of owner ids.
+ * The proxies of a to-one attribute are loaded by queries for a batch of ids,
+ * so that initializing them finds their entities in the persistence context.
+ * The batch sizes are chosen per role by {@link Batching}, from the statistics of the former batches.
+ * Polymorphic proxies are left to the {@link PolymorphicLoader}, and proxies of reference data to its cache.
+ * </p>
+ */
+final class BatchLoader {
+    private final HydratorImpl hydrator;
+
+    private final HydrationSettings settings;
+
+    private final Batching batching;
+
+    /**
+     * Uninitialized collections and proxies per attribute.
+     */
+    private final Map<AttributeMapping, Group> groups = new LinkedHashMap<>();
+
+    /**
+     * Session of the collections and proxies, {@code null} if none added yet.
+     */
+    private SharedSessionContractImplementor session;
+
+    BatchLoader(HydratorImpl hydrator, HydrationSettings settings) {
+        this.hydrator = hydrator;
+        this.settings = settings;
+        this.batching = settings.getBatching();
+    }
+
+    /**
+     * Add the uninitialized collections and proxies of the attributes of the entities.
+     *
+     * @param entities
+     *            Entities, proxies or {@code null}s. Uninitialized proxies are skipped.
+     * @param entityType
+     *            Common entity type of the entities.
+     */
+    void addAttributes(Iterable<?> entities, EntityMappingType entityType) {
+        for (var entity : entities) {
+            if (entity == null) {
+                continue;
+            }
+            var lazyInitializer = HibernateProxy.extractLazyInitializer(entity);
+            if (lazyInitializer != null && lazyInitializer.isUninitialized()) {
+                continue;
+            }
+
+            var target = lazyInitializer != null ? lazyInitializer.getImplementation() : entity;
+            var plan = hydrator.plan(target.getClass(), entityType);
+            var parts = plan.getWalkedParts();
+            var accessors = plan.getWalkedAccessors();
+            for (int i = 0; i < parts.length; i++) {
+                if (parts[i] instanceof PluralAttributeMapping || parts[i] instanceof EntityValuedModelPart) {
+                    add(parts[i], accessors[i].get(target));
+                }
+            }
+        }
+    }
+
+    /**
+     * Add an uninitialized collection or proxy of an attribute, if it can be loaded in a batch.
+     *
+     * @param part
+     *            Collection or to-one attribute of an entity.
+     * @param lazy
+     *            Value of the attribute, maybe {@code null}.
+     */
+    void add(AttributeMapping part, Object lazy) {
+        if (lazy == null || Hibernate.isInitialized(lazy)) {
+            return;
+        }
+
+        if (part instanceof PluralAttributeMapping) {
+            var role = part.getNavigableRole();
+            if (!(lazy instanceof AbstractPersistentCollection) ||
+                    settings.getPaging(role) != null || settings.getFilter(role) != null) {
+                return;
+            }
+            var ownerType = part.findContainingEntityMapping();
+            if (ownerType.findAttributeMapping(part.getAttributeName()) != part) {
+                // Collections of embeddables cannot be fetch joined by their name from the owner entity.
+                return;
+            }
+            var collection = (AbstractPersistentCollection<?>) lazy;
+            var owner = collection.getOwner();
+            if (owner == null || ownerType.getEntityPersister().getIdentifierPropertyName() == null ||
+                    !isSameSession(collection.getSession())) {
+                return;
+            }
+            group(part, true).add(ownerType.getIdentifierMapping().getIdentifier(owner), collection);
+        } else {
+            var lazyInitializer = HibernateProxy.extractLazyInitializer(lazy);
+            if (lazyInitializer == null || !isSameSession(lazyInitializer.getSession())) {
+                return;
+            }
+            var targetType = hydrator.getMappingMetamodel().getEntityDescriptor(lazyInitializer.getEntityName());
+            if (PolymorphicLoader.isPolymorphic(targetType) || hydrator.isReferenceData(targetType.getEntityName()) ||
+                    targetType.getEntityPersister().getIdentifierPropertyName() == null) {
+                return;
+            }
+            group(part, false).add(lazyInitializer.getInternalIdentifier(), null);
+        }
+    }
+
+    private boolean isSameSession(SharedSessionContractImplementor lazySession) {
+        if (lazySession == null || !lazySession.isOpenOrWaitingForAutoClose()) {
+            // Leave it to Hibernate.
+            return false;
+        }
+        if (session == null) {
+            session = lazySession;
+        }
+        return session == lazySession;
+    }
+
+    private Group group(AttributeMapping part, boolean isCollection) {
+        return groups.computeIfAbsent(part,
+                key -> new Group(batching.statistics(key.getNavigableRole(), isCollection)));
+    }
+
+    /**
+     * Load the added collections and proxies in batches.
+     * A single collection or proxy of an attribute is left to Hibernate.
+     *
+     * @param traversal
+     *            Traversal, asked for and told about the statements.
+     */
+    void load(Traversal traversal) {
+        groups.forEach((part, group) -> {
+            var statistics = group.statistics;
+            statistics.levels.increment();
+            statistics.candidates.add(group.ids.size());
+            if (group.ids.size() < 2 || !traversal.canQuery(part)) {
+                return;
+            }
+
+            var query = part instanceof PluralAttributeMapping ?
+                    collectionQuery((PluralAttributeMapping) part) :
+                    entityQuery(((EntityValuedModelPart) part).getEntityMappingType());
+            var ids = new ArrayList<>(group.ids);
+            int statements = hydrator.getInListChunker().forEachChunk(ids, batching.batchSize(statistics),
+                    chunk -> session.createQuery(query, Object.class)
+                            .setHibernateFlushMode(FlushMode.MANUAL)
+                            .setParameterList("ids", chunk)
+                            .getResultList());
+
+            statistics.batches.add(statements);
+            statistics.loaded.add(ids.size());
+            if (group.collections != null) {
+                long elements = 0;
+                for (var collection : group.collections) {
+                    if (collection.wasInitialized()) {
+                        var value = collection.getValue();
+                        elements += value instanceof Map ? ((Map<?, ?>) value).size() : ((Collection<?>) value).size();
+                    }
+                }
+                statistics.elements.add(elements);
+            } else {
+                statistics.elements.add(ids.size());
+            }
+            traversal.queried(part, statements);
+        });
+    }
+
+    private static String collectionQuery(PluralAttributeMapping part) {
+        var ownerType = part.findContainingEntityMapping();
+        var identifier = ownerType.getEntityPersister().getIdentifierPropertyName();
+        return String.format("select o from %s o left join fetch o.%s where o.%s in (:ids)",
+                ownerType.getEntityName(), part.getAttributeName(), identifier);
+    }
+
+    private static String entityQuery(EntityMappingType entityType) {
+        var identifier = entityType.getEntityPersister().getIdentifierPropertyName();
+        return String.format("from %s e where e.%s in (:ids)", entityType.getEntityName(), identifier);
+    }
+
+    /**
+     * Uninitialized collections or proxies of an attribute.
+     */
+    private static final class Group {
+        final Batching.RoleStatistics statistics;
+
+        /**
+         * Distinct owner ids of the collections, or ids of the proxies.
+         */
+        final Set<Object> ids = new LinkedHashSet<>();
+
+        /**
+         * Collections, {@code null} for proxies.
+         */
+        List<AbstractPersistentCollection<?>> collections;
+
+        Group(Batching.RoleStatistics statistics) {
+            this.statistics = statistics;
+        }
+
+        void add(Object id, AbstractPersistentCollection<?> collection) {
+            if (ids.add(id) && collection != null) {
+                if (collections == null) {
+                    collections = new ArrayList<>();
+                }
+                collections.add(collection);
+            }
+        }
+    }
+}
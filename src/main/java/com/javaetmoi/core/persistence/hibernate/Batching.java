@@ -0,0 +1,107 @@
+package com.javaetmoi.core.persistence.hibernate;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.hibernate.metamodel.model.domain.NavigableRole;
+
+/**
+ * Adaptive batch sizes per role, see {@link Hydrator#withBatching(int, int)}.
+ * <p>
+ * The batch size of a role aims at loading all candidates of a level with a single statement,
+ * rounded up to a power of two so that the statements keep few distinct shapes.
+ * For collections, it is reduced so that a statement reads about {@link #TARGET_ROWS} rows,
+ * given the average fan-out observed so far.
+ * </p>
+ * <p>
+ * The statistics are shared by all hydrations and derived hydrators, and updated without locking.
+ * </p>
+ */
+final class Batching {
+    /**
+     * Number of rows a batch of collections should read.
+     */
+    private static final int TARGET_ROWS = 512;
+
+    private final int minBatchSize;
+
+    private final int maxBatchSize;
+
+    /**
+     * Statistics per role.
+     */
+    private final ConcurrentMap<NavigableRole, RoleStatistics> roles = new ConcurrentHashMap<>();
+
+    Batching(int minBatchSize, int maxBatchSize) {
+        if (minBatchSize < 1 || maxBatchSize < minBatchSize) {
+            throw new IllegalArgumentException(String.format(
+                    "Invalid batch sizes from %d to %d.", minBatchSize, maxBatchSize));
+        }
+        this.minBatchSize = minBatchSize;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Statistics of a role, created if needed.
+     *
+     * @param isCollection
+     *            Whether the role is a collection, rather than a to-one attribute.
+     */
+    RoleStatistics statistics(NavigableRole role, boolean isCollection) {
+        var statistics = roles.get(role);
+        return statistics != null ? statistics : roles.computeIfAbsent(role, key -> new RoleStatistics(isCollection));
+    }
+
+    /**
+     * Batch size of a role, given its statistics.
+     */
+    int batchSize(RoleStatistics statistics) {
+        long levels = statistics.levels.sum();
+        long size = levels > 0 ? ceilPowerOfTwo(statistics.candidates.sum() / (double) levels) : maxBatchSize;
+        long elements = statistics.elements.sum();
+        if (statistics.isCollection && elements > 0) {
+            size = Math.min(size, Math.max(1, TARGET_ROWS * statistics.loaded.sum() / elements));
+        }
+        return (int) Math.max(minBatchSize, Math.min(size, maxBatchSize));
+    }
+
+    private static long ceilPowerOfTwo(double value) {
+        long ceil = (long) Math.ceil(value);
+        return ceil <= 1 ? 1 : Long.highestOneBit(ceil - 1) << 1;
+    }
+
+    /**
+     * Snapshot of the statistics of all roles.
+     */
+    Map<NavigableRole, HydrationBatchStatistics> snapshot() {
+        var result = new LinkedHashMap<NavigableRole, HydrationBatchStatistics>();
+        roles.forEach((role, statistics) -> result.put(role, new HydrationBatchStatistics(
+                statistics.levels.sum(), statistics.candidates.sum(), statistics.batches.sum(),
+                statistics.loaded.sum(), statistics.elements.sum(), batchSize(statistics))));
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * Running statistics of a role.
+     */
+    static final class RoleStatistics {
+        final LongAdder levels = new LongAdder();
+        final LongAdder candidates = new LongAdder();
+        final LongAdder batches = new LongAdder();
+        final LongAdder loaded = new LongAdder();
+        final LongAdder elements = new LongAdder();
+
+        /**
+         * Whether the role is a collection, rather than a to-one attribute.
+         */
+        final boolean isCollection;
+
+        RoleStatistics(boolean isCollection) {
+            this.isCollection = isCollection;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.javaetmoi.core.persistence.hibernate;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+
+/**
+ * Limits of a single hydration, see {@link Hydrator#withBudget(long, long, Duration, Consumer)}
+ * and {@link Hydrator#withMemoryBudget(long, Consumer)}.
+ */
+final class Budget {
+    /**
+     * Maximum number of entities.
+     */
+    private final long maxEntities;
+
+    /**
+     * Maximum number of SQL statements.
+     */
+    private final long maxStatements;
+
+    /**
+     * Maximum duration.
+     */
+    private final Duration deadline;
+
+    /**
+     * Maximum estimated size of the hydrated graph in bytes, see {@link MemoryEstimator}.
+     */
+    private final long maxBytes;
+
+    /**
+     * Receives the report of a partial hydration when the entities, statements or duration are exceeded,
+     * {@code null} to fail fast.
+     */
+    private final Consumer<HydrationBudgetReport> onExceeded;
+
+    /**
+     * Receives the report of a partial hydration when the memory is exceeded, {@code null} to fail fast.
+     */
+    private final Consumer<HydrationBudgetReport> onMemoryExceeded;
+
+    Budget(long maxEntities, long maxStatements, Duration deadline, Consumer<HydrationBudgetReport> onExceeded,
+            long maxBytes, Consumer<HydrationBudgetReport> onMemoryExceeded) {
+        if (maxEntities < 0 || maxStatements < 0 || deadline.isNegative() || maxBytes < 0) {
+            throw new IllegalArgumentException(String.format(
+                    "Invalid budget of %d entities, %d statements, %s and %d bytes.",
+                    maxEntities, maxStatements, deadline, maxBytes));
+        }
+        this.maxEntities = maxEntities;
+        this.maxStatements = maxStatements;
+        this.deadline = deadline;
+        this.maxBytes = maxBytes;
+        this.onExceeded = onExceeded;
+        this.onMemoryExceeded = onMemoryExceeded;
+    }
+
+    /**
+     * Budget without limits.
+     */
+    static Budget unlimited() {
+        return new Budget(Long.MAX_VALUE, Long.MAX_VALUE, Duration.ofNanos(Long.MAX_VALUE), null, Long.MAX_VALUE, null);
+    }
+
+    /**
+     * Copy with the limits of entities, statements and duration, and their behavior.
+     */
+    Budget withLimits(long maxEntities, long maxStatements, Duration deadline,
+            Consumer<HydrationBudgetReport> onExceeded) {
+        return new Budget(maxEntities, maxStatements, deadline, onExceeded, maxBytes, onMemoryExceeded);
+    }
+
+    /**
+     * Copy with the memory limit, and its behavior.
+     */
+    Budget withMaxBytes(long maxBytes, Consumer<HydrationBudgetReport> onMemoryExceeded) {
+        return new Budget(maxEntities, maxStatements, deadline, onExceeded, maxBytes, onMemoryExceeded);
+    }
+
+    long getMaxEntities() {
+        return maxEntities;
+    }
+
+    long getMaxStatements() {
+        return maxStatements;
+    }
+
+    Duration getDeadline() {
+        return deadline;
+    }
+
+    long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Does the budget limit the memory?.
+     */
+    boolean isMemoryLimited() {
+        return maxBytes != Long.MAX_VALUE;
+    }
+
+    /**
+     * Receives the report of a partial hydration when the given limit is exceeded, {@code null} to fail fast.
+     */
+    Consumer<HydrationBudgetReport> getOnExceeded(HydrationBudgetReport.Limit limit) {
+        return limit == HydrationBudgetReport.Limit.MEMORY ? onMemoryExceeded : onExceeded;
+    }
+}
@@ -0,0 +1,56 @@
+package com.javaetmoi.core.persistence.hibernate;
+
+import java.util.Collection;
+import java.util.Map;
+
+import org.hibernate.Filter;
+import org.hibernate.engine.spi.LoadQueryInfluencers;
+
+/**
+ * Hibernate filter enabled while the collections of a role are initialized,
+ * see {@link Hydrator#withFilter(Class, String, String, Map)}.
+ */
+final class CollectionFilter {
+    /**
+     * Name of the filter definition.
+     */
+    private final String name;
+
+    /**
+     * Parameter values per name.
+     */
+    private final Map<String, ?> parameters;
+
+    CollectionFilter(String name, Map<String, ?> parameters) {
+        this.name = name;
+        this.parameters = Map.copyOf(parameters);
+    }
+
+    String getName() {
+        return name;
+    }
+
+    /**
+     * Enable the filter, unless it is already enabled.
+     *
+     * @return Whether the filter has been enabled, and so has to be disabled afterwards.
+     */
+    boolean enable(LoadQueryInfluencers influencers) {
+        if (influencers.getEnabledFilter(name) != null) {
+            // Enabled by the caller: Keep its parameters.
+            return false;
+        }
+
+        Filter filter = influencers.enableFilter(name);
+        parameters.forEach((parameter, value) -> {
+            if (value instanceof Collection) {
+                filter.setParameterList(parameter, (Collection<?>) value);
+            } else if (value instanceof Object[]) {
+                filter.setParameterList(parameter, (Object[]) value);
+            } else {
+                filter.setParameter(parameter, value);
+            }
+        });
+        return true;
+    }
+}
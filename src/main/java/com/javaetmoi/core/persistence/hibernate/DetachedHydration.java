@@ -0,0 +1,71 @@
+package com.javaetmoi.core.persistence.hibernate;
+
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+/**
+ * Hydration of an entity by a short read-only session of its own, so that the graph is detached and session-free
+ * once it returns, and can be shared, see {@link HydratedGraphCache},
+ * {@link HydrationCoalescer} and {@link Hydrator#revalidate(Object)}.
+ */
+final class DetachedHydration {
+    /**
+     * No-arg constructor.
+     */
+    private DetachedHydration() {
+        // Private visibility because utility class.
+    }
+
+    /**
+     * Find and hydrate an entity in a transaction of its own.
+     *
+     * @param sessionFactory
+     *            Session factory.
+     * @param entityClass
+     *            Class of the entity.
+     * @param id
+     *            Id of the entity.
+     * @param hydration
+     *            Hydrates the entity, while the session is open.
+     * @return The detached entity, {@code null} if it does not exist.
+     */
+    static <E> E hydrate(SessionFactoryImplementor sessionFactory, Class<E> entityClass, Object id,
+            Consumer<E> hydration) {
+        return execute(sessionFactory, session -> {
+            var entity = session.find(entityClass, id);
+            if (entity != null) {
+                hydration.accept(entity);
+            }
+            return entity;
+        });
+    }
+
+    /**
+     * Execute some work in a read-only session and transaction of its own.
+     * The entities it loads are detached once it returns.
+     *
+     * @param sessionFactory
+     *            Session factory.
+     * @param work
+     *            Queries, loads and hydrates entities.
+     * @return The result of the work.
+     */
+    static <R> R execute(SessionFactoryImplementor sessionFactory, Function<Session, R> work) {
+        try (var session = sessionFactory.openSession()) {
+            session.setDefaultReadOnly(true);
+            var transaction = session.beginTransaction();
+            try {
+                var result = work.apply(session);
+                transaction.commit();
+                return result;
+            } finally {
+                if (transaction.isActive()) {
+                    transaction.rollback();
+                }
+            }
+        }
+    }
+}
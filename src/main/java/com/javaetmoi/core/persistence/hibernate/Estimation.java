@@ -0,0 +1,137 @@
+package com.javaetmoi.core.persistence.hibernate;
+
+import static java.util.stream.Collectors.toList;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.hibernate.FlushMode;
+import org.hibernate.Hibernate;
+import org.hibernate.LazyInitializationException;
+import org.hibernate.collection.spi.AbstractPersistentCollection;
+import org.hibernate.collection.spi.PersistentCollection;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.metamodel.mapping.EntityValuedModelPart;
+import org.hibernate.metamodel.mapping.ModelPart;
+import org.hibernate.metamodel.mapping.PluralAttributeMapping;
+import org.hibernate.metamodel.model.domain.NavigableRole;
+import org.hibernate.proxy.HibernateProxy;
+
+import com.javaetmoi.core.persistence.hibernate.HydrationEstimate.RoleEstimate;
+
+/**
+ * Traversal that does not initialize anything but collects the uninitialized proxies and collections.
+ * <p>
+ * The objects behind uninitialized proxies and collections are unknown until they have been loaded,
+ * so the estimate covers the next level of loads only and is a lower bound of the full hydration.
+ * </p>
+ */
+class Estimation extends Traversal {
+    /**
+     * Number of uninitialized proxies per role.
+     */
+    private final Map<NavigableRole, Long> proxies = new LinkedHashMap<>();
+
+    /**
+     * Uninitialized collections per role.
+     */
+    private final Map<PluralAttributeMapping, List<PersistentCollection<?>>> collections = new LinkedHashMap<>();
+
+    /**
+     * Session of the uninitialized proxies and collections.
+     */
+    private SharedSessionContractImplementor session;
+
+    /**
+     * Constructor.
+     *
+     * @param capacity
+     *            Initial capacity of the recursive guard.
+     */
+    Estimation(int capacity) {
+        super(capacity);
+    }
+
+    @Override
+    boolean initialize(Object lazy, ModelPart part) {
+        if (Hibernate.isInitialized(lazy)) {
+            return true;
+        }
+
+        if (lazy instanceof HibernateProxy) {
+            session(((HibernateProxy) lazy).getHibernateLazyInitializer().getSession());
+            proxies.merge(part.getNavigableRole(), 1L, Long::sum);
+        } else if (lazy instanceof AbstractPersistentCollection && part instanceof PluralAttributeMapping) {
+            session(((AbstractPersistentCollection<?>) lazy).getSession());
+            collections.computeIfAbsent((PluralAttributeMapping) part, role -> new ArrayList<>())
+                    .add((PersistentCollection<?>) lazy);
+        }
+        return false;
+    }
+
+    @Override
+    boolean isLoading() {
+        // Nothing is loaded.
+        return false;
+    }
+
+    private void session(SharedSessionContractImplementor session) {
+        if (session == null || !session.isOpenOrWaitingForAutoClose()) {
+            throw new LazyInitializationException("Could not estimate the hydration - no Session");
+        }
+        this.session = session;
+    }
+
+    /**
+     * Estimate the cost of loading the collected proxies and collections.
+     * Executes one count query per collection role.
+     */
+    HydrationEstimate estimate() {
+        var roles = new LinkedHashMap<NavigableRole, RoleEstimate>();
+        // Each proxy costs a statement to load its single row.
+        proxies.forEach((role, count) ->
+                roles.put(role, new RoleEstimate(count, count, count)));
+        // Each collection costs a statement to load all of its rows.
+        collections.forEach((part, roleCollections) -> {
+            var rows = countRows(part, roleCollections);
+            var entities = part.getElementDescriptor() instanceof EntityValuedModelPart ? rows : 0;
+            roles.put(part.getNavigableRole(), new RoleEstimate(entities, rows, roleCollections.size()));
+        });
+        return new HydrationEstimate(roles);
+    }
+
+    /**
+     * Count the rows of the given collections of the same role.
+     */
+    private long countRows(PluralAttributeMapping part, List<PersistentCollection<?>> roleCollections) {
+        var owner = part.findContainingEntityMapping();
+        var ownerPath = owner.getNavigableRole().getFullPath() + ".";
+        var path = part.getNavigableRole().getFullPath();
+        var identifier = owner.getEntityPersister().getIdentifierPropertyName();
+        if (identifier == null || !path.startsWith(ownerPath) || path.contains("{")) {
+            // The role is not reachable by a query path: Use extra-lazy size per collection.
+            var collectionDescriptor = part.getCollectionDescriptor();
+            return roleCollections.stream()
+                    .mapToLong(collection -> collectionDescriptor.getSize(collection.getKey(), session))
+                    .sum();
+        }
+
+        var query = String.format("select count(*) from %s o join o.%s e where o.%s in (:ids)",
+                owner.getEntityName(), path.substring(ownerPath.length()), identifier);
+        var ids = roleCollections.stream()
+                .map(collection -> owner.getIdentifierMapping().getIdentifier(collection.getOwner()))
+                .collect(toList());
+        var limit = session.getFactory().getJdbcServices().getDialect().getInExpressionCountLimit();
+        var chunkSize = limit > 0 ? limit : ids.size();
+        long rows = 0;
+        for (int i = 0; i < ids.size(); i += chunkSize) {
+            rows += session.createQuery(query, Long.class)
+                    .setHibernateFlushMode(FlushMode.MANUAL)
+                    .setParameterList("ids", ids.subList(i, Math.min(i + chunkSize, ids.size())))
+                    .getSingleResult();
+        }
+        return rows;
+    }
+}
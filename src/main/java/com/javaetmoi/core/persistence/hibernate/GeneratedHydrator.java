@@ -0,0 +1,64 @@
+package com.javaetmoi.core.persistence.hibernate;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Hydrator for a single entity class, generated at build time by
+ * {@link com.javaetmoi.core.persistence.hibernate.processor.HydratorProcessor}.
+ * <p>
+ * The generated class of the entity class {@code com.example.MyEntity} is {@code com.example.MyEntity_Hydrator}.
+ * {@link Hydrator}s pick it up when present and fall back to the mapping metamodel otherwise.
+ * Implementations have to be stateless and need a public no-arg constructor.
+ * </p>
+ *
+ * @param <E>
+ *            Entity class.
+ */
+public interface GeneratedHydrator<E> {
+    /**
+     * Suffix of the generated classes, appended to the binary name of the entity class.
+     */
+    public static final String SUFFIX = "_Hydrator";
+
+    /**
+     * Names of the attributes passed to the {@link Sink}, in the order of their indexes.
+     */
+    public String[] getAttributeNames();
+
+    /**
+     * Pass the values of all attributes that are entities, embeddables or collections to the sink.
+     *
+     * @param entity
+     *            Initialized entity, not a proxy.
+     * @param sink
+     *            Receiver of the attribute values.
+     */
+    public void hydrate(E entity, Sink sink);
+
+    /**
+     * Receiver of the attribute values.
+     * The index is the index of the attribute in {@link GeneratedHydrator#getAttributeNames()}.
+     */
+    public interface Sink {
+        /**
+         * Hydrate an entity valued attribute.
+         */
+        public void entity(int index, Object entity);
+
+        /**
+         * Hydrate an embeddable valued attribute.
+         */
+        public void embeddable(int index, Object embeddable);
+
+        /**
+         * Hydrate a collection valued attribute.
+         */
+        public void collection(int index, Collection<?> collection);
+
+        /**
+         * Hydrate a map valued attribute.
+         */
+        public void map(int index, Map<?, ?> map);
+    }
+}
@@ -0,0 +1,352 @@
+package com.javaetmoi.core.persistence.hibernate;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Map;
+
+import org.hibernate.metamodel.mapping.AttributeMapping;
+import org.hibernate.metamodel.mapping.BasicValuedModelPart;
+import org.hibernate.metamodel.mapping.EmbeddableValuedModelPart;
+import org.hibernate.metamodel.mapping.EntityMappingType;
+import org.hibernate.metamodel.mapping.EntityValuedModelPart;
+import org.hibernate.metamodel.mapping.ModelPart;
+import org.hibernate.metamodel.mapping.PluralAttributeMapping;
+
+/**
+ * Fingerprint of an object graph computed while it is hydrated, see {@link Hydrator#walk(Object, HydrationVisitor)},
+ * e.g. to derive an HTTP ETag without serializing the graph.
+ * <p>
+ * The root entity contributes its type and id. Each entity contributes its type and id,
+ * and its version if it is {@link jakarta.persistence.Version versioned}, or otherwise the values of its basic
+ * and embedded attributes and the ids of its to-one associations.
+ * Each element of a collection, and each entry of a map, contributes its owner, role and value,
+ * and its position if the collection is indexed or ordered, e.g. by {@link jakarta.persistence.OrderColumn @OrderColumn}
+ * or {@link jakarta.persistence.OrderBy @OrderBy}.
+ * The contributions are summed, so the fingerprint does not depend on the order of the traversal,
+ * e.g. the iteration order of sets or bags, while reordering an indexed or ordered list changes it.
+ * It is stable across JVMs as long as the hash codes of the ids and basic values are,
+ * which is the case of strings, numbers, dates and enums.
+ * Branches pruned by the delegate, and paged collections, do not contribute.
+ * </p>
+ * <p>
+ * Not thread-safe: Use a new instance per walk.
+ * </p>
+ */
+public final class GraphFingerprint implements HydrationVisitor {
+    private static final long NULL = 0x9E3779B97F4A7C15L;
+
+    /**
+     * Visitor to forward the callbacks to, e.g. a serializer, {@code null} for none.
+     */
+    private final HydrationVisitor delegate;
+
+    /**
+     * Entities, embeddables and collections being walked.
+     */
+    private final Deque<Frame> frames = new ArrayDeque<>();
+
+    /**
+     * Hash of the collection element whose embeddable is entered next, {@code null} if not an element.
+     */
+    private Long pendingElement;
+
+    /**
+     * Whether the root entity has been entered.
+     */
+    private boolean rooted;
+
+    /**
+     * Sum of the contributions.
+     */
+    private long value;
+
+    /**
+     * Constructor for a fingerprint alone.
+     */
+    public GraphFingerprint() {
+        this(null);
+    }
+
+    /**
+     * Constructor for a fingerprint computed by the traversal of another visitor.
+     *
+     * @param delegate
+     *            Visitor to forward the callbacks to, which decides about pruning. May be {@code null}.
+     */
+    public GraphFingerprint(HydrationVisitor delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Hydrate the entity and compute its fingerprint in a single traversal.
+     *
+     * @param hydrator
+     *            Hydrator.
+     * @param entity
+     *            An attached Hibernate entity. May be {@code null}.
+     * @return The fingerprint.
+     */
+    public static GraphFingerprint of(Hydrator hydrator, Object entity) {
+        var fingerprint = new GraphFingerprint();
+        hydrator.walk(entity, fingerprint);
+        return fingerprint;
+    }
+
+    /**
+     * The fingerprint of the graph walked so far.
+     */
+    public long getValue() {
+        return value;
+    }
+
+    /**
+     * The fingerprint as a strong HTTP entity tag, including the quotes.
+     */
+    public String toETag() {
+        return String.format("\"%016x\"", value);
+    }
+
+    @Override
+    public boolean attribute(Object owner, AttributeMapping attribute, Object value) {
+        var frame = frames.peek();
+        if (frame != null && !frame.versioned) {
+            if (attribute instanceof BasicValuedModelPart) {
+                frame.update(attribute.getAttributeName().hashCode(), hash(value));
+            } else if (attribute instanceof EntityValuedModelPart && !(attribute instanceof PluralAttributeMapping)) {
+                frame.update(attribute.getAttributeName().hashCode(),
+                        entityKey(((EntityValuedModelPart) attribute).getEntityMappingType(), value));
+            }
+        }
+        return delegate == null || delegate.attribute(owner, attribute, value);
+    }
+
+    @Override
+    public boolean enterEntity(Object entity, EntityMappingType entityType) {
+        var persister = entityType.getEntityPersister();
+        var key = entityKey(entityType, entity);
+        if (!rooted) {
+            // Graphs of different roots may consist of the same entities.
+            rooted = true;
+            add(Frame.combine(NULL, key));
+        }
+        var frame = new Frame(key, key, persister.isVersioned(), false);
+        if (frame.versioned) {
+            frame.update(hash(persister.getVersion(entity)), 0);
+        }
+        if (delegate != null && !delegate.enterEntity(entity, entityType)) {
+            add(frame.state);
+            return false;
+        }
+        frames.push(frame);
+        return true;
+    }
+
+    @Override
+    public void exitEntity(Object entity, EntityMappingType entityType) {
+        add(frames.pop().state);
+        if (delegate != null) {
+            delegate.exitEntity(entity, entityType);
+        }
+    }
+
+    @Override
+    public boolean enterEmbeddable(Object embeddable, EmbeddableValuedModelPart part) {
+        var element = pendingElement;
+        pendingElement = null;
+        if (delegate != null && !delegate.enterEmbeddable(embeddable, part)) {
+            return false;
+        }
+        var parent = frames.peek();
+        var owner = parent != null ? parent.owner : NULL;
+        var key = element != null ? element : part.getPartName().hashCode();
+        frames.push(new Frame(owner, key, parent != null && parent.versioned, element != null));
+        return true;
+    }
+
+    @Override
+    public void exitEmbeddable(Object embeddable, EmbeddableValuedModelPart part) {
+        var frame = frames.pop();
+        var parent = frames.peek();
+        if (frame.element) {
+            // Elements of collections of embeddables contribute like the other elements.
+            add(frame.state);
+        } else if (parent != null) {
+            parent.update(frame.key, frame.state);
+        }
+        if (delegate != null) {
+            delegate.exitEmbeddable(embeddable, part);
+        }
+    }
+
+    /**
+     * Is the order of the elements stable, i.e. kept by an index or an ordering of the collection?.
+     * The order of a bag depends on the database, and the key of a map entry already contributes.
+     */
+    private static boolean isOrdered(Object collection, PluralAttributeMapping part) {
+        if (collection instanceof Map) {
+            return false;
+        }
+        var descriptor = part.getCollectionDescriptor();
+        return descriptor.hasIndex() || descriptor.hasOrdering() || descriptor.hasManyToManyOrdering();
+    }
+
+    @Override
+    public boolean enterCollection(Object collection, PluralAttributeMapping part) {
+        if (delegate != null && !delegate.enterCollection(collection, part)) {
+            return false;
+        }
+        var parent = frames.peek();
+        var owner = parent != null ? parent.owner : NULL;
+        var key = Frame.combine(owner, part.getNavigableRole().getFullPath().hashCode());
+        var frame = new Frame(owner, key, false, false);
+        if (isOrdered(collection, part)) {
+            frame.position = 0;
+        }
+        frames.push(frame);
+        return true;
+    }
+
+    @Override
+    public boolean key(Object key, PluralAttributeMapping part) {
+        frames.peek().entryKey = valueHash(key, part.getIndexDescriptor());
+        return delegate == null || delegate.key(key, part);
+    }
+
+    @Override
+    public boolean element(Object element, PluralAttributeMapping part) {
+        var collection = frames.peek();
+        var elementType = part.getElementDescriptor();
+        // Entries of maps contribute their key and value together.
+        var entry = Frame.combine(collection.state, collection.entryKey);
+        collection.entryKey = 0;
+        if (collection.position >= 0) {
+            entry = Frame.combine(entry, collection.position++);
+        }
+        if (elementType instanceof EmbeddableValuedModelPart && element != null) {
+            // Contributes by its attributes, when entered.
+            pendingElement = entry;
+        } else {
+            add(Frame.combine(entry, valueHash(element, elementType)));
+        }
+        if (delegate == null || delegate.element(element, part)) {
+            return true;
+        }
+        pendingElement = null;
+        return false;
+    }
+
+    @Override
+    public void exitCollection(Object collection, PluralAttributeMapping part) {
+        frames.pop();
+        if (delegate != null) {
+            delegate.exitCollection(collection, part);
+        }
+    }
+
+    @Override
+    public void revisit(Object object, ModelPart part) {
+        // Entities contribute once, while references to them contribute by their owners.
+        if (delegate != null) {
+            delegate.revisit(object, part);
+        }
+    }
+
+    private void add(long state) {
+        value += finish(state);
+    }
+
+    /**
+     * Hash of an entity or basic value of a collection, map key or association.
+     */
+    private static long valueHash(Object value, ModelPart part) {
+        if (value != null && part instanceof EntityValuedModelPart) {
+            return entityKey(((EntityValuedModelPart) part).getEntityMappingType(), value);
+        }
+        return hash(value);
+    }
+
+    /**
+     * Key of an entity or proxy: Root entity name of its hierarchy, and id.
+     */
+    private static long entityKey(EntityMappingType entityType, Object entity) {
+        if (entity == null) {
+            return NULL;
+        }
+        var id = entityType.getIdentifierMapping().getIdentifier(entity);
+        return Frame.combine(entityType.getRootEntityDescriptor().getEntityName().hashCode(), hash(id));
+    }
+
+    /**
+     * Hash of a basic value, stable across JVMs for the usual types.
+     */
+    private static long hash(Object value) {
+        if (value == null) {
+            return NULL;
+        } else if (value instanceof Enum) {
+            // Hash codes of enums are identity hash codes.
+            return ((Enum<?>) value).name().hashCode();
+        } else if (value instanceof byte[]) {
+            return Arrays.hashCode((byte[]) value);
+        } else if (value instanceof char[]) {
+            return Arrays.hashCode((char[]) value);
+        }
+        return value.hashCode();
+    }
+
+    /**
+     * Finalizer of MurmurHash3, so that summed contributions are well distributed.
+     */
+    private static long finish(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * Entity, embeddable or collection being walked, with the hash of its state so far.
+     */
+    private static final class Frame {
+        /**
+         * Key of the entity, or of the entity owning the embeddable or collection.
+         */
+        private final long owner;
+        private final long key;
+        private final boolean versioned;
+
+        /**
+         * Whether the embeddable is the element of a collection.
+         */
+        private final boolean element;
+        private long state;
+
+        /**
+         * Hash of the key of the map entry whose value is reported next.
+         */
+        private long entryKey;
+
+        /**
+         * Position of the next element of an ordered collection, {@code -1} if the order does not matter.
+         */
+        private int position = -1;
+
+        Frame(long owner, long key, boolean versioned, boolean element) {
+            this.owner = owner;
+            this.key = key;
+            this.versioned = versioned;
+            this.element = element;
+            this.state = key;
+        }
+
+        void update(long name, long value) {
+            state = combine(combine(state, name), value);
+        }
+
+        static long combine(long hash, long value) {
+            return (hash ^ value) * NULL + (hash >>> 29);
+        }
+    }
+}
@@ -0,0 +1,456 @@
+package com.javaetmoi.core.persistence.hibernate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.SessionFactoryObserver;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.AbstractCollectionEvent;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCollectionRecreateEvent;
+import org.hibernate.event.spi.PostCollectionRecreateEventListener;
+import org.hibernate.event.spi.PostCollectionRemoveEvent;
+import org.hibernate.event.spi.PostCollectionRemoveEventListener;
+import org.hibernate.event.spi.PostCollectionUpdateEvent;
+import org.hibernate.event.spi.PostCollectionUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.metamodel.mapping.EntityMappingType;
+import org.hibernate.metamodel.mapping.PluralAttributeMapping;
+import org.hibernate.persister.entity.EntityPersister;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Cache of detached hydrated graphs across requests, per root entity and hydrator.
+ * <p>
+ * A missing graph is hydrated by a read-only session of its own, so that the cached graph is detached and
+ * session-free. Every entity of a cached graph is indexed: Listeners of the session factory invalidate
+ * all graphs containing an entity that is updated or deleted, or whose collections change.
+ * The graphs are shared by all callers and threads: They must not be modified.
+ * </p>
+ * <p>
+ * The weight of a graph is its estimated size in bytes, see {@link Hydrator#withMemoryBudget(long)}.
+ * When the total weight exceeds the maximum, the least recently used graphs are evicted.
+ * </p>
+ * <p>
+ * Changes made without Hibernate, e.g. by SQL or by other applications, are not seen.
+ * Neither are insertions of entities that are not added to a collection of a cached entity.
+ * </p>
+ */
+public final class HydratedGraphCache {
+    private final SessionFactoryImplementor sessionFactory;
+
+    /**
+     * Maximum total weight.
+     */
+    private final long maxWeight;
+
+    /**
+     * Graphs per key, in access order. Guarded by this.
+     */
+    private final LinkedHashMap<GraphKey, Graph> graphs = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Keys of the cached graphs per entity. Guarded by this.
+     */
+    private final Map<EntityKey, Set<GraphKey>> index = new HashMap<>();
+
+    /**
+     * Hydrations in progress, told about the invalidations while they load. Guarded by this.
+     */
+    private final Set<Set<EntityKey>> loads = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /**
+     * Number of calls of {@link #invalidateAll()}. Guarded by this.
+     */
+    private long clears;
+
+    /**
+     * Total weight of the cached graphs. Guarded by this.
+     */
+    private long weight;
+
+    /**
+     * Constructor. The cache is invalidated by listeners of the session factory, as long as it is referenced.
+     *
+     * @param entityManagerFactory
+     *            Open {@link EntityManagerFactory} or {@link org.hibernate.SessionFactory}.
+     * @param maxWeight
+     *            Maximum total estimated size of the cached graphs in bytes.
+     * @throws IllegalArgumentException if the maximum weight is negative.
+     */
+    public HydratedGraphCache(EntityManagerFactory entityManagerFactory, long maxWeight) {
+        if (maxWeight < 0) {
+            throw new IllegalArgumentException(String.format("Invalid maximum weight %d.", maxWeight));
+        }
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        this.maxWeight = maxWeight;
+
+        Invalidator.register(sessionFactory, this);
+    }
+
+    /**
+     * Get the cached graph of an entity, or hydrate it by a session of its own and cache it.
+     * <p>
+     * Concurrent calls for a missing graph hydrate it each.
+     * A graph changed while it is hydrated is returned, but not cached.
+     * </p>
+     *
+     * @param hydrator
+     *            Hydrator of the graph. Part of the key: Reuse the same instance for the same graphs.
+     * @param entityClass
+     *            Class of the root entity.
+     * @param id
+     *            Id of the root entity.
+     * @return The detached hydrated graph, {@code null} if the entity does not exist.
+     */
+    public <E> E get(Hydrator hydrator, Class<E> entityClass, Object id) {
+        var key = key(hydrator, entityClass, id);
+        var cached = getIfPresent(key);
+        if (cached != null) {
+            return entityClass.cast(cached);
+        }
+
+        var invalidated = new HashSet<EntityKey>();
+        long clearsBefore;
+        synchronized (this) {
+            loads.add(invalidated);
+            clearsBefore = clears;
+        }
+        var graph = new Graph();
+        E root;
+        try {
+            // Indexes the entities while hydrating.
+            root = DetachedHydration.hydrate(sessionFactory, entityClass, id, entity -> hydrator.walk(entity, graph));
+        } finally {
+            synchronized (this) {
+                loads.remove(invalidated);
+            }
+        }
+        if (root != null) {
+            graph.root = root;
+            put(key, graph, invalidated, clearsBefore);
+        }
+        return root;
+    }
+
+    /**
+     * Get the cached graph of an entity.
+     *
+     * @param hydrator
+     *            Hydrator of the graph.
+     * @param entityClass
+     *            Class of the root entity.
+     * @param id
+     *            Id of the root entity.
+     * @return The detached hydrated graph, {@code null} if not cached.
+     */
+    public <E> E getIfPresent(Hydrator hydrator, Class<E> entityClass, Object id) {
+        return entityClass.cast(getIfPresent(key(hydrator, entityClass, id)));
+    }
+
+    private synchronized Object getIfPresent(GraphKey key) {
+        var graph = graphs.get(key);
+        return graph != null ? graph.root : null;
+    }
+
+    /**
+     * Invalidate the graphs containing an entity.
+     *
+     * @param entityClass
+     *            Entity class.
+     * @param id
+     *            Id of the entity.
+     */
+    public void invalidate(Class<?> entityClass, Object id) {
+        invalidate(new EntityKey(sessionFactory.getMappingMetamodel().getEntityDescriptor(entityClass), id));
+    }
+
+    /**
+     * Invalidate all graphs.
+     */
+    public synchronized void invalidateAll() {
+        clears++;
+        graphs.clear();
+        index.clear();
+        weight = 0;
+    }
+
+    /**
+     * Number of cached graphs.
+     */
+    public synchronized int size() {
+        return graphs.size();
+    }
+
+    /**
+     * Total estimated size of the cached graphs in bytes.
+     */
+    public synchronized long getWeight() {
+        return weight;
+    }
+
+    private GraphKey key(Hydrator hydrator, Class<?> entityClass, Object id) {
+        Objects.requireNonNull(hydrator, "hydrator");
+        Objects.requireNonNull(id, "id");
+        return new GraphKey(hydrator, sessionFactory.getMappingMetamodel().getEntityDescriptor(entityClass), id);
+    }
+
+    private synchronized void put(GraphKey key, Graph graph, Set<EntityKey> invalidated, long clearsBefore) {
+        if (graph.weight > maxWeight || clears != clearsBefore || !Collections.disjoint(graph.entities, invalidated)) {
+            return;
+        }
+        remove(key);
+        graphs.put(key, graph);
+        weight += graph.weight;
+        for (var entity : graph.entities) {
+            index.computeIfAbsent(entity, entityKey -> new HashSet<>()).add(key);
+        }
+        while (weight > maxWeight) {
+            // The least recently used graph.
+            remove(graphs.keySet().iterator().next());
+        }
+    }
+
+    private synchronized void invalidate(EntityKey entity) {
+        for (var load : loads) {
+            load.add(entity);
+        }
+        var keys = index.get(entity);
+        if (keys != null) {
+            for (var key : new ArrayList<>(keys)) {
+                remove(key);
+            }
+        }
+    }
+
+    /**
+     * Remove a graph and its index entries. Guarded by this.
+     */
+    private void remove(GraphKey key) {
+        var graph = graphs.remove(key);
+        if (graph == null) {
+            return;
+        }
+        weight -= graph.weight;
+        for (var entity : graph.entities) {
+            var keys = index.get(entity);
+            keys.remove(key);
+            if (keys.isEmpty()) {
+                index.remove(entity);
+            }
+        }
+    }
+
+    /**
+     * Key of a graph: Hydrator, root entity type and id.
+     */
+    private static final class GraphKey {
+        private final Hydrator hydrator;
+        private final EntityKey root;
+
+        GraphKey(Hydrator hydrator, EntityMappingType entityType, Object id) {
+            this.hydrator = hydrator;
+            this.root = new EntityKey(entityType, id);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof GraphKey)) {
+                return false;
+            }
+            var other = (GraphKey) obj;
+            return hydrator == other.hydrator && root.equals(other.root);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(hydrator) + root.hashCode();
+        }
+    }
+
+    /**
+     * Key of an entity: Root entity name of its hierarchy, and id.
+     */
+    private static final class EntityKey {
+        private final String rootEntityName;
+        private final Object id;
+
+        EntityKey(EntityMappingType entityType, Object id) {
+            this(entityType.getRootEntityDescriptor().getEntityName(), id);
+        }
+
+        EntityKey(String rootEntityName, Object id) {
+            this.rootEntityName = rootEntityName;
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof EntityKey)) {
+                return false;
+            }
+            var other = (EntityKey) obj;
+            return rootEntityName.equals(other.rootEntityName) && id.equals(other.id);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * rootEntityName.hashCode() + id.hashCode();
+        }
+    }
+
+    /**
+     * A hydrated graph, with its entities and weight, collected while it is walked.
+     */
+    private static final class Graph implements HydrationVisitor {
+        private final Set<EntityKey> entities = new HashSet<>();
+        private long weight;
+        private Object root;
+
+        @Override
+        public boolean enterEntity(Object entity, EntityMappingType entityType) {
+            entities.add(new EntityKey(entityType, entityType.getIdentifierMapping().getIdentifier(entity)));
+            weight += MemoryEstimator.entitySize(entityType);
+            return true;
+        }
+
+        @Override
+        public void exitCollection(Object collection, PluralAttributeMapping part) {
+            weight += MemoryEstimator.collectionSize(
+                    collection instanceof Map ? ((Map<?, ?>) collection).size() : ((Collection<?>) collection).size());
+        }
+    }
+
+    /**
+     * Invalidates the graphs containing changed entities, in all caches of a session factory.
+     * Registered once per session factory, because Hibernate rejects several listeners of the same class.
+     */
+    private static final class Invalidator implements PostUpdateEventListener, PostDeleteEventListener,
+            PostCollectionUpdateEventListener, PostCollectionRecreateEventListener, PostCollectionRemoveEventListener {
+        /**
+         * Invalidators per session factory, removed when it closes, see {@link Release}.
+         * Not weak, because each invalidator references its session factory. Guarded by itself.
+         */
+        private static final Map<SessionFactoryImplementor, Invalidator> INVALIDATORS = new HashMap<>();
+
+        private final SessionFactoryImplementor sessionFactory;
+
+        /**
+         * Weakly referenced caches. Guarded by itself.
+         */
+        private final Set<HydratedGraphCache> caches = Collections.newSetFromMap(new WeakHashMap<>());
+
+        private Invalidator(SessionFactoryImplementor sessionFactory) {
+            this.sessionFactory = sessionFactory;
+        }
+
+        /**
+         * Register the cache with the invalidator of the session factory. Creates it, if needed.
+         */
+        static void register(SessionFactoryImplementor sessionFactory, HydratedGraphCache cache) {
+            Invalidator invalidator;
+            synchronized (INVALIDATORS) {
+                invalidator = INVALIDATORS.get(sessionFactory);
+                if (invalidator == null) {
+                    invalidator = new Invalidator(sessionFactory);
+                    var registry = sessionFactory.getServiceRegistry().getService(EventListenerRegistry.class);
+                    registry.appendListeners(EventType.POST_UPDATE, invalidator);
+                    registry.appendListeners(EventType.POST_DELETE, invalidator);
+                    // Again after the commit, in case a hydration read the former state in the meantime.
+                    registry.appendListeners(EventType.POST_COMMIT_UPDATE, invalidator);
+                    registry.appendListeners(EventType.POST_COMMIT_DELETE, invalidator);
+                    registry.appendListeners(EventType.POST_COLLECTION_UPDATE, invalidator);
+                    registry.appendListeners(EventType.POST_COLLECTION_RECREATE, invalidator);
+                    registry.appendListeners(EventType.POST_COLLECTION_REMOVE, invalidator);
+                    INVALIDATORS.put(sessionFactory, invalidator);
+                    sessionFactory.addObserver(new Release());
+                }
+            }
+            synchronized (invalidator.caches) {
+                invalidator.caches.add(cache);
+            }
+        }
+
+        @Override
+        public void onPostUpdate(PostUpdateEvent event) {
+            invalidate(new EntityKey(event.getPersister(), event.getId()));
+        }
+
+        @Override
+        public void onPostDelete(PostDeleteEvent event) {
+            invalidate(new EntityKey(event.getPersister(), event.getId()));
+        }
+
+        @Override
+        public void onPostUpdateCollection(PostCollectionUpdateEvent event) {
+            invalidateOwner(event);
+        }
+
+        @Override
+        public void onPostRecreateCollection(PostCollectionRecreateEvent event) {
+            invalidateOwner(event);
+        }
+
+        @Override
+        public void onPostRemoveCollection(PostCollectionRemoveEvent event) {
+            invalidateOwner(event);
+        }
+
+        private void invalidateOwner(AbstractCollectionEvent event) {
+            var ownerId = event.getAffectedOwnerIdOrNull();
+            if (ownerId != null) {
+                var ownerType = sessionFactory.getMappingMetamodel().getEntityDescriptor(event.getAffectedOwnerEntityName());
+                var owner = new EntityKey(ownerType, ownerId);
+                invalidate(owner);
+                // Again after the commit, as there is no post commit event of collections.
+                event.getSession().getActionQueue().registerProcess((success, session) -> invalidate(owner));
+            }
+        }
+
+        private void invalidate(EntityKey entity) {
+            List<HydratedGraphCache> targets;
+            synchronized (caches) {
+                targets = new ArrayList<>(caches);
+            }
+            for (var cache : targets) {
+                cache.invalidate(entity);
+            }
+        }
+
+        @Override
+        public boolean requiresPostCommitHandling(EntityPersister persister) {
+            // Registered for the post commit events too.
+            return true;
+        }
+    }
+
+    /**
+     * Releases the invalidator when its session factory closes.
+     */
+    private static final class Release implements SessionFactoryObserver {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public void sessionFactoryClosed(SessionFactory sessionFactory) {
+            synchronized (Invalidator.INVALIDATORS) {
+                Invalidator.INVALIDATORS.remove(sessionFactory);
+            }
+        }
+    }
+}
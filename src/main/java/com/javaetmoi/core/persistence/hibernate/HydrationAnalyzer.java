@@ -0,0 +1,375 @@
+package com.javaetmoi.core.persistence.hibernate;
+
+import static com.javaetmoi.core.persistence.hibernate.Hydrator.hydrator;
+import static jakarta.persistence.Persistence.createEntityManagerFactory;
+import static java.util.stream.Collectors.toList;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
+
+import org.hibernate.engine.FetchStyle;
+import org.hibernate.engine.FetchTiming;
+import org.hibernate.metamodel.mapping.EmbeddableValuedModelPart;
+import org.hibernate.metamodel.mapping.EntityMappingType;
+import org.hibernate.metamodel.mapping.EntityValuedModelPart;
+import org.hibernate.metamodel.mapping.ModelPart;
+import org.hibernate.metamodel.mapping.PluralAttributeMapping;
+import org.hibernate.metamodel.model.domain.NavigableRole;
+import org.hibernate.sql.results.graph.Fetchable;
+
+/**
+ * Static analysis of the cost of hydrations, based on the mapping metamodel only.
+ * <p>
+ * For every entity type this analyzer reports the graph reachable by a hydration,
+ * the cyclic paths, the collection roles, the inheritance fan-out and the worst-case number of statements.
+ * It honors the exclusions of the analyzed {@link Hydrator}, so it helps to find exclusion candidates.
+ * </p>
+ */
+public final class HydrationAnalyzer {
+    /**
+     * Hydrator to analyze.
+     */
+    private final HydratorImpl hydrator;
+
+    /**
+     * Cache for the edges per entity type.
+     */
+    private final Map<String, List<Edge>> edges = new HashMap<>();
+
+    /**
+     * Constructor.
+     *
+     * @param hydrator
+     *            Hydrator to analyze.
+     * @throws IllegalArgumentException if the hydrator has not been created by {@link Hydrator#hydrator}.
+     */
+    public HydrationAnalyzer(Hydrator hydrator) {
+        if (!(hydrator instanceof HydratorImpl)) {
+            throw new IllegalArgumentException("Unsupported hydrator " + hydrator.getClass().getName() + ".");
+        }
+        this.hydrator = (HydratorImpl) hydrator;
+    }
+
+    /**
+     * Print the analysis of all entity types of a persistence unit to {@link System#out}.
+     *
+     * @param args
+     *            Name of the persistence unit.
+     */
+    public static void main(String... args) {
+        if (args.length != 1) {
+            throw new IllegalArgumentException("Usage: HydrationAnalyzer <persistence unit name>");
+        }
+
+        var entityManagerFactory = createEntityManagerFactory(args[0]);
+        try {
+            new HydrationAnalyzer(hydrator(entityManagerFactory)).analyze()
+                    .forEach(System.out::println);
+        } finally {
+            entityManagerFactory.close();
+        }
+    }
+
+    /**
+     * Analyze all entity types.
+     *
+     * @return Report per entity type, ordered by entity name.
+     */
+    public List<EntityReport> analyze() {
+        return hydrator.getMappingMetamodel().streamEntityDescriptors()
+                .sorted((a, b) -> a.getEntityName().compareTo(b.getEntityName()))
+                .map(this::analyze)
+                .collect(toList());
+    }
+
+    /**
+     * Analyze an entity type.
+     *
+     * @param entityClass
+     *            Entity class.
+     * @return Report.
+     */
+    public EntityReport analyze(Class<?> entityClass) {
+        return analyze(hydrator.getMappingMetamodel().getEntityDescriptor(entityClass));
+    }
+
+    private EntityReport analyze(EntityMappingType root) {
+        var report = new EntityReport(root.getEntityName());
+        explore(root, new ArrayList<>(), new LinkedHashSet<>(), new HashMap<>(), report);
+        if (report.cyclicPaths.isEmpty()) {
+            var memo = new HashMap<String, long[]>();
+            var statements = statements(root, memo);
+            report.currentStatements = statements[0] < 0 ? OptionalLong.empty() : OptionalLong.of(statements[0]);
+            report.batchedStatements = OptionalLong.of(statements[1]);
+        }
+        return report;
+    }
+
+    /**
+     * Depth first exploration of the entity graph.
+     * Each entity type is expanded once, back edges are reported as cyclic paths.
+     */
+    private void explore(EntityMappingType type, List<NavigableRole> path, Set<String> onPath,
+            Map<String, Boolean> expanded, EntityReport report) {
+        var entityName = type.getEntityName();
+        report.reachableEntityNames.add(entityName);
+        if (type.hasSubclasses()) {
+            report.inheritanceFanOut.put(entityName, type.getSubMappingTypes().size());
+        }
+        if (expanded.put(entityName, true) != null) {
+            return;
+        }
+
+        onPath.add(entityName);
+        for (var edge : edges(type)) {
+            report.reachableRoles.add(edge.role);
+            if (edge.collection) {
+                report.collectionRoles.add(edge.role);
+            }
+            if (edge.target == null) {
+                continue;
+            }
+            path.add(edge.role);
+            if (onPath.contains(edge.target.getEntityName())) {
+                report.cyclicPaths.add(List.copyOf(path));
+            } else {
+                explore(edge.target, path, onPath, expanded, report);
+            }
+            path.remove(path.size() - 1);
+        }
+        onPath.remove(entityName);
+    }
+
+    /**
+     * Worst-case number of statements to hydrate the graph below an instance of an acyclic entity type.
+     *
+     * @return Statements of the current strategy, one statement per proxy or collection,
+     *         and of a batched strategy, one statement per role and level.
+     *         The current strategy is -1 if the number depends on the size of collections.
+     */
+    private long[] statements(EntityMappingType type, Map<String, long[]> memo) {
+        var result = memo.get(type.getEntityName());
+        if (result != null) {
+            return result;
+        }
+
+        long current = 0;
+        long batched = 0;
+        for (var edge : edges(type)) {
+            var below = edge.target != null ? statements(edge.target, memo) : new long[] { 0, 0 };
+            batched += edge.statements + below[1];
+            if (current < 0 || below[0] < 0 ||
+                    (edge.multiple && edge.statements > 0) || (edge.toMany && below[0] > 0)) {
+                current = -1;
+            } else {
+                current += edge.statements + below[0];
+            }
+        }
+        result = new long[] { current, batched };
+        memo.put(type.getEntityName(), result);
+        return result;
+    }
+
+    /**
+     * Edges of an entity type, including the ones of its subclasses.
+     */
+    private List<Edge> edges(EntityMappingType type) {
+        return edges.computeIfAbsent(type.getEntityName(), entityName -> {
+            // The plans of subclasses include the attributes of their super classes.
+            var result = new LinkedHashMap<NavigableRole, Edge>();
+            collectEdges(type, result);
+            if (type.hasSubclasses()) {
+                type.getSubMappingTypes().forEach(subclassType -> collectEdges(subclassType, result));
+            }
+            return new ArrayList<>(result.values());
+        });
+    }
+
+    private void collectEdges(EntityMappingType type, Map<NavigableRole, Edge> result) {
+        hydrator.plan(type.getJavaType().getJavaTypeClass(), type).getAttributes()
+                .forEach(attributeMapping -> collectEdges(attributeMapping, false, result));
+    }
+
+    /**
+     * Collect the edges of a model part, the same way {@link HydratorImpl} navigates them.
+     *
+     * @param multiple
+     *            Whether the part is part of a collection element.
+     */
+    private void collectEdges(ModelPart part, boolean multiple, Map<NavigableRole, Edge> result) {
+        if (part instanceof EntityValuedModelPart) {
+            var target = ((EntityValuedModelPart) part).getEntityMappingType();
+            result.putIfAbsent(part.getNavigableRole(),
+                    new Edge(part.getNavigableRole(), target, false, multiple, multiple, statements(part)));
+        } else if (part instanceof EmbeddableValuedModelPart) {
+            hydrator.plan(((EmbeddableValuedModelPart) part).getEmbeddableTypeDescriptor()).getAttributes()
+                    .forEach(attributeMapping -> collectEdges(attributeMapping, multiple, result));
+        } else if (part instanceof PluralAttributeMapping) {
+            var pluralPart = (PluralAttributeMapping) part;
+            var element = pluralPart.getElementDescriptor();
+            var target = element instanceof EntityValuedModelPart ?
+                    ((EntityValuedModelPart) element).getEntityMappingType() : null;
+            // Entity elements are loaded together with the collection.
+            result.putIfAbsent(part.getNavigableRole(),
+                    new Edge(part.getNavigableRole(), target, true, multiple, true, statements(part)));
+            if (element instanceof EmbeddableValuedModelPart) {
+                collectEdges(element, true, result);
+            }
+            var index = pluralPart.getIndexDescriptor();
+            if (index != null) {
+                collectEdges(index, true, result);
+            }
+        }
+    }
+
+    /**
+     * Number of statements to load an instance of the part: None if joined eagerly to its owner.
+     */
+    private int statements(ModelPart part) {
+        if (part instanceof Fetchable) {
+            var fetchOptions = ((Fetchable) part).getMappedFetchOptions();
+            if (fetchOptions.getTiming() == FetchTiming.IMMEDIATE && fetchOptions.getStyle() == FetchStyle.JOIN) {
+                return 0;
+            }
+        }
+        return 1;
+    }
+
+    /**
+     * Association between entity types, or to an element collection.
+     */
+    private static final class Edge {
+        private final NavigableRole role;
+        /**
+         * Target entity type. {@code null} for element collections without entities.
+         */
+        private final EntityMappingType target;
+        private final boolean collection;
+        /**
+         * Whether there is an instance of the edge per collection element.
+         */
+        private final boolean multiple;
+        /**
+         * Whether there are multiple targets per instance of the edge.
+         */
+        private final boolean toMany;
+        private final int statements;
+
+        private Edge(NavigableRole role, EntityMappingType target,
+                boolean collection, boolean multiple, boolean toMany, int statements) {
+            this.role = role;
+            this.target = target;
+            this.collection = collection;
+            this.multiple = multiple;
+            this.toMany = toMany;
+            this.statements = statements;
+        }
+    }
+
+    /**
+     * Analysis of an entity type.
+     */
+    public static final class EntityReport {
+        private final String entityName;
+        private final Set<String> reachableEntityNames = new LinkedHashSet<>();
+        private final Set<NavigableRole> reachableRoles = new LinkedHashSet<>();
+        private final List<List<NavigableRole>> cyclicPaths = new ArrayList<>();
+        private final Set<NavigableRole> collectionRoles = new LinkedHashSet<>();
+        private final Map<String, Integer> inheritanceFanOut = new LinkedHashMap<>();
+        private OptionalLong currentStatements = OptionalLong.empty();
+        private OptionalLong batchedStatements = OptionalLong.empty();
+
+        private EntityReport(String entityName) {
+            this.entityName = entityName;
+        }
+
+        /**
+         * Name of the analyzed entity type.
+         */
+        public String getEntityName() {
+            return entityName;
+        }
+
+        /**
+         * Names of the entity types reachable by a hydration, including the analyzed entity type.
+         */
+        public Set<String> getReachableEntityNames() {
+            return Collections.unmodifiableSet(reachableEntityNames);
+        }
+
+        /**
+         * Associations and element collections reachable by a hydration.
+         */
+        public Set<NavigableRole> getReachableRoles() {
+            return Collections.unmodifiableSet(reachableRoles);
+        }
+
+        /**
+         * Paths of roles that lead back to an entity type already on the path.
+         */
+        public List<List<NavigableRole>> getCyclicPaths() {
+            return Collections.unmodifiableList(cyclicPaths);
+        }
+
+        /**
+         * Reachable collection roles. Their size is not bounded by the mapping.
+         */
+        public Set<NavigableRole> getUnboundedCollectionRoles() {
+            return Collections.unmodifiableSet(collectionRoles);
+        }
+
+        /**
+         * Number of subclasses per reachable entity type with subclasses.
+         * Each subclass adds a table to join or union for polymorphic loads of JOINED or TABLE_PER_CLASS hierarchies.
+         */
+        public Map<String, Integer> getInheritanceFanOut() {
+            return Collections.unmodifiableMap(inheritanceFanOut);
+        }
+
+        /**
+         * Worst-case number of statements of the current strategy: One statement per proxy or collection.
+         * Empty if the number depends on the data, because of cycles or collections.
+         */
+        public OptionalLong getWorstCaseStatements() {
+            return currentStatements;
+        }
+
+        /**
+         * Worst-case number of statements of a batched strategy: One statement per role and level.
+         * Empty if the number depends on the data, because of cycles.
+         */
+        public OptionalLong getWorstCaseBatchedStatements() {
+            return batchedStatements;
+        }
+
+        @Override
+        public String toString() {
+            var result = new StringBuilder(entityName).append('\n');
+            result.append("  Reachable entities: ").append(reachableEntityNames).append('\n');
+            result.append("  Reachable roles: ").append(fullPaths(reachableRoles)).append('\n');
+            cyclicPaths.forEach(path ->
+                    result.append("  Cyclic path: ").append(fullPaths(path)).append('\n'));
+            result.append("  Unbounded collection roles: ").append(fullPaths(collectionRoles)).append('\n');
+            result.append("  Inheritance fan-out: ").append(inheritanceFanOut).append('\n');
+            result.append("  Worst-case statements: ").append(format(currentStatements))
+                    .append(" (batched: ").append(format(batchedStatements)).append(")\n");
+            return result.toString();
+        }
+
+        private static List<String> fullPaths(Collection<NavigableRole> roles) {
+            return roles.stream().map(NavigableRole::getFullPath).collect(toList());
+        }
+
+        private static String format(OptionalLong statements) {
+            return statements.isPresent() ? Long.toString(statements.getAsLong()) : "unbounded";
+        }
+    }
+}
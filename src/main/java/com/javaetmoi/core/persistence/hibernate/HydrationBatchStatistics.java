@@ -0,0 +1,88 @@
+package com.javaetmoi.core.persistence.hibernate;
+
+/**
+ * Running statistics of the batch loads of a role, see {@link Hydrator#getBatchStatistics()}.
+ */
+public final class HydrationBatchStatistics {
+    private final long levelCount;
+    private final long candidateCount;
+    private final long batchCount;
+    private final long loadedCount;
+    private final long elementCount;
+    private final int batchSize;
+
+    /**
+     * Constructor.
+     */
+    HydrationBatchStatistics(long levelCount, long candidateCount, long batchCount, long loadedCount,
+            long elementCount, int batchSize) {
+        this.levelCount = levelCount;
+        this.candidateCount = candidateCount;
+        this.batchCount = batchCount;
+        this.loadedCount = loadedCount;
+        this.elementCount = elementCount;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Number of levels of the graphs, that is, collections of sibling entities, at which the role has been reached.
+     */
+    public long getLevelCount() {
+        return levelCount;
+    }
+
+    /**
+     * Number of distinct uninitialized collections or proxies of the role found at all levels.
+     */
+    public long getCandidateCount() {
+        return candidateCount;
+    }
+
+    /**
+     * Number of batch statements.
+     */
+    public long getBatchCount() {
+        return batchCount;
+    }
+
+    /**
+     * Number of collections or entities loaded in batches.
+     */
+    public long getLoadedCount() {
+        return loadedCount;
+    }
+
+    /**
+     * Number of elements of the collections loaded in batches, or of entities for to-one roles.
+     */
+    public long getElementCount() {
+        return elementCount;
+    }
+
+    /**
+     * Average number of candidates per level.
+     */
+    public double getAverageCandidates() {
+        return levelCount > 0 ? (double) candidateCount / levelCount : 0;
+    }
+
+    /**
+     * Average number of elements per loaded collection, 1 for to-one roles.
+     */
+    public double getAverageFanOut() {
+        return loadedCount > 0 ? (double) elementCount / loadedCount : 0;
+    }
+
+    /**
+     * Batch size currently chosen for the role.
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("[levels=%d, candidates=%d, batches=%d, loaded=%d, elements=%d, batchSize=%d]",
+                levelCount, candidateCount, batchCount, loadedCount, elementCount, batchSize);
+    }
+}
@@ -0,0 +1,33 @@
+package com.javaetmoi.core.persistence.hibernate;
+
+import org.hibernate.HibernateException;
+
+/**
+ * A hydration exceeded its budget, see {@link Hydrator#withBudget(long, long, java.time.Duration)}.
+ */
+public class HydrationBudgetExceededException extends HibernateException {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Usage of the hydration.
+     */
+    private final transient HydrationBudgetReport report;
+
+    /**
+     * Constructor.
+     *
+     * @param report
+     *            Usage of the hydration.
+     */
+    public HydrationBudgetExceededException(HydrationBudgetReport report) {
+        super(String.format("Hydration budget exceeded: %s", report));
+        this.report = report;
+    }
+
+    /**
+     * Usage of the hydration, including the roles that used up the budget.
+     */
+    public HydrationBudgetReport getReport() {
+        return report;
+    }
+}
@@ -0,0 +1,155 @@
+package com.javaetmoi.core.persistence.hibernate;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.hibernate.metamodel.model.domain.NavigableRole;
+
+/**
+ * Usage of a hydration that exceeded its budget, see {@link Hydrator#withBudget(long, long, Duration)}.
+ */
+public final class HydrationBudgetReport {
+    /**
+     * Limit of a budget.
+     */
+    public enum Limit {
+        /**
+         * Maximum number of entities.
+         */
+        ENTITIES,
+
+        /**
+         * Maximum number of SQL statements.
+         */
+        STATEMENTS,
+
+        /**
+         * Deadline.
+         */
+        DEADLINE,
+
+        /**
+         * Maximum estimated size of the hydrated graph.
+         */
+        MEMORY
+    }
+
+    /**
+     * The exceeded limit.
+     */
+    private final Limit limit;
+
+    /**
+     * Time since the start of the hydration.
+     */
+    private final Duration elapsed;
+
+    /**
+     * Usage per role.
+     */
+    private final Map<NavigableRole, RoleUsage> roles;
+
+    /**
+     * Constructor.
+     */
+    HydrationBudgetReport(Limit limit, Duration elapsed, Map<NavigableRole, RoleUsage> roles) {
+        this.limit = limit;
+        this.elapsed = elapsed;
+        this.roles = Collections.unmodifiableMap(new LinkedHashMap<>(roles));
+    }
+
+    /**
+     * The exceeded limit.
+     */
+    public Limit getLimit() {
+        return limit;
+    }
+
+    /**
+     * Time since the start of the hydration when the limit has been exceeded.
+     */
+    public Duration getElapsed() {
+        return elapsed;
+    }
+
+    /**
+     * Usage per role of the entities and collections, in the order of first use.
+     */
+    public Map<NavigableRole, RoleUsage> getRoles() {
+        return roles;
+    }
+
+    /**
+     * Number of hydrated entities.
+     */
+    public long getEntityCount() {
+        return roles.values().stream().mapToLong(RoleUsage::getEntityCount).sum();
+    }
+
+    /**
+     * Number of SQL statements executed by the hydration.
+     */
+    public long getStatementCount() {
+        return roles.values().stream().mapToLong(RoleUsage::getStatementCount).sum();
+    }
+
+    /**
+     * Estimated size in bytes of the hydrated entities and collections, see {@link Hydrator#withMemoryBudget(long)}.
+     */
+    public long getEstimatedBytes() {
+        return roles.values().stream().mapToLong(RoleUsage::getEstimatedBytes).sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "HydrationBudgetReport[limit=%s, elapsed=%s, entities=%d, statements=%d, bytes=%d, roles=%s]",
+                limit, elapsed, getEntityCount(), getStatementCount(), getEstimatedBytes(), roles);
+    }
+
+    /**
+     * Usage of a single role.
+     */
+    public static final class RoleUsage {
+        private final long entityCount;
+        private final long statementCount;
+        private final long estimatedBytes;
+
+        /**
+         * Constructor.
+         */
+        RoleUsage(long entityCount, long statementCount, long estimatedBytes) {
+            this.entityCount = entityCount;
+            this.statementCount = statementCount;
+            this.estimatedBytes = estimatedBytes;
+        }
+
+        /**
+         * Number of hydrated entities.
+         */
+        public long getEntityCount() {
+            return entityCount;
+        }
+
+        /**
+         * Number of SQL statements executed by the hydration.
+         */
+        public long getStatementCount() {
+            return statementCount;
+        }
+
+        /**
+         * Estimated size in bytes of the hydrated entities or collections.
+         */
+        public long getEstimatedBytes() {
+            return estimatedBytes;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("[entities=%d, statements=%d, bytes=%d]", entityCount, statementCount, estimatedBytes);
+        }
+    }
+}
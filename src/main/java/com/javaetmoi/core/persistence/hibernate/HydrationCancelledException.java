@@ -0,0 +1,35 @@
+package com.javaetmoi.core.persistence.hibernate;
+
+import org.hibernate.HibernateException;
+
+/**
+ * A hydration has been cancelled, see {@link Hydrator#withCancellation(java.util.function.BooleanSupplier)},
+ * or its thread has been interrupted.
+ * The object graph is partially hydrated.
+ */
+public class HydrationCancelledException extends HibernateException {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Progress when the hydration has been cancelled.
+     */
+    private final transient HydrationProgress progress;
+
+    /**
+     * Constructor.
+     *
+     * @param progress
+     *            Progress when the hydration has been cancelled.
+     */
+    public HydrationCancelledException(HydrationProgress progress) {
+        super(String.format("Hydration cancelled: %s", progress));
+        this.progress = progress;
+    }
+
+    /**
+     * Progress when the hydration has been cancelled.
+     */
+    public HydrationProgress getProgress() {
+        return progress;
+    }
+}
@@ -0,0 +1,166 @@
+package com.javaetmoi.core.persistence.hibernate;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.hibernate.HibernateException;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.metamodel.mapping.EntityMappingType;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Single-flight hydrations: Concurrent hydrations of the same root entity by the same hydrator are coalesced.
+ * <p>
+ * The first caller hydrates the entity by a short read-only session of its own.
+ * Callers arriving while it does wait for its result, up to a maximum duration, and then all return the same
+ * detached graph. A stampede on a popular entity costs a single hydration.
+ * The graphs are shared by the callers and threads of a flight: They must not be modified.
+ * </p>
+ * <p>
+ * A caller that has waited for the maximum duration hydrates the entity on its own.
+ * If the hydration of the first caller fails, the waiting callers fail with the same exception.
+ * Nothing is kept once a flight has landed: see {@link HydratedGraphCache} to reuse graphs across requests.
+ * </p>
+ */
+public final class HydrationCoalescer {
+    private final SessionFactoryImplementor sessionFactory;
+
+    /**
+     * Maximum duration to wait for the hydration of another caller.
+     */
+    private final Duration maxWait;
+
+    /**
+     * Hydrations in progress per key.
+     */
+    private final ConcurrentMap<Key, CompletableFuture<Object>> flights = new ConcurrentHashMap<>();
+
+    /**
+     * Number of callers that got the result of another caller.
+     */
+    private final LongAdder coalescedCount = new LongAdder();
+
+    /**
+     * Number of callers that stopped waiting for another caller.
+     */
+    private final LongAdder timeoutCount = new LongAdder();
+
+    /**
+     * Constructor.
+     *
+     * @param entityManagerFactory
+     *            Open {@link EntityManagerFactory} or {@link org.hibernate.SessionFactory}.
+     * @param maxWait
+     *            Maximum duration to wait for the hydration of another caller.
+     * @throws IllegalArgumentException if the duration is negative.
+     */
+    public HydrationCoalescer(EntityManagerFactory entityManagerFactory, Duration maxWait) {
+        if (maxWait.isNegative()) {
+            throw new IllegalArgumentException(String.format("Invalid maximum wait %s.", maxWait));
+        }
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        this.maxWait = maxWait;
+    }
+
+    /**
+     * Hydrate an entity, or wait for a concurrent hydration of the same entity by the same hydrator.
+     *
+     * @param hydrator
+     *            Hydrator of the graph. Part of the key: Reuse the same instance for the same graphs.
+     * @param entityClass
+     *            Class of the root entity.
+     * @param id
+     *            Id of the root entity.
+     * @return The detached hydrated graph, {@code null} if the entity does not exist.
+     * @throws HibernateException if interrupted while waiting.
+     */
+    public <E> E hydrate(Hydrator hydrator, Class<E> entityClass, Object id) {
+        Objects.requireNonNull(hydrator, "hydrator");
+        Objects.requireNonNull(id, "id");
+        var key = new Key(hydrator, sessionFactory.getMappingMetamodel().getEntityDescriptor(entityClass), id);
+        var flight = new CompletableFuture<Object>();
+        var leader = flights.putIfAbsent(key, flight);
+        if (leader == null) {
+            try {
+                var entity = DetachedHydration.hydrate(sessionFactory, entityClass, id, hydrator::deepHydrate);
+                flight.complete(entity);
+                return entity;
+            } catch (RuntimeException | Error e) {
+                flight.completeExceptionally(e);
+                throw e;
+            } finally {
+                flights.remove(key, flight);
+            }
+        }
+
+        try {
+            var entity = entityClass.cast(leader.get(maxWait.toNanos(), TimeUnit.NANOSECONDS));
+            coalescedCount.increment();
+            return entity;
+        } catch (TimeoutException e) {
+            timeoutCount.increment();
+            return DetachedHydration.hydrate(sessionFactory, entityClass, id, hydrator::deepHydrate);
+        } catch (ExecutionException e) {
+            var cause = e.getCause();
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw (RuntimeException) cause;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HibernateException(String.format(
+                    "Interrupted while waiting for the hydration of %s#%s.", entityClass.getName(), id), e);
+        }
+    }
+
+    /**
+     * Number of callers that got the graph hydrated by another caller.
+     */
+    public long getCoalescedCount() {
+        return coalescedCount.sum();
+    }
+
+    /**
+     * Number of callers that stopped waiting for another caller, and hydrated on their own.
+     */
+    public long getTimeoutCount() {
+        return timeoutCount.sum();
+    }
+
+    /**
+     * Key of a flight: Hydrator, root entity type and id.
+     */
+    private static final class Key {
+        private final Hydrator hydrator;
+        private final String entityName;
+        private final Object id;
+
+        Key(Hydrator hydrator, EntityMappingType entityType, Object id) {
+            this.hydrator = hydrator;
+            this.entityName = entityType.getEntityName();
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            var other = (Key) obj;
+            return hydrator == other.hydrator && entityName.equals(other.entityName) && id.equals(other.id);
+        }
+
+        @Override
+        public int hashCode() {
+            return (31 * System.identityHashCode(hydrator) + entityName.hashCode()) * 31 + id.hashCode();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.javaetmoi.core.persistence.hibernate;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.hibernate.metamodel.model.domain.NavigableRole;
+
+/**
+ * Estimated cost of a hydration, see {@link Hydrator#estimate(Object)}.
+ */
+public final class HydrationEstimate {
+    /**
+     * Estimates per role.
+     */
+    private final Map<NavigableRole, RoleEstimate> roles;
+
+    /**
+     * Constructor.
+     */
+    HydrationEstimate(Map<NavigableRole, RoleEstimate> roles) {
+        this.roles = Collections.unmodifiableMap(new LinkedHashMap<>(roles));
+    }
+
+    /**
+     * Estimates per role of the uninitialized proxies and collections.
+     */
+    public Map<NavigableRole, RoleEstimate> getRoles() {
+        return roles;
+    }
+
+    /**
+     * Expected number of entities to load.
+     */
+    public long getEntityCount() {
+        return roles.values().stream().mapToLong(RoleEstimate::getEntityCount).sum();
+    }
+
+    /**
+     * Expected number of rows to read.
+     */
+    public long getRowCount() {
+        return roles.values().stream().mapToLong(RoleEstimate::getRowCount).sum();
+    }
+
+    /**
+     * Expected number of SQL statements to execute.
+     */
+    public long getStatementCount() {
+        return roles.values().stream().mapToLong(RoleEstimate::getStatementCount).sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("HydrationEstimate[entities=%d, rows=%d, statements=%d, roles=%s]",
+                getEntityCount(), getRowCount(), getStatementCount(), roles);
+    }
+
+    /**
+     * Estimated cost of a single role.
+     */
+    public static final class RoleEstimate {
+        private final long entityCount;
+        private final long rowCount;
+        private final long statementCount;
+
+        /**
+         * Constructor.
+         */
+        RoleEstimate(long entityCount, long rowCount, long statementCount) {
+            this.entityCount = entityCount;
+            this.rowCount = rowCount;
+            this.statementCount = statementCount;
+        }
+
+        /**
+         * Expected number of entities to load.
+         */
+        public long getEntityCount() {
+            return entityCount;
+        }
+
+        /**
+         * Expected number of rows to read.
+         */
+        public long getRowCount() {
+            return rowCount;
+        }
+
+        /**
+         * Expected number of SQL statements to execute.
+         */
+        public long getStatementCount() {
+            return statementCount;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("[entities=%d, rows=%d, statements=%d]", entityCount, rowCount, statementCount);
+        }
+    }
+}
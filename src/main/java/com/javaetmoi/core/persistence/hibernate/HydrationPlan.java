@@ -0,0 +1,292 @@
+package com.javaetmoi.core.persistence.hibernate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import org.hibernate.metamodel.mapping.AttributeMapping;
+import org.hibernate.metamodel.mapping.EmbeddableValuedModelPart;
+import org.hibernate.metamodel.mapping.EntityValuedModelPart;
+import org.hibernate.metamodel.mapping.ManagedMappingType;
+import org.hibernate.metamodel.mapping.PluralAttributeMapping;
+import org.hibernate.metamodel.model.domain.NavigableRole;
+
+/**
+ * Compiled navigation of an entity or embeddable type:
+ * The attributes a hydration has to navigate, that is, without basic and excluded attributes.
+ * Immutable.
+ */
+final class HydrationPlan {
+    /**
+     * Build-time generated hydrators per entity class, if any.
+     */
+    private static final ClassValue<Optional<GeneratedHydrator<?>>> GENERATED_HYDRATORS = new ClassValue<>() {
+        @Override
+        protected Optional<GeneratedHydrator<?>> computeValue(Class<?> entityClass) {
+            try {
+                var hydratorClass = Class.forName(
+                        entityClass.getName() + GeneratedHydrator.SUFFIX, true, entityClass.getClassLoader());
+                if (!GeneratedHydrator.class.isAssignableFrom(hydratorClass)) {
+                    return Optional.empty();
+                }
+                return Optional.of((GeneratedHydrator<?>) hydratorClass.getConstructor().newInstance());
+            } catch (ReflectiveOperationException | LinkageError e) {
+                return Optional.empty();
+            }
+        }
+    };
+
+    /**
+     * Entity or embeddable type.
+     */
+    private final ManagedMappingType type;
+
+    /**
+     * Attributes to navigate.
+     */
+    private final List<AttributeMapping> attributes;
+
+    /**
+     * Generated hydrator of the entity class, {@code null} if none.
+     */
+    private final GeneratedHydrator<Object> generated;
+
+    /**
+     * Attributes per index of the generated hydrator, {@code null} for excluded attributes.
+     */
+    private final AttributeMapping[] generatedParts;
+
+    /**
+     * Attributes to navigate, that are not handled by the generated hydrator.
+     */
+    private final List<AttributeMapping> remaining;
+
+    /**
+     * The remaining attributes as array, for the hot path.
+     */
+    private final AttributeMapping[] remainingParts;
+
+    /**
+     * Accessors of the remaining attributes, by the same index.
+     */
+    private final AttributeAccessor[] accessors;
+
+    /**
+     * Accessors of the to-one attributes targeting a polymorphic entity, see {@link PolymorphicLoader}.
+     */
+    private final AttributeAccessor[] polymorphicToOnes;
+
+    /**
+     * All attributes but the excluded ones, including basic attributes, for walks.
+     */
+    private final AttributeMapping[] walkedParts;
+
+    /**
+     * Accessors of the walked attributes, by the same index.
+     * Created on the first walk, because most plans are never walked.
+     */
+    private volatile AttributeAccessor[] walkedAccessors;
+
+    /**
+     * Compile the plan of an embeddable type.
+     *
+     * @param type
+     *            Embeddable type.
+     * @param excludes
+     *            Excludes from hydration.
+     */
+    HydrationPlan(ManagedMappingType type, Set<NavigableRole> excludes) {
+        this(type, null, excludes);
+    }
+
+    /**
+     * Compile the plan of a type.
+     *
+     * @param type
+     *            Entity or embeddable type.
+     * @param javaType
+     *            Concrete class of the entity to look up a generated hydrator for, may be {@code null}.
+     * @param excludes
+     *            Excludes from hydration.
+     */
+    @SuppressWarnings("unchecked")
+    HydrationPlan(ManagedMappingType type, Class<?> javaType, Set<NavigableRole> excludes) {
+        var result = new ArrayList<AttributeMapping>(type.getNumberOfAttributeMappings());
+        var walked = new ArrayList<AttributeMapping>(type.getNumberOfAttributeMappings());
+        var navigable = new HashMap<String, AttributeMapping>();
+        for (int i = 0; i < type.getNumberOfAttributeMappings(); i++) {
+            var attributeMapping = type.getAttributeMapping(i);
+            if (!excludes.contains(attributeMapping.getNavigableRole())) {
+                walked.add(attributeMapping);
+            }
+            if (isNavigable(attributeMapping)) {
+                navigable.put(attributeMapping.getAttributeName(), attributeMapping);
+                if (!excludes.contains(attributeMapping.getNavigableRole())) {
+                    result.add(attributeMapping);
+                }
+            }
+        }
+        this.type = type;
+        this.attributes = Collections.unmodifiableList(result);
+        this.polymorphicToOnes = polymorphicToOnes(result);
+        this.walkedParts = walked.toArray(new AttributeMapping[0]);
+
+        var generatedHydrator = javaType != null ? GENERATED_HYDRATORS.get(javaType).orElse(null) : null;
+        var parts = generatedHydrator != null ? bind(generatedHydrator, navigable, excludes) : null;
+        if (parts == null) {
+            this.generated = null;
+            this.generatedParts = null;
+            this.remaining = attributes;
+            this.remainingParts = remaining.toArray(new AttributeMapping[0]);
+            this.accessors = accessors(remaining);
+            return;
+        }
+
+        // Attributes not known to the generated hydrator, e.g. inaccessible ones, are navigated through the metamodel.
+        var generatedNames = new HashSet<>(Arrays.asList(generatedHydrator.getAttributeNames()));
+        var uncovered = new ArrayList<AttributeMapping>();
+        for (var attributeMapping : result) {
+            if (!generatedNames.contains(attributeMapping.getAttributeName())) {
+                uncovered.add(attributeMapping);
+            }
+        }
+        this.generated = (GeneratedHydrator<Object>) generatedHydrator;
+        this.generatedParts = parts;
+        this.remaining = Collections.unmodifiableList(uncovered);
+        this.remainingParts = remaining.toArray(new AttributeMapping[0]);
+        this.accessors = accessors(remaining);
+    }
+
+    private static AttributeAccessor[] polymorphicToOnes(List<AttributeMapping> attributes) {
+        var result = new ArrayList<AttributeAccessor>();
+        for (var attributeMapping : attributes) {
+            if (attributeMapping instanceof EntityValuedModelPart &&
+                    PolymorphicLoader.isPolymorphic(((EntityValuedModelPart) attributeMapping).getEntityMappingType())) {
+                result.add(AttributeAccessor.of(attributeMapping));
+            }
+        }
+        return result.toArray(new AttributeAccessor[0]);
+    }
+
+    private static AttributeAccessor[] accessors(List<AttributeMapping> attributes) {
+        var result = new AttributeAccessor[attributes.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = AttributeAccessor.of(attributes.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Bind the attributes of a generated hydrator to the navigable attributes of the type.
+     *
+     * @return Attributes per index, {@code null} for excluded ones.
+     *         {@code null} if the generated hydrator does not match the type.
+     */
+    private static AttributeMapping[] bind(GeneratedHydrator<?> generatedHydrator,
+            HashMap<String, AttributeMapping> navigable, Set<NavigableRole> excludes) {
+        var attributeNames = generatedHydrator.getAttributeNames();
+        var parts = new AttributeMapping[attributeNames.length];
+        for (int i = 0; i < attributeNames.length; i++) {
+            var attributeMapping = navigable.get(attributeNames[i]);
+            if (attributeMapping == null) {
+                // Stale or mismatching generated hydrator: Fall back to the metamodel.
+                return null;
+            }
+            parts[i] = excludes.contains(attributeMapping.getNavigableRole()) ? null : attributeMapping;
+        }
+        return parts;
+    }
+
+    /**
+     * Does the hydration need to navigate into the attribute?.
+     */
+    private static boolean isNavigable(AttributeMapping attributeMapping) {
+        return attributeMapping instanceof EntityValuedModelPart ||
+                attributeMapping instanceof EmbeddableValuedModelPart ||
+                attributeMapping instanceof PluralAttributeMapping;
+    }
+
+    /**
+     * Entity or embeddable type.
+     */
+    ManagedMappingType getType() {
+        return type;
+    }
+
+    /**
+     * Attributes to navigate.
+     */
+    List<AttributeMapping> getAttributes() {
+        return attributes;
+    }
+
+    /**
+     * Generated hydrator of the entity class, {@code null} if none.
+     */
+    GeneratedHydrator<Object> getGenerated() {
+        return generated;
+    }
+
+    /**
+     * Attributes per index of the generated hydrator, {@code null} for excluded attributes.
+     */
+    AttributeMapping[] getGeneratedParts() {
+        return generatedParts;
+    }
+
+    /**
+     * Attributes to navigate through the metamodel,
+     * that is, those not handled by the generated hydrator.
+     */
+    List<AttributeMapping> getRemaining() {
+        return remaining;
+    }
+
+    /**
+     * The remaining attributes as array.
+     * Not to be modified.
+     */
+    AttributeMapping[] getRemainingParts() {
+        return remainingParts;
+    }
+
+    /**
+     * Accessors of the remaining attributes, by the same index.
+     */
+    AttributeAccessor[] getAccessors() {
+        return accessors;
+    }
+
+    /**
+     * Accessors of the to-one attributes targeting a polymorphic entity.
+     */
+    AttributeAccessor[] getPolymorphicToOnes() {
+        return polymorphicToOnes;
+    }
+
+    /**
+     * All attributes but the excluded ones, including basic attributes.
+     * Not to be modified.
+     */
+    AttributeMapping[] getWalkedParts() {
+        return walkedParts;
+    }
+
+    /**
+     * Accessors of the walked attributes, by the same index.
+     */
+    AttributeAccessor[] getWalkedAccessors() {
+        var result = walkedAccessors;
+        if (result == null) {
+            // Racy but idempotent.
+            result = accessors(Arrays.asList(walkedParts));
+            walkedAccessors = result;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,77 @@
+package com.javaetmoi.core.persistence.hibernate;
+
+import java.time.Duration;
+
+/**
+ * Progress of a hydration, see {@link HydrationProgressListener}.
+ */
+public final class HydrationProgress {
+    private final long visitedCount;
+    private final long loadCount;
+    private final int depth;
+    private final long estimatedBytes;
+    private final Duration elapsed;
+    private final boolean completed;
+
+    /**
+     * Constructor.
+     */
+    HydrationProgress(long visitedCount, long loadCount, int depth, long estimatedBytes, Duration elapsed,
+            boolean completed) {
+        this.visitedCount = visitedCount;
+        this.loadCount = loadCount;
+        this.depth = depth;
+        this.estimatedBytes = estimatedBytes;
+        this.elapsed = elapsed;
+        this.completed = completed;
+    }
+
+    /**
+     * Number of visited entities, embeddables and collections.
+     */
+    public long getVisitedCount() {
+        return visitedCount;
+    }
+
+    /**
+     * Number of loads issued, that is, initializations of proxies and collections and queries of the hydrator.
+     */
+    public long getLoadCount() {
+        return loadCount;
+    }
+
+    /**
+     * Number of entities and collections currently being expanded.
+     * The graph is traversed depth-first, so this is the backlog of the traversal.
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Estimated size in bytes of the hydrated entities and collections, see {@link Hydrator#withMemoryBudget(long)}.
+     */
+    public long getEstimatedBytes() {
+        return estimatedBytes;
+    }
+
+    /**
+     * Time since the start of the hydration.
+     */
+    public Duration getElapsed() {
+        return elapsed;
+    }
+
+    /**
+     * Whether the hydration has completed.
+     */
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("HydrationProgress[visited=%d, loads=%d, depth=%d, bytes=%d, elapsed=%s, completed=%s]",
+                visitedCount, loadCount, depth, estimatedBytes, elapsed, completed);
+    }
+}
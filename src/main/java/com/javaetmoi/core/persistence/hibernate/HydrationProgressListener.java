@@ -0,0 +1,18 @@
+package com.javaetmoi.core.persistence.hibernate;
+
+import java.time.Duration;
+
+/**
+ * Receives the progress of long hydrations, see {@link Hydrator#withProgressListener(HydrationProgressListener, Duration)}.
+ */
+@FunctionalInterface
+public interface HydrationProgressListener {
+    /**
+     * Progress of a running hydration, or of a completed one if {@link HydrationProgress#isCompleted()}.
+     * Called by the hydrating thread.
+     *
+     * @param progress
+     *            Progress.
+     */
+    void progress(HydrationProgress progress);
+}
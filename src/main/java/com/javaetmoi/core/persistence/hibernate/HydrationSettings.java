@@ -0,0 +1,240 @@
+package com.javaetmoi.core.persistence.hibernate;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BooleanSupplier;
+
+import org.hibernate.metamodel.model.domain.NavigableRole;
+
+/**
+ * Settings of a hydrator besides its excludes. Immutable.
+ */
+final class HydrationSettings {
+    /**
+     * No settings.
+     */
+    static final HydrationSettings DEFAULT = new HydrationSettings(
+            Map.of(), Map.of(), null, null, null, null, null, null, null);
+
+    /**
+     * Paging of large collections per role.
+     */
+    private final Map<NavigableRole, Paging> pagings;
+
+    /**
+     * Filters of collections per role.
+     */
+    private final Map<NavigableRole, CollectionFilter> filters;
+
+    /**
+     * Budget of each hydration, {@code null} if none.
+     */
+    private final Budget budget;
+
+    /**
+     * Whether to cancel a hydration, {@code null} if not cancellable.
+     */
+    private final BooleanSupplier cancellation;
+
+    /**
+     * Receives the progress of hydrations, {@code null} if none.
+     */
+    private final HydrationProgressListener progressListener;
+
+    /**
+     * Minimum interval between progress reports.
+     */
+    private final Duration progressInterval;
+
+    /**
+     * Pool of the parallel scans, {@code null} to hydrate sequentially.
+     */
+    private final ForkJoinPool scanPool;
+
+    /**
+     * Batch sizes and statistics of the batch loads, {@code null} to leave the loads to Hibernate.
+     */
+    private final Batching batching;
+
+    /**
+     * Cache of the reference data, {@code null} if none.
+     */
+    private final ReferenceData referenceData;
+
+    private HydrationSettings(Map<NavigableRole, Paging> pagings, Map<NavigableRole, CollectionFilter> filters,
+            Budget budget, BooleanSupplier cancellation,
+            HydrationProgressListener progressListener, Duration progressInterval, ForkJoinPool scanPool,
+            Batching batching, ReferenceData referenceData) {
+        this.pagings = Map.copyOf(pagings);
+        this.filters = Map.copyOf(filters);
+        this.budget = budget;
+        this.cancellation = cancellation;
+        this.progressListener = progressListener;
+        this.progressInterval = progressInterval;
+        this.scanPool = scanPool;
+        this.batching = batching;
+        this.referenceData = referenceData;
+    }
+
+    /**
+     * Copy with the paging of a role.
+     */
+    HydrationSettings withPaging(NavigableRole role, Paging paging) {
+        var newPagings = new HashMap<>(pagings);
+        newPagings.put(role, paging);
+        return new HydrationSettings(
+                newPagings, filters, budget, cancellation, progressListener, progressInterval, scanPool, batching,
+                referenceData);
+    }
+
+    /**
+     * Copy with the filter of a role.
+     */
+    HydrationSettings withFilter(NavigableRole role, CollectionFilter filter) {
+        var newFilters = new HashMap<>(filters);
+        newFilters.put(role, filter);
+        return new HydrationSettings(
+                pagings, newFilters, budget, cancellation, progressListener, progressInterval, scanPool, batching,
+                referenceData);
+    }
+
+    /**
+     * Copy with the budget.
+     */
+    HydrationSettings withBudget(Budget budget) {
+        return new HydrationSettings(
+                pagings, filters, budget, cancellation, progressListener, progressInterval, scanPool, batching,
+                referenceData);
+    }
+
+    /**
+     * Copy with the cancellation.
+     */
+    HydrationSettings withCancellation(BooleanSupplier cancellation) {
+        return new HydrationSettings(
+                pagings, filters, budget, cancellation, progressListener, progressInterval, scanPool, batching,
+                referenceData);
+    }
+
+    /**
+     * Copy with the progress listener.
+     */
+    HydrationSettings withProgressListener(HydrationProgressListener progressListener, Duration progressInterval) {
+        return new HydrationSettings(
+                pagings, filters, budget, cancellation, progressListener, progressInterval, scanPool, batching,
+                referenceData);
+    }
+
+    /**
+     * Copy with the pool of the parallel scans.
+     */
+    HydrationSettings withScanPool(ForkJoinPool scanPool) {
+        return new HydrationSettings(
+                pagings, filters, budget, cancellation, progressListener, progressInterval, scanPool, batching,
+                referenceData);
+    }
+
+    /**
+     * Copy with the batching.
+     */
+    HydrationSettings withBatching(Batching batching) {
+        return new HydrationSettings(
+                pagings, filters, budget, cancellation, progressListener, progressInterval, scanPool, batching,
+                referenceData);
+    }
+
+    /**
+     * Copy with the reference data.
+     */
+    HydrationSettings withReferenceData(ReferenceData referenceData) {
+        return new HydrationSettings(
+                pagings, filters, budget, cancellation, progressListener, progressInterval, scanPool, batching,
+                referenceData);
+    }
+
+    /**
+     * Paging of a role, {@code null} if none.
+     */
+    Paging getPaging(NavigableRole role) {
+        return pagings.isEmpty() ? null : pagings.get(role);
+    }
+
+    /**
+     * Are there pagings?.
+     */
+    boolean hasPagings() {
+        return !pagings.isEmpty();
+    }
+
+    /**
+     * Filter of a role, {@code null} if none.
+     */
+    CollectionFilter getFilter(NavigableRole role) {
+        return filters.isEmpty() ? null : filters.get(role);
+    }
+
+    /**
+     * Are there filters?.
+     */
+    boolean hasFilters() {
+        return !filters.isEmpty();
+    }
+
+    /**
+     * Budget of each hydration, {@code null} if none.
+     */
+    Budget getBudget() {
+        return budget;
+    }
+
+    /**
+     * Whether to cancel a hydration, {@code null} if not cancellable.
+     */
+    BooleanSupplier getCancellation() {
+        return cancellation;
+    }
+
+    /**
+     * Receives the progress of hydrations, {@code null} if none.
+     */
+    HydrationProgressListener getProgressListener() {
+        return progressListener;
+    }
+
+    /**
+     * Minimum interval between progress reports.
+     */
+    Duration getProgressInterval() {
+        return progressInterval;
+    }
+
+    /**
+     * Pool of the parallel scans, {@code null} to hydrate sequentially.
+     */
+    ForkJoinPool getScanPool() {
+        return scanPool;
+    }
+
+    /**
+     * Batch sizes and statistics of the batch loads, {@code null} to leave the loads to Hibernate.
+     */
+    Batching getBatching() {
+        return batching;
+    }
+
+    /**
+     * Cache of the reference data, {@code null} if none.
+     */
+    ReferenceData getReferenceData() {
+        return referenceData;
+    }
+
+    /**
+     * Do hydrations need a {@link MonitoredTraversal}?.
+     */
+    boolean isMonitored() {
+        return budget != null || cancellation != null || progressListener != null;
+    }
+}
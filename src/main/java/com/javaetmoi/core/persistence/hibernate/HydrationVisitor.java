@@ -0,0 +1,121 @@
+package com.javaetmoi.core.persistence.hibernate;
+
+import org.hibernate.metamodel.mapping.AttributeMapping;
+import org.hibernate.metamodel.mapping.EmbeddableValuedModelPart;
+import org.hibernate.metamodel.mapping.EntityMappingType;
+import org.hibernate.metamodel.mapping.ModelPart;
+import org.hibernate.metamodel.mapping.PluralAttributeMapping;
+
+/**
+ * Callbacks of {@link Hydrator#walk(Object, HydrationVisitor)}, invoked by the traversal that hydrates the graph.
+ * <p>
+ * Entities, embeddables and collections are reported after they have been initialized.
+ * Callbacks returning {@code false} prune the branch: It is neither walked nor hydrated.
+ * The default implementations walk everything.
+ * </p>
+ */
+public interface HydrationVisitor {
+    /**
+     * An attribute of an entity or embeddable, including basic attributes but excluding the identifier.
+     * Called before the value is initialized, so it is the place to prune branches without loading them.
+     *
+     * @param owner
+     *            Entity or embeddable.
+     * @param attribute
+     *            Attribute.
+     * @param value
+     *            Value of the attribute, maybe an uninitialized proxy or collection, or {@code null}.
+     * @return Whether to walk into the value.
+     */
+    default boolean attribute(Object owner, AttributeMapping attribute, Object value) {
+        return true;
+    }
+
+    /**
+     * Start of an entity.
+     *
+     * @param entity
+     *            Initialized entity, not a proxy.
+     * @param entityType
+     *            Concrete entity type.
+     * @return Whether to walk the attributes of the entity. If not, {@link #exitEntity} is not called.
+     */
+    default boolean enterEntity(Object entity, EntityMappingType entityType) {
+        return true;
+    }
+
+    /**
+     * End of an entity, after its attributes.
+     */
+    default void exitEntity(Object entity, EntityMappingType entityType) {
+    }
+
+    /**
+     * Start of an embeddable.
+     *
+     * @param embeddable
+     *            Embeddable.
+     * @param part
+     *            Embedded attribute or element of a collection of embeddables.
+     * @return Whether to walk the attributes of the embeddable. If not, {@link #exitEmbeddable} is not called.
+     */
+    default boolean enterEmbeddable(Object embeddable, EmbeddableValuedModelPart part) {
+        return true;
+    }
+
+    /**
+     * End of an embeddable, after its attributes.
+     */
+    default void exitEmbeddable(Object embeddable, EmbeddableValuedModelPart part) {
+    }
+
+    /**
+     * Start of a collection or map.
+     *
+     * @param collection
+     *            Initialized collection or map.
+     *            Collections replaced by the placeholder of a paged collection are not entered.
+     * @param part
+     *            Collection attribute.
+     * @return Whether to walk the elements. If not, {@link #exitCollection} is not called.
+     */
+    default boolean enterCollection(Object collection, PluralAttributeMapping part) {
+        return true;
+    }
+
+    /**
+     * Key of a map, before its value.
+     *
+     * @return Whether to walk into the key.
+     */
+    default boolean key(Object key, PluralAttributeMapping part) {
+        return true;
+    }
+
+    /**
+     * Element of a collection or value of a map.
+     *
+     * @return Whether to walk into the element.
+     */
+    default boolean element(Object element, PluralAttributeMapping part) {
+        return true;
+    }
+
+    /**
+     * End of a collection or map, after its elements.
+     */
+    default void exitCollection(Object collection, PluralAttributeMapping part) {
+    }
+
+    /**
+     * An entity, embeddable or collection has been reached again, e.g. by a cycle.
+     * It is not walked again.
+     *
+     * @param object
+     *            Entity, not a proxy, embeddable or collection.
+     * @param part
+     *            Model part by which it has been reached.
+     */
+    default void revisit(Object object, ModelPart part) {
+    }
+}
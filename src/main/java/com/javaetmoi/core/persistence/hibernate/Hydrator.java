@@ -5,8 +5,14 @@ import jakarta.persistence.EntityManagerFactory;
 import org.hibernate.LazyInitializationException;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hibernate.metamodel.model.domain.NavigableRole;
 
+import java.time.Duration;
 import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
 
 /**
  * Hydrate Hibernate/JPA entities.
@@ -14,10 +20,11 @@ import java.util.Collection;
 public interface Hydrator {
     /**
      * Factory for {@link EntityManager} or {@link Session}.
+     * The hydrator is shared by all entity managers of the same entity manager factory.
      *
      * @param entityManager
      *            {@link EntityManager} of an open {@link EntityManagerFactory}.
-     * @return new instance.
+     * @return shared instance.
      */
     public static Hydrator hydrator(EntityManager entityManager) {
         return hydrator(entityManager.getEntityManagerFactory());
@@ -25,13 +32,15 @@ public interface Hydrator {
 
     /**
      * Factory for {@link EntityManagerFactory} or {@link SessionFactory}.
+     * The hydrator is shared per entity manager factory, so that its compiled plans are reused.
+     * It is released when the entity manager factory closes.
      *
      * @param entityManagerFactory
      *            Open {@link EntityManagerFactory}.
-     * @return new instance.
+     * @return shared instance.
      */
     public static Hydrator hydrator(EntityManagerFactory entityManagerFactory) {
-        return new HydratorImpl(entityManagerFactory);
+        return HydratorRegistry.hydrator(entityManagerFactory);
     }
 
     /**
@@ -48,6 +57,254 @@ public interface Hydrator {
      */
     public Hydrator withExclude(Class<?> entityClass, String attribute);
 
+    /**
+     * Page the collection attribute of the entity, if it has more elements than the threshold.
+     * <p>
+     * Instead of initializing such a collection, the hydrator counts its elements
+     * and replaces it in its owner by a detached read-only placeholder.
+     * The placeholder loads and hydrates its elements in pages through a new short-lived session
+     * when they are accessed, so it still works after the owner has been detached.
+     * While the session of the owner flushes, e.g. at commit, the original collection is put back into the owner,
+     * so that Hibernate neither loads the pages nor writes anything for it.
+     * Only inverse ({@code mappedBy}) collections of entities without orphan removal nor cascades are supported.
+     * </p>
+     *
+     * @param entityClass
+     *            Entity class.
+     * @param attribute
+     *            Attribute name of the collection.
+     * @param threshold
+     *            Maximum number of elements to initialize the collection as usual.
+     * @param pageSize
+     *            Number of elements per page.
+     * @throws IllegalArgumentException if the attribute does not exist or is not supported,
+     *             or if the threshold or page size are invalid.
+     * @return new instance with the paging.
+     */
+    public Hydrator withPaging(Class<?> entityClass, String attribute, int threshold, int pageSize);
+
+    /**
+     * Filter the collection attribute of the entity at the database while it is hydrated.
+     * <p>
+     * The Hibernate filter, declared by {@link org.hibernate.annotations.Filter @Filter} on the attribute,
+     * is enabled in the session while the hydrator initializes a collection of the attribute,
+     * so only the matching rows are loaded. Other attributes declaring the same filter are not affected,
+     * except for collections batch fetched along.
+     * If the session already has the filter enabled, its parameters are kept.
+     * </p>
+     * <p>
+     * Hydrated collections of the attribute are replaced in their owner by unmodifiable copies,
+     * which mark them as filtered and keep them from being modified and written back.
+     * Collections initialized before the hydration are copied as they are.
+     * While the session of the owner flushes, e.g. at commit, the filtered original collection is put back
+     * into the owner, so that Hibernate neither writes nor removes it.
+     * Only inverse ({@code mappedBy}) collections of entities without orphan removal nor cascades are supported.
+     * Filtered collections are not paged.
+     * </p>
+     *
+     * @param entityClass
+     *            Entity class.
+     * @param attribute
+     *            Attribute name of the collection.
+     * @param filterName
+     *            Name of the filter definition, see {@link org.hibernate.annotations.FilterDef @FilterDef}.
+     * @param parameters
+     *            Values of all parameters of the filter definition, per name.
+     *            {@link Collection}s and arrays are bound as parameter lists.
+     * @throws IllegalArgumentException if the attribute does not exist or is not supported,
+     *             or if the filter is not defined or the parameters do not match its definition.
+     * @return new instance with the filter, replacing any former filter of the attribute.
+     */
+    public Hydrator withFilter(Class<?> entityClass, String attribute, String filterName, Map<String, ?> parameters);
+
+    /**
+     * Limit each hydration, and fail fast when a limit is exceeded.
+     * <p>
+     * The hydration checks the limits before each entity and each load.
+     * Each initialization of a proxy or collection counts as one statement, as do the queries of the hydrator itself.
+     * When a limit is exceeded, the hydration throws a {@link HydrationBudgetExceededException},
+     * whose report tells which roles used up the budget.
+     * </p>
+     *
+     * @param maxEntities
+     *            Maximum number of entities to hydrate.
+     * @param maxStatements
+     *            Maximum number of SQL statements to execute.
+     * @param deadline
+     *            Maximum duration of a hydration.
+     * @throws IllegalArgumentException if a limit is negative.
+     * @return new instance with the budget, replacing any former limits but the memory budget.
+     */
+    public Hydrator withBudget(long maxEntities, long maxStatements, Duration deadline);
+
+    /**
+     * Limit each hydration, and return a partially hydrated graph when a limit is exceeded.
+     * <p>
+     * Like {@link #withBudget(long, long, Duration)}, but when a limit is exceeded, the hydration stops expanding
+     * the graph. Entities and collections that have not been reached yet stay uninitialized.
+     * The report of the usage is passed to the given consumer before the hydration returns.
+     * </p>
+     *
+     * @param maxEntities
+     *            Maximum number of entities to hydrate.
+     * @param maxStatements
+     *            Maximum number of SQL statements to execute.
+     * @param deadline
+     *            Maximum duration of a hydration.
+     * @param onExceeded
+     *            Receives the report of each partial hydration.
+     * @throws IllegalArgumentException if a limit is negative.
+     * @return new instance with the budget, replacing any former limits but the memory budget.
+     */
+    public Hydrator withBudget(long maxEntities, long maxStatements, Duration deadline,
+            Consumer<HydrationBudgetReport> onExceeded);
+
+    /**
+     * Limit the heap used by each hydration, and fail fast when the limit is exceeded.
+     * <p>
+     * The hydration keeps a running estimate of the size of the hydrated graph:
+     * A size per entity type derived from its mapping, including the entry of the entity in the persistence context,
+     * and the size of each collection. The estimate is coarse, variable-length values are counted at an average size,
+     * but cheap, and good enough to stop a pathological graph long before it exhausts the heap.
+     * When the estimate reaches the limit, the hydration throws a {@link HydrationBudgetExceededException},
+     * whose report tells the estimated size per role, see {@link HydrationBudgetReport#getEstimatedBytes()}.
+     * The other limits of a former {@link #withBudget(long, long, Duration) budget} are kept,
+     * and so is what happens when they are exceeded.
+     * </p>
+     *
+     * @param maxBytes
+     *            Maximum estimated size of the hydrated graph in bytes.
+     * @throws IllegalArgumentException if the limit is negative.
+     * @return new instance with the memory budget, replacing any former memory budget.
+     */
+    public Hydrator withMemoryBudget(long maxBytes);
+
+    /**
+     * Limit the heap used by each hydration, and return a partially hydrated graph when the limit is exceeded.
+     * <p>
+     * Like {@link #withMemoryBudget(long)}, but when the limit is exceeded, the hydration stops expanding the graph,
+     * and passes the report of the usage to the given consumer before it returns.
+     * The other limits of a former budget are kept, and so is what happens when they are exceeded.
+     * </p>
+     *
+     * @param maxBytes
+     *            Maximum estimated size of the hydrated graph in bytes.
+     * @param onExceeded
+     *            Receives the report of each partial hydration.
+     * @throws IllegalArgumentException if the limit is negative.
+     * @return new instance with the memory budget, replacing any former memory budget.
+     */
+    public Hydrator withMemoryBudget(long maxBytes, Consumer<HydrationBudgetReport> onExceeded);
+
+    /**
+     * Make hydrations cancellable.
+     * <p>
+     * Before each entity and collection and after each query of its own, the hydration checks the token
+     * and the interruption of the current thread. If either is set, the hydration throws a
+     * {@link HydrationCancelledException} and leaves the graph partially hydrated.
+     * The interrupted status of the thread is kept.
+     * Hydrations with a budget or a progress listener honor the interruption too, even without a token.
+     * </p>
+     *
+     * @param cancelled
+     *            Cancellation token, e.g. {@code atomicBoolean::get}. Called by the hydrating thread.
+     * @return new instance with the cancellation, replacing any former cancellation.
+     */
+    public Hydrator withCancellation(BooleanSupplier cancelled);
+
+    /**
+     * Report the progress of hydrations.
+     * <p>
+     * The listener receives the number of visited objects and issued loads and the depth of the traversal
+     * at most once per interval, checked before each entity and collection, and once at completion.
+     * </p>
+     *
+     * @param listener
+     *            Listener. Called by the hydrating thread.
+     * @param interval
+     *            Minimum interval between two reports.
+     * @throws IllegalArgumentException if the interval is negative.
+     * @return new instance with the listener, replacing any former listener.
+     */
+    public Hydrator withProgressListener(HydrationProgressListener listener, Duration interval);
+
+    /**
+     * Scan the initialized parts of the graphs in parallel.
+     * <p>
+     * Hydrations proceed in rounds: The initialized part of the graph is scanned in parallel on the pool,
+     * then the calling thread, which owns the session, loads the uninitialized proxies and collections
+     * reached by the scan. The next round scans from the loaded objects, until nothing is left to load.
+     * The session is only used by the calling thread, while the scanners wait.
+     * This pays off for wide graphs that are mostly initialized already.
+     * </p>
+     * <p>
+     * The entities must not be modified during the hydration, and their attributes must not be loaded lazily
+     * by bytecode enhancement. Hydrations with a budget, a cancellation, a progress listener, paging or filters,
+     * as well as {@link #walk(Object, HydrationVisitor)}, stay sequential.
+     * </p>
+     *
+     * @param pool
+     *            Pool of the scanners, e.g. {@link ForkJoinPool#commonPool()}. Not shut down by the hydrator.
+     * @return new instance with the parallel scan.
+     */
+    public Hydrator withParallelScan(ForkJoinPool pool);
+
+    /**
+     * Load the associations of sibling entities in batches of adaptive sizes.
+     * <p>
+     * When the hydrator reaches a collection of entities, it loads the uninitialized collections and proxies
+     * of their attributes with one query per attribute and batch of owner or target ids,
+     * instead of one statement each. The batch size of each role is chosen within the bounds
+     * from the fan-out observed so far: It aims at loading all candidates of a level with one statement,
+     * rounded up to a power of two, and at reading about 512 rows per statement for collections.
+     * The statistics are shared by all hydrations of the returned hydrator and its derived hydrators,
+     * see {@link #getBatchStatistics()}.
+     * </p>
+     *
+     * @param minBatchSize
+     *            Minimum batch size.
+     * @param maxBatchSize
+     *            Maximum batch size.
+     * @throws IllegalArgumentException if the batch sizes are invalid.
+     * @return new instance with the batching, starting with fresh statistics.
+     */
+    public Hydrator withBatching(int minBatchSize, int maxBatchSize);
+
+    /**
+     * Statistics of the batch loads per role, with the batch sizes currently chosen,
+     * see {@link #withBatching(int, int)}.
+     *
+     * @return snapshot of the statistics, empty if batching is not enabled.
+     */
+    public Map<NavigableRole, HydrationBatchStatistics> getBatchStatistics();
+
+    /**
+     * Serve the entities of an immutable entity type from an in-memory cache, e.g. countries or currencies.
+     * <p>
+     * On first use, all entities of the type are loaded by a session of their own, deep hydrated, and indexed by id.
+     * During hydrations, uninitialized proxies of the type are then initialized with the cached entities,
+     * without SQL, and without adding the entities to the persistence context.
+     * The cached entities are shared by all sessions and threads: They must not be modified.
+     * Because the proxies of a session then delegate to these detached entities, the proxies must not be refreshed,
+     * locked or merged either: Hibernate would apply these operations to the shared entities,
+     * e.g. reload their state or associate them with the session.
+     * Entities that were not loaded by the cache, e.g. inserted since, are left to Hibernate.
+     * The cache is shared by the returned hydrator and its derived hydrators, see {@link #refreshReferenceData()}.
+     * </p>
+     *
+     * @param entityClass
+     *            Entity class, mapped as {@link org.hibernate.annotations.Immutable @Immutable}.
+     * @throws IllegalArgumentException if the class is not an immutable entity.
+     * @return new instance with the reference data, starting with a fresh cache.
+     */
+    public Hydrator withReferenceData(Class<?> entityClass);
+
+    /**
+     * Reload the cache of the reference data now, see {@link #withReferenceData(Class)}.
+     * Proxies initialized before keep the formerly cached entities. Does nothing without reference data.
+     */
+    public void refreshReferenceData();
+
     /**
      * Populate a lazy-initialized object graph by recursion.
      * <p>
@@ -79,4 +336,61 @@ public interface Hydrator {
      *         Useful when calling this method in a return statement.
      */
     public <E> E deepHydrate(E entity);
+
+    /**
+     * Populate a lazy-initialized object graph by recursion, like {@link #deepHydrate(Object)},
+     * and report the graph to a visitor on the way.
+     * <p>
+     * Hydration and processing of the graph, e.g. serializing or indexing it, happen in a single traversal.
+     * The visitor can prune branches, which are then not hydrated.<br>
+     * Attention: This method has to be called from an open persistent context / Hibernate session.
+     * </p>
+     *
+     * @param entity
+     *            An attached Hibernate entity to load. May be {@code null}.
+     * @param visitor
+     *            Callbacks for the entities, attributes and collections of the graph.
+     * @return the Hibernate entity loaded, except for the pruned branches.
+     */
+    public <E> E walk(E entity, HydrationVisitor visitor);
+
+    /**
+     * Revalidate a detached hydrated graph against the database, instead of hydrating it again.
+     * <p>
+     * This method navigates through the initialized part of the graph, without initializing anything,
+     * and collects the id and version of its {@link jakarta.persistence.Version versioned} entities.
+     * Their current versions are then read by one query per entity type, in a read-only session of its own.
+     * Stale entities are reloaded and hydrated in that session, and their state, including their attributes
+     * and subgraphs, is copied into the detached entities.
+     * The reloaded associations refer to the detached entities of the same ids, whose state is updated too,
+     * so that each row is still a single instance of the graph. Embeddables are copied as reloaded.
+     * If nothing changed, the graph is left untouched at the cost of a few cheap queries.<br>
+     * Entities without a version, and changes that do not increment the version of any entity of the graph,
+     * e.g. of inverse collections, are not detected.
+     * The graph is updated in place: It must not be read by other threads meanwhile.<br>
+     * Attention: The graph has to be detached.
+     * </p>
+     *
+     * @param detachedRoot
+     *            A detached hydrated entity. May be {@code null}.
+     * @return the revalidated entity, the same instance, or {@code null} if it has been deleted.
+     */
+    public <E> E revalidate(E detachedRoot);
+
+    /**
+     * Estimate the cost of a hydration without initializing anything.
+     * <p>
+     * This method navigates through the already initialized part of the graph of entities
+     * and estimates the cost of loading the uninitialized proxies and collections it reaches,
+     * by executing one cheap count query per collection role.
+     * Objects beyond those proxies and collections are unknown until they have been loaded,
+     * so the estimate is a lower bound of the cost of {@link #deepHydrate(Object)}.<br>
+     * Attention: This method has to be called from an open persistent context / Hibernate session.
+     * </p>
+     *
+     * @param entity
+     *            An attached Hibernate entity.
+     * @return the estimated cost per role.
+     */
+    public HydrationEstimate estimate(Object entity);
 }
@@ -1,28 +1,60 @@
 package com.javaetmoi.core.persistence.hibernate;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
 import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
 
 import org.hibernate.Hibernate;
+import org.hibernate.collection.spi.AbstractPersistentCollection;
+import org.hibernate.collection.spi.PersistentBag;
+import org.hibernate.collection.spi.PersistentCollection;
+import org.hibernate.collection.spi.PersistentList;
+import org.hibernate.engine.spi.CascadeStyles;
 import org.hibernate.engine.spi.SessionFactoryImplementor;
-import org.hibernate.internal.util.collections.IdentitySet;
+import org.hibernate.metamodel.mapping.AttributeMapping;
+import org.hibernate.metamodel.mapping.EmbeddableMappingType;
 import org.hibernate.metamodel.mapping.EmbeddableValuedModelPart;
+import org.hibernate.metamodel.mapping.EntityMappingType;
 import org.hibernate.metamodel.mapping.EntityValuedModelPart;
 import org.hibernate.metamodel.mapping.ModelPart;
 import org.hibernate.metamodel.mapping.PluralAttributeMapping;
 import org.hibernate.metamodel.model.domain.NavigableRole;
 import org.hibernate.metamodel.spi.MappingMetamodelImplementor;
-
-import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.proxy.HibernateProxy;
 
 /**
  * Default implementation of {@link Hydrator}.
  */
 class HydratorImpl implements Hydrator {
     /**
-     * Mapping metamodel.
+     * Maximum number of interned hydrators per base hydrator.
+     */
+    private static final int MAX_INTERNED = 256;
+
+    /**
+     * Session factory.
+     */
+    private final SessionFactoryImplementor sessionFactory;
+
+    /**
+     * Mapping metamodel of the session factory.
      */
     private final MappingMetamodelImplementor mappingMetamodel;
 
@@ -32,22 +64,164 @@ class HydratorImpl implements Hydrator {
     private final Set<NavigableRole> excludes;
 
     /**
-     * Convenience constructor.
+     * Settings besides the excludes.
      */
-    HydratorImpl(EntityManagerFactory entityManagerFactory) {
-        this(entityManagerFactory.unwrap(SessionFactoryImplementor.class).getMappingMetamodel(), Set.of());
-    }
+    private final HydrationSettings settings;
+
+    /**
+     * Interned hydrators per excludes, with default settings.
+     * Shared by all hydrators derived from the same base hydrator.
+     */
+    private final ConcurrentMap<Set<NavigableRole>, HydratorImpl> interned;
+
+    /**
+     * Hydrators derived from this one by {@link #withExclude(Class, String)}, per entity class and attribute.
+     */
+    private final ConcurrentMap<Class<?>, ConcurrentMap<String, HydratorImpl>> derived = new ConcurrentHashMap<>();
+
+    /**
+     * Plans per entity class.
+     */
+    private final ConcurrentMap<Class<?>, HydrationPlan> entityPlans = new ConcurrentHashMap<>();
+
+    /**
+     * Plans per embeddable type.
+     */
+    private final ConcurrentMap<EmbeddableMappingType, HydrationPlan> embeddablePlans = new ConcurrentHashMap<>();
+
+    /**
+     * Estimated sizes per entity class, see {@link MemoryEstimator}.
+     */
+    private final ConcurrentMap<Class<?>, Long> entitySizes = new ConcurrentHashMap<>();
+
+    /**
+     * Whether entities of an entity type may be or refer to polymorphic proxies, per entity type.
+     */
+    private final ConcurrentMap<EntityMappingType, Boolean> polymorphicCandidates = new ConcurrentHashMap<>();
+
+    /**
+     * A traversal of a finished hydration, to be reused by the next one.
+     * Concurrent hydrations that do not get it create their own.
+     */
+    private final AtomicReference<Traversal> spareTraversal = new AtomicReference<>();
+
+    /**
+     * Splitter of the in-lists of the batch queries, created on first use.
+     */
+    private volatile InListChunker inListChunker;
+
+    /**
+     * Dispatches the attribute values to their deep inflation.
+     */
+    private final PropertyDispatcher<Traversal> inflater = new PropertyDispatcher<>() {
+        @Override
+        public void entity(Object entity, EntityValuedModelPart part, Traversal traversal) {
+            deepInflateEntity(entity, part, traversal);
+        }
+
+        @Override
+        public void embeddable(Object embeddable, EmbeddableValuedModelPart part, Traversal traversal) {
+            deepInflateEmbedded(embeddable, part, traversal);
+        }
+
+        @Override
+        public void map(Map<?, ?> map, PluralAttributeMapping part, Traversal traversal) {
+            deepInflateMap(map, part, traversal);
+        }
+
+        @Override
+        public void collection(Collection<?> collection, PluralAttributeMapping part, Traversal traversal) {
+            deepInflateCollection(collection, part, traversal);
+        }
+    };
 
     /**
      * Base constructor.
      */
-    HydratorImpl(MappingMetamodelImplementor mappingMetamodel, Set<NavigableRole> excludes) {
-        this.mappingMetamodel = mappingMetamodel;
+    HydratorImpl(SessionFactoryImplementor sessionFactory) {
+        this(sessionFactory, Set.of(), HydrationSettings.DEFAULT, new ConcurrentHashMap<>());
+        interned.put(excludes, this);
+    }
+
+    /**
+     * Constructor for derived hydrators.
+     */
+    private HydratorImpl(SessionFactoryImplementor sessionFactory, Set<NavigableRole> excludes,
+            HydrationSettings settings, ConcurrentMap<Set<NavigableRole>, HydratorImpl> interned) {
+        this.sessionFactory = sessionFactory;
+        this.mappingMetamodel = sessionFactory.getMappingMetamodel();
         this.excludes = Set.copyOf(excludes);
+        this.settings = settings;
+        this.interned = interned;
+    }
+
+    /**
+     * Session factory.
+     */
+    SessionFactoryImplementor getSessionFactory() {
+        return sessionFactory;
+    }
+
+    /**
+     * Mapping metamodel.
+     */
+    MappingMetamodelImplementor getMappingMetamodel() {
+        return mappingMetamodel;
+    }
+
+    /**
+     * Splitter of the in-lists of the batch queries, for the dialect of the session factory.
+     */
+    InListChunker getInListChunker() {
+        var chunker = inListChunker;
+        if (chunker == null) {
+            // Racy but idempotent.
+            chunker = new InListChunker(sessionFactory.getJdbcServices().getDialect());
+            inListChunker = chunker;
+        }
+        return chunker;
+    }
+
+    /**
+     * Plan of an entity.
+     *
+     * @param entityClass
+     *            Concrete class of the entity.
+     * @param descriptor
+     *            Fallback, if the concrete class is not an entity class.
+     */
+    HydrationPlan plan(Class<?> entityClass, EntityMappingType descriptor) {
+        var plan = entityPlans.get(entityClass);
+        if (plan != null) {
+            return plan;
+        }
+        return entityPlans.computeIfAbsent(entityClass, type -> {
+            var concreteDescriptor = mappingMetamodel.findEntityDescriptor(type);
+            return concreteDescriptor != null ?
+                    new HydrationPlan(concreteDescriptor, type, excludes) :
+                    new HydrationPlan(descriptor, excludes);
+        });
+    }
+
+    /**
+     * Plan of an embeddable.
+     */
+    HydrationPlan plan(EmbeddableMappingType descriptor) {
+        var plan = embeddablePlans.get(descriptor);
+        if (plan != null) {
+            return plan;
+        }
+        return embeddablePlans.computeIfAbsent(descriptor, type -> new HydrationPlan(type, excludes));
     }
 
     @Override
     public Hydrator withExclude(Class<?> entityClass, String attribute) {
+        var attributes = derived.get(entityClass);
+        var result = attributes != null ? attributes.get(attribute) : null;
+        if (result != null) {
+            return result;
+        }
+
         var entityDescriptor = mappingMetamodel.getEntityDescriptor(entityClass);
         var attributeMapping = entityDescriptor.findAttributeMapping(attribute);
         if (attributeMapping == null) {
@@ -57,140 +231,717 @@ class HydratorImpl implements Hydrator {
 
         var newExcludes = new HashSet<>(this.excludes);
         newExcludes.add(attributeMapping.getNavigableRole());
+        result = intern(newExcludes);
+
+        // Bounded by the number of attributes of the model, because unknown attributes are rejected above.
+        derived.computeIfAbsent(entityClass, type -> new ConcurrentHashMap<>()).putIfAbsent(attribute, result);
+        return result;
+    }
+
+    @Override
+    public Hydrator withPaging(Class<?> entityClass, String attribute, int threshold, int pageSize) {
+        if (threshold < 0 || pageSize <= 0) {
+            throw new IllegalArgumentException(String.format(
+                    "Invalid threshold %d or page size %d.", threshold, pageSize));
+        }
+        var part = inverseCollection(entityClass, attribute);
+
+        return new HydratorImpl(sessionFactory, excludes,
+                settings.withPaging(part.getNavigableRole(), new Paging(threshold, pageSize)), interned);
+    }
+
+    @Override
+    public Hydrator withFilter(Class<?> entityClass, String attribute, String filterName, Map<String, ?> parameters) {
+        var part = inverseCollection(entityClass, attribute);
+        if (!sessionFactory.getDefinedFilterNames().contains(filterName)) {
+            throw new IllegalArgumentException(String.format("The filter %s is not defined.", filterName));
+        }
+        var parameterNames = sessionFactory.getFilterDefinition(filterName).getParameterNames();
+        if (!parameterNames.equals(parameters.keySet())) {
+            throw new IllegalArgumentException(String.format(
+                    "The filter %s has the parameters %s instead of %s.", filterName, parameterNames, parameters.keySet()));
+        }
+
+        return new HydratorImpl(sessionFactory, excludes,
+                settings.withFilter(part.getNavigableRole(), new CollectionFilter(filterName, parameters)), interned);
+    }
+
+    /**
+     * Collection attribute that may be replaced in its owner without Hibernate writing or deleting rows,
+     * or cascading to its elements.
+     *
+     * @throws IllegalArgumentException if the attribute does not exist or is not an inverse collection of entities
+     *             without orphan removal and without cascades.
+     */
+    private PluralAttributeMapping inverseCollection(Class<?> entityClass, String attribute) {
+        var entityDescriptor = mappingMetamodel.getEntityDescriptor(entityClass);
+        var attributeMapping = entityDescriptor.findAttributeMapping(attribute);
+        if (!(attributeMapping instanceof PluralAttributeMapping)) {
+            throw new IllegalArgumentException(String.format(
+                    "The attribute %s is not a collection of the entity %s.", attribute, entityDescriptor.getEntityName()));
+        }
+        var part = (PluralAttributeMapping) attributeMapping;
+        var collectionDescriptor = part.getCollectionDescriptor();
+        // Hibernate must neither write the rows of a replaced collection nor delete orphans.
+        if (!(part.getElementDescriptor() instanceof EntityValuedModelPart) || collectionDescriptor.hasIndex() ||
+                !collectionDescriptor.isInverse() || collectionDescriptor.hasOrphanDelete()) {
+            throw new IllegalArgumentException(String.format(
+                    "The attribute %s of the entity %s is not an inverse collection of entities without orphan removal.",
+                    attribute, entityDescriptor.getEntityName()));
+        }
+        // Cascades from the owner, e.g. a merge, removal or refresh, would iterate the replacement,
+        // e.g. load all pages.
+        var cascadeStyle = entityDescriptor.getEntityPersister().getPropertyCascadeStyles()[
+                attributeMapping.getStateArrayPosition()];
+        if (cascadeStyle != CascadeStyles.NONE) {
+            throw new IllegalArgumentException(String.format(
+                    "The attribute %s of the entity %s cascades to its elements.",
+                    attribute, entityDescriptor.getEntityName()));
+        }
+        return part;
+    }
+
+    @Override
+    public Hydrator withBudget(long maxEntities, long maxStatements, Duration deadline) {
+        return new HydratorImpl(sessionFactory, excludes,
+                settings.withBudget(budget().withLimits(maxEntities, maxStatements, deadline, null)), interned);
+    }
+
+    @Override
+    public Hydrator withBudget(long maxEntities, long maxStatements, Duration deadline,
+            Consumer<HydrationBudgetReport> onExceeded) {
+        Objects.requireNonNull(onExceeded, "onExceeded");
+        return new HydratorImpl(sessionFactory, excludes,
+                settings.withBudget(budget().withLimits(maxEntities, maxStatements, deadline, onExceeded)), interned);
+    }
+
+    @Override
+    public Hydrator withMemoryBudget(long maxBytes) {
+        return new HydratorImpl(sessionFactory, excludes,
+                settings.withBudget(budget().withMaxBytes(maxBytes, null)), interned);
+    }
+
+    @Override
+    public Hydrator withMemoryBudget(long maxBytes, Consumer<HydrationBudgetReport> onExceeded) {
+        Objects.requireNonNull(onExceeded, "onExceeded");
+        return new HydratorImpl(sessionFactory, excludes,
+                settings.withBudget(budget().withMaxBytes(maxBytes, onExceeded)), interned);
+    }
+
+    /**
+     * The budget to derive a new budget from.
+     */
+    private Budget budget() {
+        return settings.getBudget() != null ? settings.getBudget() : Budget.unlimited();
+    }
+
+    @Override
+    public Hydrator withCancellation(BooleanSupplier cancelled) {
+        Objects.requireNonNull(cancelled, "cancelled");
+        return new HydratorImpl(sessionFactory, excludes, settings.withCancellation(cancelled), interned);
+    }
+
+    @Override
+    public Hydrator withProgressListener(HydrationProgressListener listener, Duration interval) {
+        Objects.requireNonNull(listener, "listener");
+        if (interval.isNegative()) {
+            throw new IllegalArgumentException(String.format("Invalid interval %s.", interval));
+        }
+        return new HydratorImpl(sessionFactory, excludes, settings.withProgressListener(listener, interval), interned);
+    }
+
+    @Override
+    public Hydrator withParallelScan(ForkJoinPool pool) {
+        Objects.requireNonNull(pool, "pool");
+        return new HydratorImpl(sessionFactory, excludes, settings.withScanPool(pool), interned);
+    }
+
+    @Override
+    public Hydrator withBatching(int minBatchSize, int maxBatchSize) {
+        return new HydratorImpl(sessionFactory, excludes,
+                settings.withBatching(new Batching(minBatchSize, maxBatchSize)), interned);
+    }
+
+    @Override
+    public Map<NavigableRole, HydrationBatchStatistics> getBatchStatistics() {
+        var batching = settings.getBatching();
+        return batching != null ? batching.snapshot() : Map.of();
+    }
+
+    @Override
+    public Hydrator withReferenceData(Class<?> entityClass) {
+        var entityDescriptor = mappingMetamodel.getEntityDescriptor(entityClass);
+        if (entityDescriptor.isMutable()) {
+            throw new IllegalArgumentException(String.format(
+                    "The entity %s is not immutable.", entityDescriptor.getEntityName()));
+        }
+        return new HydratorImpl(sessionFactory, excludes,
+                settings.withReferenceData(ReferenceData.with(settings.getReferenceData(), entityDescriptor)), interned);
+    }
+
+    @Override
+    public void refreshReferenceData() {
+        var referenceData = settings.getReferenceData();
+        if (referenceData != null) {
+            referenceData.refresh(referenceLoader());
+        }
+    }
+
+    /**
+     * Hydrator of the reference data: The same excludes, but no settings, so that it never uses the cache itself.
+     */
+    private HydratorImpl referenceLoader() {
+        var result = interned.get(excludes);
+        return result != null ? result :
+                new HydratorImpl(sessionFactory, excludes, HydrationSettings.DEFAULT, interned);
+    }
+
+    /**
+     * Is the entity type cached as reference data?.
+     */
+    boolean isReferenceData(String entityName) {
+        var referenceData = settings.getReferenceData();
+        return referenceData != null && referenceData.contains(entityName);
+    }
+
+    /**
+     * Initialize an uninitialized proxy of reference data with the cached entity, see {@link ReferenceData}.
+     * The proxy then delegates to the shared detached entity, see {@link Hydrator#withReferenceData(Class)}.
+     *
+     * @return Whether the proxy has been initialized from the cache.
+     */
+    boolean resolveReference(Object entity) {
+        var referenceData = settings.getReferenceData();
+        if (referenceData == null) {
+            return false;
+        }
+        var lazyInitializer = HibernateProxy.extractLazyInitializer(entity);
+        if (lazyInitializer == null || !lazyInitializer.isUninitialized() ||
+                !referenceData.contains(lazyInitializer.getEntityName())) {
+            return false;
+        }
+        var cached = referenceData.get(
+                lazyInitializer.getEntityName(), lazyInitializer.getInternalIdentifier(), referenceLoader());
+        if (cached == null) {
+            return false;
+        }
+        lazyInitializer.setImplementation(cached);
+        return true;
+    }
+
+    /**
+     * Get the interned hydrator for the given excludes.
+     * If there are too many interned hydrators, a new hydrator is returned without interning it.
+     * Hydrators with other settings are not interned.
+     */
+    private HydratorImpl intern(Set<NavigableRole> excludes) {
+        if (settings != HydrationSettings.DEFAULT) {
+            return new HydratorImpl(sessionFactory, excludes, settings, interned);
+        }
 
-        return new HydratorImpl(mappingMetamodel, newExcludes);
+        var result = interned.get(excludes);
+        if (result != null) {
+            return result;
+        }
+
+        var hydrator = new HydratorImpl(sessionFactory, excludes, settings, interned);
+        if (interned.size() >= MAX_INTERNED) {
+            return hydrator;
+        }
+        result = interned.putIfAbsent(hydrator.excludes, hydrator);
+        return result != null ? result : hydrator;
     }
 
     @Override
     public <C extends Collection<E>, E> C deepHydrateCollection(C entities) {
+        if (isParallel()) {
+            new ParallelHydration(this, settings).hydrate(entities);
+            return entities;
+        }
         // Reduce resizes for big collections.
-        int capacity = Math.max(entities.size(), 32);
-        var recursiveGuard = new IdentitySet<>(capacity);
-        entities.forEach(entity ->
-                deepInflateInitialEntity(entity, recursiveGuard));
+        var traversal = acquireTraversal(Math.max(entities.size(), 32));
+        try {
+            loadAhead(entities, traversal);
+            for (var entity : entities) {
+                deepInflateInitialEntity(entity, traversal);
+            }
+            traversal.finish();
+        } finally {
+            releaseTraversal(traversal);
+        }
         return entities;
     }
 
     @Override
     public <E> E deepHydrate(E entity) {
-        var recursiveGuard = new IdentitySet<>();
-        deepInflateInitialEntity(entity, recursiveGuard);
+        if (isParallel()) {
+            new ParallelHydration(this, settings).hydrate(Collections.singletonList(entity));
+            return entity;
+        }
+        var traversal = acquireTraversal(32);
+        try {
+            deepHydrate(entity, traversal);
+            traversal.finish();
+            return entity;
+        } finally {
+            releaseTraversal(traversal);
+        }
+    }
+
+    /**
+     * Deep hydrate an entity with the given traversal state.
+     */
+    <E> E deepHydrate(E entity, Traversal traversal) {
+        deepInflateInitialEntity(entity, traversal);
         return entity;
     }
 
+    /**
+     * Hydrate by a {@link ParallelHydration}?.
+     * Budgets, cancellation, progress, paging and filters need the sequential traversal.
+     */
+    private boolean isParallel() {
+        return settings.getScanPool() != null &&
+                !settings.isMonitored() && !settings.hasPagings() && !settings.hasFilters();
+    }
+
+    /**
+     * Take the spare traversal, if any, or create a new one.
+     */
+    private Traversal acquireTraversal(int capacity) {
+        if (settings.isMonitored()) {
+            return new MonitoredTraversal(capacity, settings, this);
+        }
+        var traversal = spareTraversal.getAndSet(null);
+        return traversal != null ? traversal : new Traversal(capacity);
+    }
+
+    /**
+     * Keep the traversal as spare for the next hydration, if it is not too big.
+     */
+    private void releaseTraversal(Traversal traversal) {
+        if (traversal.reset()) {
+            spareTraversal.set(traversal);
+        }
+    }
+
+    @Override
+    public <E> E walk(E entity, HydrationVisitor visitor) {
+        if (entity == null) {
+            return null;
+        }
+        var traversal = acquireTraversal(32);
+        try {
+            new Walk(this, traversal, visitor).entity(entity, entityType(entity));
+            traversal.finish();
+            return entity;
+        } finally {
+            releaseTraversal(traversal);
+        }
+    }
+
+    @Override
+    public <E> E revalidate(E detachedRoot) {
+        if (detachedRoot == null) {
+            return null;
+        }
+        var revalidation = new Revalidation(this);
+        deepInflateInitialEntity(detachedRoot, revalidation);
+        return DetachedHydration.execute(sessionFactory,
+                session -> revalidation.revalidate(session, detachedRoot));
+    }
+
+    @Override
+    public HydrationEstimate estimate(Object entity) {
+        var estimation = new Estimation(32);
+        deepInflateInitialEntity(entity, estimation);
+        return estimation.estimate();
+    }
+
     /**
      * Populate a lazy-initialized object graph by recursion. Recursion entry point.
      *
      * @param entity
      *            The entity. May be {@code null}.
-     * @param recursiveGuard
-     *            A guard to avoid endless recursion.
+     * @param traversal
+     *            State of the traversal.
      */
-    private void deepInflateInitialEntity(Object entity, IdentitySet<Object> recursiveGuard) {
+    private void deepInflateInitialEntity(Object entity, Traversal traversal) {
         if (entity == null) {
             return;
         }
 
-        var entityType = mappingMetamodel.getEntityDescriptor(Hibernate.getClass(entity));
-        deepInflateEntity(entity, entityType, recursiveGuard);
+        deepInflateEntity(entity, entityType(entity), traversal);
     }
 
-    private void deepInflateProperty(
-            Object propertyValue, ModelPart part, IdentitySet<Object> recursiveGuard) {
-        if (propertyValue == null) {
-            return;
-        }
+    /**
+     * Estimated size of an initialized entity, see {@link MemoryEstimator}.
+     */
+    long estimateSize(Object entity) {
+        return entitySizes.computeIfAbsent(entity.getClass(),
+                entityClass -> MemoryEstimator.entitySize(mappingMetamodel.getEntityDescriptor(entityClass)));
+    }
 
-        if (part instanceof EntityValuedModelPart) {
-            deepInflateEntity(propertyValue, (EntityValuedModelPart) part, recursiveGuard);
-        } else if (part instanceof EmbeddableValuedModelPart) {
-            deepInflateEmbedded(propertyValue, (EmbeddableValuedModelPart) part, recursiveGuard);
-        } else if (part instanceof PluralAttributeMapping) {
-            if (propertyValue instanceof Map) {
-                deepInflateMap((Map<?, ?>) propertyValue, (PluralAttributeMapping) part, recursiveGuard);
-            } else if (propertyValue instanceof Collection) {
-                deepInflateCollection((Collection<?>) propertyValue, (PluralAttributeMapping) part, recursiveGuard);
-            } else {
-                throw new UnsupportedOperationException(String.format("Unsupported collection type %s for %s.",
-                        propertyValue.getClass().getSimpleName(), part.getNavigableRole().getFullPath()));
-            }
-        }
+    /**
+     * Entity type of an entity or proxy.
+     * Avoids initializing proxies just to resolve their entity type.
+     */
+    EntityMappingType entityType(Object entity) {
+        var lazyInitializer = HibernateProxy.extractLazyInitializer(entity);
+        return lazyInitializer != null ?
+                mappingMetamodel.getEntityDescriptor(lazyInitializer.getEntityName()) :
+                mappingMetamodel.getEntityDescriptor(entity.getClass());
+    }
+
+    private void deepInflateProperty(
+            Object propertyValue, ModelPart part, Traversal traversal) {
+        inflater.property(propertyValue, part, traversal);
     }
 
     /**
      * Deep inflate an entity.
      */
     private void deepInflateEntity(
-            Object entity, EntityValuedModelPart part, IdentitySet<Object> recursiveGuard) {
-        if (entity == null || !recursiveGuard.add(entity) || excludes.contains(part.getNavigableRole())) {
+            Object entity, EntityValuedModelPart part, Traversal traversal) {
+        if (entity == null || !traversal.visit(entity)) {
+            return;
+        }
+        if (traversal.isLoading() && resolveReference(entity)) {
+            // Hydrated by the cache.
+            traversal.resolved(part);
+            return;
+        }
+        if (!traversal.initialize(entity, part)) {
             return;
         }
-        Hibernate.initialize(entity);
 
         var target = Hibernate.unproxy(entity);
-        var descriptor = part.getEntityMappingType();
-        // Start with the entity itself.
-        descriptor.getAttributeMappings().forEach(attributeMapping -> {
-            var propertyValue = attributeMapping.getValue(target);
-            deepInflateProperty(propertyValue, attributeMapping, recursiveGuard);
-        });
-        // Continue with subclasses.
-        if (descriptor.hasSubclasses()) {
-            descriptor.getSubMappingTypes().stream()
-                .filter(subclassDescriptor -> subclassDescriptor.getJavaType().getJavaTypeClass().isInstance(target))
-                .forEach(subclassDescriptor -> subclassDescriptor.getAttributeMappings().forEach(attributeMapping -> {
-                    var propertyValue = attributeMapping.getValue(target);
-                    deepInflateProperty(propertyValue, attributeMapping, recursiveGuard);
-                }));
+        if (target != entity && !traversal.visit(target)) {
+            // Already reached without the proxy.
+            traversal.leave();
+            return;
+        }
+        // The plan of the concrete class includes the attributes of the super classes.
+        var plan = plan(target.getClass(), part.getEntityMappingType());
+        var generated = plan.getGenerated();
+        if (generated != null) {
+            var sink = traversal.sink;
+            if (sink == null) {
+                sink = new GeneratedSink(traversal);
+                traversal.sink = sink;
+            }
+            // The sink is reentrant: Nested entities replace the parts of the current one.
+            var parts = sink.parts;
+            sink.parts = plan.getGeneratedParts();
+            try {
+                generated.hydrate(target, sink);
+            } finally {
+                sink.parts = parts;
+            }
         }
+        deepInflateAttributes(target, plan, traversal);
+        traversal.leave();
     }
 
     /**
      * Deep inflate an embedded entity.
      */
     private void deepInflateEmbedded(
-            Object embeddable, EmbeddableValuedModelPart part, IdentitySet<Object> recursiveGuard) {
-        if (embeddable == null || !recursiveGuard.add(embeddable) || excludes.contains(part.getNavigableRole())) {
+            Object embeddable, EmbeddableValuedModelPart part, Traversal traversal) {
+        if (embeddable == null || !traversal.visit(embeddable)) {
             return;
         }
 
-        var descriptor = part.getEmbeddableTypeDescriptor();
-        descriptor.getAttributeMappings().forEach(attributeMapping -> {
-            var propertyValue = attributeMapping.getValue(embeddable);
-            deepInflateProperty(propertyValue, attributeMapping, recursiveGuard);
-        });
+        deepInflateAttributes(embeddable, plan(part.getEmbeddableTypeDescriptor()), traversal);
+    }
+
+    /**
+     * Deep inflate the attributes of an entity or embeddable, that are not handled by a generated hydrator.
+     */
+    private void deepInflateAttributes(Object owner, HydrationPlan plan, Traversal traversal) {
+        var parts = plan.getRemainingParts();
+        var accessors = plan.getAccessors();
+        for (int i = 0; i < accessors.length; i++) {
+            deepInflateProperty(accessors[i].get(owner), parts[i], traversal);
+        }
     }
 
     /**
      * Deep inflate a map including its keys and values.
      */
     private void deepInflateMap(
-            Map<?, ?> map, PluralAttributeMapping part, IdentitySet<Object> recursiveGuard) {
-        if (map == null || !recursiveGuard.add(map) || excludes.contains(part.getNavigableRole())) {
+            Map<?, ?> map, PluralAttributeMapping part, Traversal traversal) {
+        if (map == null || !traversal.visit(map)) {
+            return;
+        }
+        if (!traversal.initialize(map, part)) {
             return;
         }
-        Hibernate.initialize(map);
 
         var indexType = part.getIndexDescriptor();
         var elementType = part.getElementDescriptor();
-        map.forEach((index, element) -> {
-            deepInflateProperty(index, indexType, recursiveGuard);
-            deepInflateProperty(element, elementType, recursiveGuard);
-        });
+        // Iterate the entries of persistent maps directly, without Hibernate's proxies around them.
+        var entries = map instanceof PersistentCollection ?
+                ((PersistentCollection<?>) map).entries(part.getCollectionDescriptor()) :
+                map.entrySet().iterator();
+        while (entries.hasNext()) {
+            var entry = (Map.Entry<?, ?>) entries.next();
+            deepInflateProperty(entry.getKey(), indexType, traversal);
+            deepInflateProperty(entry.getValue(), elementType, traversal);
+        }
+        traversal.leave();
     }
 
     /**
      * Deep inflate a collection including its elements.
      */
     private void deepInflateCollection(
-            Collection<?> collection, PluralAttributeMapping part, IdentitySet<Object> recursiveGuard) {
-        if (collection == null || !recursiveGuard.add(collection) || excludes.contains(part.getNavigableRole())) {
+            Collection<?> collection, PluralAttributeMapping part, Traversal traversal) {
+        if (collection == null || !traversal.visit(collection)) {
+            return;
+        }
+        if (settings.hasPagings() && traversal.isLoading() && page(collection, part, traversal) != null) {
+            return;
+        }
+        if (!(settings.hasFilters() ? initializeCollection(collection, part, traversal) :
+                traversal.initialize(collection, part))) {
             return;
         }
-        Hibernate.initialize(collection);
 
         var elementType = part.getElementDescriptor();
-        collection.forEach(element ->
-                deepInflateProperty(element, elementType, recursiveGuard));
+        if (elementType instanceof EntityValuedModelPart && traversal.isLoading()) {
+            var entityType = ((EntityValuedModelPart) elementType).getEntityMappingType();
+            loadPolymorphic(collection, entityType, part, traversal);
+            loadBatches(collection, entityType, traversal);
+        }
+        if (isIndexed(collection)) {
+            // Avoid allocating an iterator.
+            var list = (List<?>) collection;
+            for (int i = 0, size = list.size(); i < size; i++) {
+                deepInflateProperty(list.get(i), elementType, traversal);
+            }
+        } else {
+            // Iterate persistent collections directly, without Hibernate's proxies around them.
+            var elements = collection instanceof PersistentCollection ?
+                    ((PersistentCollection<?>) collection).entries(part.getCollectionDescriptor()) :
+                    collection.iterator();
+            while (elements.hasNext()) {
+                deepInflateProperty(elements.next(), elementType, traversal);
+            }
+        }
+        traversal.leave();
+    }
+
+    /**
+     * Replace an uninitialized collection larger than the threshold of its role by a paged placeholder.
+     * The collection is put back while the session flushes, see {@link ReplacedCollections}.
+     *
+     * @return The placeholder, {@code null} if the collection has not been replaced.
+     */
+    Collection<?> page(Collection<?> collection, PluralAttributeMapping part, Traversal traversal) {
+        var paging = settings.getPaging(part.getNavigableRole());
+        if (paging == null || settings.getFilter(part.getNavigableRole()) != null ||
+                !(collection instanceof AbstractPersistentCollection) ||
+                Hibernate.isInitialized(collection)) {
+            return null;
+        }
+
+        var persistentCollection = (AbstractPersistentCollection<?>) collection;
+        var session = persistentCollection.getSession();
+        var owner = persistentCollection.getOwner();
+        if (session == null || !session.isOpenOrWaitingForAutoClose() || owner == null) {
+            // Let the initialization fail as usual.
+            return null;
+        }
+
+        if (!traversal.canQuery(part)) {
+            return null;
+        }
+        // Counts the elements without loading them, like extra-lazy collections do.
+        var size = part.getCollectionDescriptor().getSize(persistentCollection.getKey(), session);
+        traversal.queried(part, 1);
+        if (size <= paging.getThreshold()) {
+            return null;
+        }
+
+        var ownerId = part.findContainingEntityMapping().getIdentifierMapping().getIdentifier(owner);
+        var pages = new PagedCollection<>(this, session.getFactory(), part, ownerId, size, paging.getPageSize());
+        var placeholder = pages.placeholder(part.getJavaType().getJavaTypeClass());
+        part.getPropertyAccess().getSetter().set(owner, placeholder);
+        traversal.replaced(persistentCollection, part, placeholder);
+        return placeholder;
+    }
+
+    /**
+     * Initialize a collection, like {@link Traversal#initialize(Object, ModelPart)}.
+     * If its role is filtered, the filter is enabled during the initialization,
+     * and the collection is replaced in its owner by an unmodifiable copy.
+     *
+     * @return Whether to navigate into the collection.
+     */
+    boolean initializeCollection(Collection<?> collection, PluralAttributeMapping part, Traversal traversal) {
+        var filter = settings.getFilter(part.getNavigableRole());
+        if (filter == null || !traversal.isLoading() || !(collection instanceof AbstractPersistentCollection)) {
+            return traversal.initialize(collection, part);
+        }
+
+        var persistentCollection = (AbstractPersistentCollection<?>) collection;
+        var session = persistentCollection.getSession();
+        var owner = persistentCollection.getOwner();
+        if (session == null || !session.isOpenOrWaitingForAutoClose() || owner == null) {
+            // Let the initialization fail as usual.
+            return traversal.initialize(collection, part);
+        }
+
+        var influencers = session.getLoadQueryInfluencers();
+        var enabled = !Hibernate.isInitialized(collection) && filter.enable(influencers);
+        boolean initialized;
+        try {
+            initialized = traversal.initialize(collection, part);
+        } finally {
+            if (enabled) {
+                influencers.disableFilter(filter.getName());
+            }
+        }
+        if (initialized) {
+            var copy = unmodifiableCopy(collection);
+            part.getPropertyAccess().getSetter().set(owner, copy);
+            traversal.replaced(persistentCollection, part, copy);
+        }
+        return initialized;
+    }
+
+    /**
+     * Unmodifiable copy of an initialized collection, keeping its order and the kind of collection.
+     */
+    private static Collection<?> unmodifiableCopy(Collection<?> collection) {
+        if (collection instanceof SortedSet) {
+            return Collections.unmodifiableSortedSet(new TreeSet<>((SortedSet<?>) collection));
+        } else if (collection instanceof Set) {
+            return Collections.unmodifiableSet(new LinkedHashSet<>(collection));
+        } else if (collection instanceof List) {
+            return Collections.unmodifiableList(new ArrayList<>(collection));
+        } else {
+            return Collections.unmodifiableCollection(new ArrayList<>(collection));
+        }
+    }
+
+    /**
+     * Load the uninitialized polymorphic proxies among the entities and their to-one attributes in batches,
+     * if the entity type may have some.
+     */
+    void loadPolymorphic(Collection<?> entities, EntityMappingType entityType, ModelPart part, Traversal traversal) {
+        var candidate = polymorphicCandidates.get(entityType);
+        if (candidate == null) {
+            candidate = polymorphicCandidates.computeIfAbsent(entityType, PolymorphicLoader::isCandidate);
+        }
+        if (candidate) {
+            PolymorphicLoader.load(this, entities, entityType, part, traversal);
+        }
+    }
+
+    /**
+     * Load the polymorphic proxies among the root entities, and the attributes of the root entities in batches,
+     * per root entity type of their hierarchies.
+     */
+    private void loadAhead(Collection<?> entities, Traversal traversal) {
+        EntityMappingType rootType = null;
+        boolean mixed = false;
+        for (var entity : entities) {
+            if (entity != null) {
+                var type = entityType(entity).getRootEntityDescriptor();
+                mixed |= rootType != null && type != rootType;
+                rootType = type;
+            }
+        }
+        if (rootType == null) {
+            return;
+        } else if (!mixed) {
+            loadPolymorphic(entities, rootType, rootType, traversal);
+            loadBatches(entities, rootType, traversal);
+            return;
+        }
+
+        // Entities of unrelated hierarchies.
+        var entitiesPerRootType = new LinkedHashMap<EntityMappingType, List<Object>>();
+        for (var entity : entities) {
+            if (entity != null) {
+                entitiesPerRootType.computeIfAbsent(
+                        entityType(entity).getRootEntityDescriptor(), type -> new ArrayList<>()).add(entity);
+            }
+        }
+        entitiesPerRootType.forEach((type, sameRoot) -> {
+            loadPolymorphic(sameRoot, type, type, traversal);
+            loadBatches(sameRoot, type, traversal);
+        });
+    }
+
+    /**
+     * Load the uninitialized collections and proxies of the attributes of the entities in batches,
+     * if batching is enabled.
+     */
+    void loadBatches(Collection<?> entities, EntityMappingType entityType, Traversal traversal) {
+        if (settings.getBatching() != null && entities.size() > 1) {
+            var loader = new BatchLoader(this, settings);
+            loader.addAttributes(entities, entityType);
+            loader.load(traversal);
+        }
+    }
+
+    /**
+     * Has the collection fast indexed access?.
+     * Hibernate's lists are backed by array lists, but do not implement {@link RandomAccess}.
+     */
+    private static boolean isIndexed(Collection<?> collection) {
+        return collection instanceof RandomAccess ||
+                collection instanceof PersistentBag || collection instanceof PersistentList;
+    }
+
+    /**
+     * Receives the attribute values of {@link GeneratedHydrator}s during a traversal.
+     */
+    final class GeneratedSink implements GeneratedHydrator.Sink {
+        private final Traversal traversal;
+
+        /**
+         * Attributes per index of the generated hydrator of the current entity.
+         */
+        private AttributeMapping[] parts;
+
+        private GeneratedSink(Traversal traversal) {
+            this.traversal = traversal;
+        }
+
+        @Override
+        public void entity(int index, Object entity) {
+            var part = parts[index];
+            if (part != null) {
+                deepInflateProperty(entity, part, traversal);
+            }
+        }
+
+        @Override
+        public void embeddable(int index, Object embeddable) {
+            var part = parts[index];
+            if (part != null) {
+                deepInflateProperty(embeddable, part, traversal);
+            }
+        }
+
+        @Override
+        public void collection(int index, Collection<?> collection) {
+            var part = parts[index];
+            if (part != null) {
+                deepInflateProperty(collection, part, traversal);
+            }
+        }
+
+        @Override
+        public void map(int index, Map<?, ?> map) {
+            var part = parts[index];
+            if (part != null) {
+                deepInflateProperty(map, part, traversal);
+            }
+        }
     }
 }
@@ -0,0 +1,117 @@
+package com.javaetmoi.core.persistence.hibernate;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.SessionFactoryObserver;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Registry of one hydrator per session factory, so that its plans and caches are reused.
+ * <p>
+ * The session factories are weakly referenced.
+ * Because the hydrators reference their session factory too,
+ * the entries are released by a {@link SessionFactoryObserver} when the session factory closes.
+ * </p>
+ */
+final class HydratorRegistry {
+    /**
+     * Hydrators per session factory.
+     * Guarded by itself.
+     */
+    private static final Map<SessionFactoryImplementor, HydratorImpl> HYDRATORS = new WeakHashMap<>();
+
+    /**
+     * The last requested entry: Avoids locking for the common case of a single session factory.
+     */
+    private static volatile Entry last;
+
+    /**
+     * No-arg constructor.
+     */
+    private HydratorRegistry() {
+        // Private visibility because utility class.
+    }
+
+    /**
+     * Get the hydrator of the session factory. Creates it, if needed.
+     * The hydrator of a closed session factory is not registered.
+     *
+     * @param entityManagerFactory
+     *            Open {@link EntityManagerFactory} or {@link SessionFactory}.
+     * @return Hydrator without excludes.
+     */
+    static HydratorImpl hydrator(EntityManagerFactory entityManagerFactory) {
+        var sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        var entry = last;
+        if (entry != null && entry.sessionFactory == sessionFactory) {
+            return entry.hydrator;
+        }
+
+        HydratorImpl hydrator;
+        synchronized (HYDRATORS) {
+            if (sessionFactory.isClosed()) {
+                // Would never be released.
+                return new HydratorImpl(sessionFactory);
+            }
+            hydrator = HYDRATORS.get(sessionFactory);
+            if (hydrator == null) {
+                hydrator = new HydratorImpl(sessionFactory);
+                HYDRATORS.put(sessionFactory, hydrator);
+                sessionFactory.addObserver(new Release());
+            }
+            last = new Entry(sessionFactory, hydrator);
+        }
+        return hydrator;
+    }
+
+    /**
+     * Is there a hydrator for the session factory?.
+     */
+    static boolean isRegistered(SessionFactory sessionFactory) {
+        synchronized (HYDRATORS) {
+            return HYDRATORS.containsKey(sessionFactory);
+        }
+    }
+
+    /**
+     * Release the hydrator of the session factory.
+     */
+    private static void release(SessionFactory sessionFactory) {
+        synchronized (HYDRATORS) {
+            HYDRATORS.remove(sessionFactory);
+            var entry = last;
+            if (entry != null && entry.sessionFactory == sessionFactory) {
+                last = null;
+            }
+        }
+    }
+
+    /**
+     * Pair of session factory and its hydrator.
+     */
+    private static final class Entry {
+        private final SessionFactoryImplementor sessionFactory;
+        private final HydratorImpl hydrator;
+
+        private Entry(SessionFactoryImplementor sessionFactory, HydratorImpl hydrator) {
+            this.sessionFactory = sessionFactory;
+            this.hydrator = hydrator;
+        }
+    }
+
+    /**
+     * Releases the hydrator when its session factory closes.
+     */
+    private static final class Release implements SessionFactoryObserver {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public void sessionFactoryClosed(SessionFactory sessionFactory) {
+            release(sessionFactory);
+        }
+    }
+}
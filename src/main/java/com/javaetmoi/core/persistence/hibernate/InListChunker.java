@@ -0,0 +1,106 @@
+package com.javaetmoi.core.persistence.hibernate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.hibernate.dialect.Dialect;
+
+/**
+ * Splits lists of ids into the in-lists of batch queries.
+ * <p>
+ * The in-lists respect the limits of the dialect on the number of in-list elements and of bind parameters.
+ * Each in-list is padded to a power of two by repeating its last id, so a query has few distinct shapes,
+ * which stay prepared in the statement caches of the driver and the database.
+ * </p>
+ */
+final class InListChunker {
+    /**
+     * Maximum in-list length for databases without limit.
+     */
+    static final int MAX_CHUNK_SIZE = 1024;
+
+    /**
+     * Bind parameters left to the other parameters of the queries.
+     */
+    private static final int RESERVED_PARAMETERS = 16;
+
+    /**
+     * Maximum in-list length, a power of two.
+     */
+    private final int maxChunkSize;
+
+    /**
+     * Constructor.
+     *
+     * @param dialect
+     *            Dialect of the database.
+     */
+    InListChunker(Dialect dialect) {
+        int limit = MAX_CHUNK_SIZE;
+        if (dialect.getInExpressionCountLimit() > 0) {
+            limit = Math.min(limit, dialect.getInExpressionCountLimit());
+        }
+        int parameterCountLimit = parameterCountLimit(dialect);
+        if (parameterCountLimit > RESERVED_PARAMETERS) {
+            limit = Math.min(limit, parameterCountLimit - RESERVED_PARAMETERS);
+        }
+        this.maxChunkSize = Integer.highestOneBit(limit);
+    }
+
+    /**
+     * Limit of the dialect on the number of bind parameters of a statement, 0 if none.
+     * Not declared by all supported Hibernate versions.
+     */
+    private static int parameterCountLimit(Dialect dialect) {
+        try {
+            return (int) Dialect.class.getMethod("getParameterCountLimit").invoke(dialect);
+        } catch (ReflectiveOperationException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Maximum in-list length, a power of two.
+     */
+    int getMaxChunkSize() {
+        return maxChunkSize;
+    }
+
+    /**
+     * Split the ids into padded in-lists.
+     *
+     * @param ids
+     *            Distinct ids.
+     * @param batchSize
+     *            Maximum number of ids per in-list, further limited by the dialect
+     *            and rounded down to a power of two.
+     * @param action
+     *            Called with each in-list.
+     * @return Number of in-lists.
+     */
+    int forEachChunk(List<?> ids, int batchSize, Consumer<List<Object>> action) {
+        int chunkSize = Integer.highestOneBit(Math.max(1, Math.min(batchSize, maxChunkSize)));
+        int chunks = 0;
+        for (int i = 0; i < ids.size(); i += chunkSize) {
+            action.accept(pad(ids.subList(i, Math.min(i + chunkSize, ids.size()))));
+            chunks++;
+        }
+        return chunks;
+    }
+
+    /**
+     * Pad the in-list to the next power of two by repeating its last id.
+     */
+    static List<Object> pad(List<?> chunk) {
+        int size = chunk.size();
+        int paddedSize = size <= 1 ? size : Integer.highestOneBit(size - 1) << 1;
+        var result = new ArrayList<Object>(paddedSize);
+        result.addAll(chunk);
+        var last = chunk.get(size - 1);
+        while (result.size() < paddedSize) {
+            result.add(last);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,125 @@
+package com.javaetmoi.core.persistence.hibernate;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.temporal.Temporal;
+import java.util.Date;
+
+import org.hibernate.metamodel.mapping.BasicValuedModelPart;
+import org.hibernate.metamodel.mapping.EmbeddableValuedModelPart;
+import org.hibernate.metamodel.mapping.EntityMappingType;
+import org.hibernate.metamodel.mapping.ManagedMappingType;
+import org.hibernate.metamodel.mapping.ModelPart;
+
+/**
+ * Cheap estimate of the heap retained by hydrated entities and collections, see {@link Hydrator#withMemoryBudget(long)}.
+ * <p>
+ * The size of an entity is derived from its mapping: the object header, a field per attribute,
+ * the values of its basic and embedded attributes, and what the persistence context keeps per managed entity.
+ * Strings and other variable-length values are counted at an average size, so the estimate is coarse,
+ * but it grows with the graph and is cheap enough to be updated for each entity.
+ * Targets of associations are counted by their own entities and collections.
+ * </p>
+ */
+final class MemoryEstimator {
+    private static final int OBJECT_HEADER = 12;
+
+    /**
+     * Size of a reference, with compressed pointers.
+     */
+    private static final int REFERENCE = 4;
+
+    /**
+     * Entity entry, entity key, loaded state array and map entries of a managed entity.
+     */
+    private static final int MANAGED_ENTITY = 160;
+
+    /**
+     * Persistent collection, its backing collection, snapshot and collection entry.
+     */
+    private static final int COLLECTION = 160;
+
+    /**
+     * Backing collection slot, hash node and snapshot slot of an element.
+     */
+    private static final int COLLECTION_ELEMENT = 48;
+
+    private MemoryEstimator() {
+    }
+
+    /**
+     * Estimated size of an entity of the given type, including its entry in the persistence context.
+     */
+    static long entitySize(EntityMappingType entityType) {
+        var identifier = entityType.getIdentifierMapping();
+        return align(OBJECT_HEADER + fieldSize(identifier) + attributesSize(entityType)) + valueSize(identifier) +
+                MANAGED_ENTITY + (long) REFERENCE * entityType.getNumberOfAttributeMappings();
+    }
+
+    /**
+     * Estimated size of a collection with the given number of elements, without the elements.
+     */
+    static long collectionSize(int elements) {
+        return COLLECTION + (long) COLLECTION_ELEMENT * elements;
+    }
+
+    private static long attributesSize(ManagedMappingType type) {
+        long size = 0;
+        for (int i = 0; i < type.getNumberOfAttributeMappings(); i++) {
+            var attribute = type.getAttributeMapping(i);
+            size += fieldSize(attribute) + valueSize(attribute);
+        }
+        return size;
+    }
+
+    private static int fieldSize(ModelPart part) {
+        var javaType = part.getJavaType().getJavaTypeClass();
+        if (javaType == long.class || javaType == double.class) {
+            return 8;
+        } else if (javaType == int.class || javaType == float.class) {
+            return 4;
+        } else if (javaType == short.class || javaType == char.class) {
+            return 2;
+        } else if (javaType == byte.class || javaType == boolean.class) {
+            return 1;
+        }
+        return REFERENCE;
+    }
+
+    /**
+     * Estimated size of the value referenced by the field of a basic or embedded attribute.
+     * Associations, primitives and enums count nothing.
+     */
+    private static long valueSize(ModelPart part) {
+        if (part instanceof EmbeddableValuedModelPart) {
+            var embeddableType = ((EmbeddableValuedModelPart) part).getEmbeddableTypeDescriptor();
+            return align(OBJECT_HEADER + attributesSize(embeddableType));
+        }
+        if (part instanceof BasicValuedModelPart) {
+            return basicValueSize(part.getJavaType().getJavaTypeClass());
+        }
+        return 0;
+    }
+
+    private static long basicValueSize(Class<?> javaType) {
+        if (javaType.isPrimitive() || javaType.isEnum()) {
+            return 0;
+        } else if (javaType == BigDecimal.class || javaType == BigInteger.class) {
+            return 64;
+        } else if (javaType == Long.class || javaType == Double.class) {
+            return 24;
+        } else if (Number.class.isAssignableFrom(javaType) || javaType == Boolean.class || javaType == Character.class) {
+            return 16;
+        } else if (javaType == String.class) {
+            // Header, hash, coder and array reference, and an array of 16 Latin-1 characters.
+            return 24 + 32;
+        } else if (Temporal.class.isAssignableFrom(javaType) || Date.class.isAssignableFrom(javaType)) {
+            return 24;
+        }
+        return 64;
+    }
+
+    private static long align(long size) {
+        return (size + 7) & ~7L;
+    }
+}
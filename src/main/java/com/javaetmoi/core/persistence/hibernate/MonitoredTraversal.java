@@ -0,0 +1,228 @@
+package com.javaetmoi.core.persistence.hibernate;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.hibernate.Hibernate;
+import org.hibernate.metamodel.mapping.EntityValuedModelPart;
+import org.hibernate.metamodel.mapping.ModelPart;
+import org.hibernate.metamodel.model.domain.NavigableRole;
+
+import com.javaetmoi.core.persistence.hibernate.HydrationBudgetReport.Limit;
+import com.javaetmoi.core.persistence.hibernate.HydrationBudgetReport.RoleUsage;
+
+/**
+ * Traversal that checks a {@link Budget} and the cancellation, and reports the progress,
+ * before each entity and collection and before and after each query of the hydrator.
+ * <p>
+ * Each initialization of a proxy or collection is counted as one statement,
+ * as are the queries of the hydrator itself.
+ * The size of each entity and collection is estimated by the {@link MemoryEstimator}.
+ * When the budget is exceeded, the traversal either fails or stops expanding the graph.
+ * </p>
+ */
+class MonitoredTraversal extends Traversal {
+    /**
+     * Budget, {@code null} if none.
+     */
+    private final Budget budget;
+
+    /**
+     * Settings of the cancellation and progress.
+     */
+    private final HydrationSettings settings;
+
+    /**
+     * Hydrator, for the estimated sizes.
+     */
+    private final HydratorImpl hydrator;
+
+    /**
+     * Start of the traversal, see {@link System#nanoTime()}.
+     */
+    private final long start;
+
+    /**
+     * Deadline, see {@link System#nanoTime()}.
+     */
+    private final long deadline;
+
+    /**
+     * Next progress report, see {@link System#nanoTime()}.
+     */
+    private long nextProgress;
+
+    /**
+     * Number of entities, statements and estimated bytes per role.
+     */
+    private final Map<NavigableRole, long[]> usages = new LinkedHashMap<>();
+
+    private long entities;
+
+    private long statements;
+
+    private long bytes;
+
+    /**
+     * Number of entities and collections being expanded.
+     */
+    private int depth;
+
+    /**
+     * Report of the exceeded budget, {@code null} if not exceeded.
+     */
+    private HydrationBudgetReport exceeded;
+
+    /**
+     * Constructor.
+     *
+     * @param capacity
+     *            Initial capacity of the recursive guard.
+     * @param settings
+     *            Settings with a budget, a cancellation or a progress listener.
+     * @param hydrator
+     *            Hydrator, for the estimated sizes.
+     */
+    MonitoredTraversal(int capacity, HydrationSettings settings, HydratorImpl hydrator) {
+        super(capacity);
+        this.budget = settings.getBudget();
+        this.settings = settings;
+        this.hydrator = hydrator;
+        this.start = System.nanoTime();
+        this.deadline = budget != null ?
+                start + Math.min(budget.getDeadline().toNanos(), Long.MAX_VALUE / 2) : Long.MAX_VALUE;
+        this.nextProgress = settings.getProgressListener() != null ?
+                start + settings.getProgressInterval().toNanos() : Long.MAX_VALUE;
+    }
+
+    @Override
+    boolean initialize(Object lazy, ModelPart part) {
+        if (exceeded != null) {
+            // Partial hydration: Stop expanding.
+            return false;
+        }
+        var now = checkpoint();
+        if (budget != null && now - deadline > 0) {
+            return exceed(Limit.DEADLINE);
+        }
+
+        var isEntity = part instanceof EntityValuedModelPart;
+        if (budget != null && isEntity && entities >= budget.getMaxEntities()) {
+            return exceed(Limit.ENTITIES);
+        }
+        var isLoad = !Hibernate.isInitialized(lazy);
+        if (budget != null && isLoad && statements >= budget.getMaxStatements()) {
+            return exceed(Limit.STATEMENTS);
+        }
+        if (budget != null && bytes >= budget.getMaxBytes()) {
+            return exceed(Limit.MEMORY);
+        }
+
+        var usage = usages.computeIfAbsent(part.getNavigableRole(), role -> new long[3]);
+        if (isEntity) {
+            entities++;
+            usage[0]++;
+        }
+        if (isLoad) {
+            statements++;
+            usage[1]++;
+            Hibernate.initialize(lazy);
+        }
+        var size = isEntity ? hydrator.estimateSize(Hibernate.unproxy(lazy)) : MemoryEstimator.collectionSize(
+                lazy instanceof Map ? ((Map<?, ?>) lazy).size() : ((Collection<?>) lazy).size());
+        bytes += size;
+        usage[2] += size;
+        depth++;
+        return true;
+    }
+
+    @Override
+    void leave() {
+        depth--;
+    }
+
+    @Override
+    boolean canQuery(ModelPart part) {
+        if (exceeded != null) {
+            // Partial hydration: Stop loading.
+            return false;
+        }
+        var now = checkpoint();
+        if (budget == null) {
+            return true;
+        } else if (now - deadline > 0) {
+            return exceed(Limit.DEADLINE);
+        } else if (statements >= budget.getMaxStatements()) {
+            return exceed(Limit.STATEMENTS);
+        } else if (bytes >= budget.getMaxBytes()) {
+            return exceed(Limit.MEMORY);
+        }
+        return true;
+    }
+
+    @Override
+    void queried(ModelPart part, int count) {
+        statements += count;
+        usages.computeIfAbsent(part.getNavigableRole(), role -> new long[3])[1] += count;
+        checkpoint();
+    }
+
+    @Override
+    void resolved(ModelPart part) {
+        entities++;
+        usages.computeIfAbsent(part.getNavigableRole(), role -> new long[3])[0]++;
+        checkpoint();
+    }
+
+    /**
+     * Check the cancellation and report the progress, if due.
+     *
+     * @return Now, see {@link System#nanoTime()}.
+     */
+    private long checkpoint() {
+        var cancellation = settings.getCancellation();
+        if (Thread.currentThread().isInterrupted() || (cancellation != null && cancellation.getAsBoolean())) {
+            throw new HydrationCancelledException(progress(System.nanoTime(), false));
+        }
+
+        var now = System.nanoTime();
+        if (now - nextProgress >= 0) {
+            settings.getProgressListener().progress(progress(now, false));
+            nextProgress = now + settings.getProgressInterval().toNanos();
+        }
+        return now;
+    }
+
+    private HydrationProgress progress(long now, boolean completed) {
+        return new HydrationProgress(getVisitedCount(), statements, depth, bytes, Duration.ofNanos(now - start),
+                completed);
+    }
+
+    private boolean exceed(Limit limit) {
+        var roles = new LinkedHashMap<NavigableRole, RoleUsage>();
+        usages.forEach((role, usage) -> roles.put(role, new RoleUsage(usage[0], usage[1], usage[2])));
+        exceeded = new HydrationBudgetReport(limit, Duration.ofNanos(System.nanoTime() - start), roles);
+        if (budget.getOnExceeded(limit) == null) {
+            throw new HydrationBudgetExceededException(exceeded);
+        }
+        return false;
+    }
+
+    @Override
+    void finish() {
+        if (settings.getProgressListener() != null) {
+            settings.getProgressListener().progress(progress(System.nanoTime(), true));
+        }
+        if (exceeded != null) {
+            budget.getOnExceeded(exceeded.getLimit()).accept(exceeded);
+        }
+    }
+
+    @Override
+    boolean reset() {
+        // Not reused: The budget and progress apply to a single hydration.
+        return false;
+    }
+}
@@ -0,0 +1,193 @@
+package com.javaetmoi.core.persistence.hibernate;
+
+import java.util.AbstractList;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.metamodel.mapping.EntityValuedModelPart;
+import org.hibernate.metamodel.mapping.PluralAttributeMapping;
+
+/**
+ * Detached placeholder of a large collection, that loads its elements in pages when they are accessed.
+ * <p>
+ * Each page is loaded and hydrated in a new short-lived session, so the placeholder does not need the session
+ * of its owner. Pages are kept once loaded.
+ * Elements of different pages are loaded by different sessions, so they do not share the entities they refer to.
+ * The placeholder is read-only.
+ * </p>
+ *
+ * @param <E>
+ *            Type of the elements.
+ */
+final class PagedCollection<E> {
+    /**
+     * Hydrator of the pages.
+     */
+    private final HydratorImpl hydrator;
+
+    /**
+     * Session factory to load the pages with.
+     */
+    private final SessionFactoryImplementor sessionFactory;
+
+    /**
+     * Query of the elements of the owner, ordered.
+     */
+    private final String query;
+
+    /**
+     * Id of the owner.
+     */
+    private final Object ownerId;
+
+    /**
+     * Number of elements.
+     */
+    private final int size;
+
+    /**
+     * Number of elements per page.
+     */
+    private final int pageSize;
+
+    /**
+     * Loaded pages, {@code null} if not loaded yet.
+     * Guarded by this.
+     */
+    private final List<?>[] pages;
+
+    /**
+     * Constructor.
+     *
+     * @param hydrator
+     *            Hydrator of the pages.
+     * @param sessionFactory
+     *            Session factory to load the pages with.
+     * @param part
+     *            Collection attribute of an entity with entity elements.
+     * @param ownerId
+     *            Id of the owner.
+     * @param size
+     *            Number of elements.
+     * @param pageSize
+     *            Number of elements per page.
+     */
+    PagedCollection(HydratorImpl hydrator, SessionFactoryImplementor sessionFactory,
+            PluralAttributeMapping part, Object ownerId, int size, int pageSize) {
+        var owner = part.findContainingEntityMapping();
+        var elementType = ((EntityValuedModelPart) part.getElementDescriptor()).getEntityMappingType();
+        this.hydrator = hydrator;
+        this.sessionFactory = sessionFactory;
+        this.query = String.format("select e from %s o join o.%s e where o.%s = :id order by e.%s",
+                owner.getEntityName(), part.getAttributeName(),
+                owner.getEntityPersister().getIdentifierPropertyName(),
+                elementType.getEntityPersister().getIdentifierPropertyName());
+        this.ownerId = ownerId;
+        this.size = size;
+        this.pageSize = pageSize;
+        this.pages = new List<?>[(size + pageSize - 1) / pageSize];
+    }
+
+    /**
+     * Placeholder for the collection type of the attribute.
+     */
+    Collection<E> placeholder(Class<?> collectionType) {
+        return Set.class.isAssignableFrom(collectionType) ? new PagedSet() : new PagedList();
+    }
+
+    /**
+     * Is the collection a placeholder of a paged collection?.
+     */
+    static boolean isPlaceholder(Object collection) {
+        return collection instanceof PagedCollection.PagedList || collection instanceof PagedCollection.PagedSet;
+    }
+
+    /**
+     * Get an element, loading its page if needed.
+     */
+    @SuppressWarnings("unchecked")
+    E get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+        var page = page(index / pageSize);
+        var offset = index % pageSize;
+        // Elements may have been removed since the collection has been counted.
+        return offset < page.size() ? (E) page.get(offset) : null;
+    }
+
+    private synchronized List<?> page(int number) {
+        var page = pages[number];
+        if (page == null) {
+            page = sessionFactory.fromSession(session -> {
+                session.setDefaultReadOnly(true);
+                var elements = session.createQuery(query, Object.class)
+                        .setParameter("id", ownerId)
+                        .setFirstResult(number * pageSize)
+                        .setMaxResults(pageSize)
+                        .getResultList();
+                return hydrator.deepHydrateCollection(new ArrayList<>(elements));
+            });
+            pages[number] = page;
+        }
+        return page;
+    }
+
+    /**
+     * Iterator over all elements, loading the pages on the way.
+     */
+    private Iterator<E> iterator() {
+        return new Iterator<>() {
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            public E next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return get(index++);
+            }
+        };
+    }
+
+    /**
+     * Placeholder of lists and bags.
+     */
+    private final class PagedList extends AbstractList<E> {
+        @Override
+        public E get(int index) {
+            return PagedCollection.this.get(index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * Placeholder of sets.
+     */
+    private final class PagedSet extends AbstractSet<E> {
+        @Override
+        public Iterator<E> iterator() {
+            return PagedCollection.this.iterator();
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
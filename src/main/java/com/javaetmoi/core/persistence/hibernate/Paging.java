@@ -0,0 +1,29 @@
+package com.javaetmoi.core.persistence.hibernate;
+
+/**
+ * Paging of the large collections of a role, see {@link Hydrator#withPaging(Class, String, int, int)}.
+ */
+final class Paging {
+    /**
+     * Maximum number of elements to initialize a collection as usual.
+     */
+    private final int threshold;
+
+    /**
+     * Number of elements per page.
+     */
+    private final int pageSize;
+
+    Paging(int threshold, int pageSize) {
+        this.threshold = threshold;
+        this.pageSize = pageSize;
+    }
+
+    int getThreshold() {
+        return threshold;
+    }
+
+    int getPageSize() {
+        return pageSize;
+    }
+}
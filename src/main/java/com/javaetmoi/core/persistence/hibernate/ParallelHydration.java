@@ -0,0 +1,360 @@
+package com.javaetmoi.core.persistence.hibernate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+import org.hibernate.Hibernate;
+import org.hibernate.collection.spi.PersistentCollection;
+import org.hibernate.metamodel.mapping.AttributeMapping;
+import org.hibernate.metamodel.mapping.BasicValuedModelPart;
+import org.hibernate.metamodel.mapping.EmbeddableValuedModelPart;
+import org.hibernate.metamodel.mapping.EntityMappingType;
+import org.hibernate.metamodel.mapping.EntityValuedModelPart;
+import org.hibernate.metamodel.mapping.ModelPart;
+import org.hibernate.metamodel.mapping.PluralAttributeMapping;
+import org.hibernate.proxy.HibernateProxy;
+
+/**
+ * Hydration in rounds, see {@link Hydrator#withParallelScan(ForkJoinPool)}.
+ * <p>
+ * Each round scans the initialized part of the graph in parallel on a fork-join pool,
+ * and collects the uninitialized proxies and collections it reaches, the frontier.
+ * Then the calling thread, which owns the session, loads the frontier,
+ * and the next round scans from the loaded objects, until nothing is left to load.
+ * </p>
+ * <p>
+ * Scanners only read initialized objects and never run while the calling thread loads,
+ * so the session is only used by the calling thread.
+ * Starting and joining a round publish the loaded state to the scanners and back.
+ * </p>
+ */
+final class ParallelHydration {
+    /**
+     * Dispatches the attribute values to their scan.
+     */
+    private static final PropertyDispatcher<ParallelHydration> DISPATCHER = new PropertyDispatcher<>() {
+        @Override
+        public void entity(Object entity, EntityValuedModelPart part, ParallelHydration hydration) {
+            hydration.entity(entity, part);
+        }
+
+        @Override
+        public void embeddable(Object embeddable, EmbeddableValuedModelPart part, ParallelHydration hydration) {
+            hydration.embeddable(embeddable, part);
+        }
+
+        @Override
+        public void map(Map<?, ?> map, PluralAttributeMapping part, ParallelHydration hydration) {
+            hydration.plural(map, part);
+        }
+
+        @Override
+        public void collection(Collection<?> collection, PluralAttributeMapping part, ParallelHydration hydration) {
+            hydration.plural(collection, part);
+        }
+    };
+
+    /**
+     * Number of objects up to which a scanner does not fork.
+     */
+    private static final int SPLIT_THRESHOLD = 64;
+
+    private final HydratorImpl hydrator;
+
+    private final HydrationSettings settings;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Recursion guard shared by the scanners.
+     */
+    private final StripedGuard guard;
+
+    /**
+     * Uninitialized proxies and collections reached by the current round.
+     */
+    private final Queue<Node> frontier = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Traversal of the loads, used by the calling thread only.
+     */
+    private final Traversal loader = new Traversal(8);
+
+    ParallelHydration(HydratorImpl hydrator, HydrationSettings settings) {
+        this.hydrator = hydrator;
+        this.settings = settings;
+        this.pool = settings.getScanPool();
+        this.guard = new StripedGuard(pool.getParallelism() * 4);
+    }
+
+    /**
+     * Hydrate the entities. To be called by the thread owning their session.
+     *
+     * @param entities
+     *            Entities, proxies or {@code null}s.
+     */
+    void hydrate(Collection<?> entities) {
+        var nodes = new ArrayList<Node>(entities.size());
+        for (var entity : entities) {
+            if (entity != null) {
+                nodes.add(new Node(entity, hydrator.entityType(entity)));
+            }
+        }
+
+        var loaded = false;
+        while (!nodes.isEmpty()) {
+            pool.invoke(new Scan(nodes, 0, nodes.size(), loaded));
+            nodes = load();
+            loaded = true;
+        }
+    }
+
+    /**
+     * Load the frontier.
+     *
+     * @return Loaded proxies and collections.
+     */
+    private ArrayList<Node> load() {
+        var nodes = new ArrayList<Node>(frontier.size());
+        var proxies = new LinkedHashMap<EntityMappingType, List<Object>>();
+        var batchLoader = settings.getBatching() != null ? new BatchLoader(hydrator, settings) : null;
+        Node node;
+        while ((node = frontier.poll()) != null) {
+            if (node.part instanceof EntityValuedModelPart && hydrator.resolveReference(node.value)) {
+                // Hydrated by the cache.
+                loader.resolved(node.part);
+                continue;
+            }
+            nodes.add(node);
+            if (node.part instanceof EntityValuedModelPart) {
+                var entityType = ((EntityValuedModelPart) node.part).getEntityMappingType();
+                proxies.computeIfAbsent(entityType, type -> new ArrayList<>()).add(node.value);
+            }
+            if (batchLoader != null && node.part instanceof AttributeMapping) {
+                batchLoader.add((AttributeMapping) node.part, node.value);
+            }
+        }
+
+        proxies.forEach((entityType, entities) -> hydrator.loadPolymorphic(entities, entityType, entityType, loader));
+        if (batchLoader != null) {
+            batchLoader.load(loader);
+        }
+        for (var loaded : nodes) {
+            loader.initialize(loaded.value, loaded.part);
+        }
+        return nodes;
+    }
+
+    private void property(Object value, ModelPart part) {
+        DISPATCHER.property(value, part, this);
+    }
+
+    /**
+     * Scan a map or collection.
+     */
+    private void plural(Object value, PluralAttributeMapping part) {
+        if (!guard.visit(value)) {
+            return;
+        }
+        if (!Hibernate.isInitialized(value)) {
+            frontier.add(new Node(value, part));
+            return;
+        }
+        elements(value, part);
+    }
+
+    private void entity(Object entity, EntityValuedModelPart part) {
+        if (!guard.visit(entity)) {
+            return;
+        }
+        var lazyInitializer = HibernateProxy.extractLazyInitializer(entity);
+        if (lazyInitializer != null && lazyInitializer.isUninitialized()) {
+            frontier.add(new Node(entity, part));
+            return;
+        }
+        attributes(entity, part);
+    }
+
+    /**
+     * Scan the attributes of an initialized entity or proxy.
+     */
+    private void attributes(Object entity, EntityValuedModelPart part) {
+        var target = Hibernate.unproxy(entity);
+        if (target != entity && !guard.visit(target)) {
+            // Already reached without the proxy.
+            return;
+        }
+        attributes(target, hydrator.plan(target.getClass(), part.getEntityMappingType()));
+    }
+
+    private void embeddable(Object embeddable, EmbeddableValuedModelPart part) {
+        if (guard.visit(embeddable)) {
+            attributes(embeddable, hydrator.plan(part.getEmbeddableTypeDescriptor()));
+        }
+    }
+
+    private void attributes(Object owner, HydrationPlan plan) {
+        var parts = plan.getWalkedParts();
+        var accessors = plan.getWalkedAccessors();
+        for (int i = 0; i < parts.length; i++) {
+            if (!(parts[i] instanceof BasicValuedModelPart)) {
+                property(accessors[i].get(owner), parts[i]);
+            }
+        }
+    }
+
+    /**
+     * Scan the keys and elements of an initialized map or collection.
+     * Large ones are split into batches scanned by other workers.
+     */
+    private void elements(Object collection, PluralAttributeMapping part) {
+        var indexType = part.getIndexDescriptor();
+        var elementType = part.getElementDescriptor();
+        var isMap = collection instanceof Map;
+        var scanIndex = isMap && !(indexType instanceof BasicValuedModelPart);
+        var scanElement = !(elementType instanceof BasicValuedModelPart);
+        if (!scanIndex && !scanElement) {
+            return;
+        }
+
+        Iterator<?> elements;
+        if (collection instanceof PersistentCollection) {
+            elements = ((PersistentCollection<?>) collection).entries(part.getCollectionDescriptor());
+        } else if (isMap) {
+            elements = ((Map<?, ?>) collection).entrySet().iterator();
+        } else {
+            elements = ((Collection<?>) collection).iterator();
+        }
+        List<Node> batch = new ArrayList<>();
+        List<ForkJoinTask<?>> forks = null;
+        while (elements.hasNext()) {
+            var element = elements.next();
+            if (isMap) {
+                var entry = (Map.Entry<?, ?>) element;
+                if (scanIndex && entry.getKey() != null) {
+                    batch.add(new Node(entry.getKey(), indexType));
+                }
+                element = entry.getValue();
+            }
+            if (scanElement && element != null) {
+                batch.add(new Node(element, elementType));
+            }
+            if (batch.size() >= SPLIT_THRESHOLD) {
+                if (forks == null) {
+                    forks = new ArrayList<>();
+                }
+                forks.add(new Scan(batch, 0, batch.size(), false).fork());
+                batch = new ArrayList<>();
+            }
+        }
+
+        for (var node : batch) {
+            property(node.value, node.part);
+        }
+        if (forks != null) {
+            for (var fork : forks) {
+                fork.join();
+            }
+        }
+    }
+
+    /**
+     * Object to scan, with the model part by which it has been reached.
+     */
+    private static final class Node {
+        final Object value;
+
+        final ModelPart part;
+
+        Node(Object value, ModelPart part) {
+            this.value = value;
+            this.part = part;
+        }
+    }
+
+    /**
+     * Scan of a range of objects, split among the workers.
+     */
+    private final class Scan extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Node> nodes;
+
+        private final int from;
+
+        private final int to;
+
+        /**
+         * Whether the objects have just been loaded, and so have already been visited.
+         */
+        private final boolean loaded;
+
+        Scan(List<Node> nodes, int from, int to, boolean loaded) {
+            this.nodes = nodes;
+            this.from = from;
+            this.to = to;
+            this.loaded = loaded;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > SPLIT_THRESHOLD) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new Scan(nodes, from, middle, loaded), new Scan(nodes, middle, to, loaded));
+                return;
+            }
+
+            for (int i = from; i < to; i++) {
+                var node = nodes.get(i);
+                if (!loaded) {
+                    property(node.value, node.part);
+                } else if (node.part instanceof EntityValuedModelPart) {
+                    attributes(node.value, (EntityValuedModelPart) node.part);
+                } else {
+                    elements(node.value, (PluralAttributeMapping) node.part);
+                }
+            }
+        }
+    }
+
+    /**
+     * Recursion guard of concurrent scanners: Sets of visited objects, striped by identity hash code,
+     * each guarded by its own lock.
+     */
+    private static final class StripedGuard {
+        private final Traversal[] stripes;
+
+        private final int shift;
+
+        StripedGuard(int concurrency) {
+            int length = Integer.highestOneBit(Math.max(concurrency, 2) * 2 - 1);
+            this.stripes = new Traversal[length];
+            for (int i = 0; i < length; i++) {
+                stripes[i] = new Traversal(32);
+            }
+            this.shift = 32 - Integer.numberOfTrailingZeros(length);
+        }
+
+        /**
+         * Mark the given object as visited.
+         *
+         * @return {@code true} if the object has not been visited before.
+         */
+        boolean visit(Object object) {
+            // The high bits select the stripe, the sets of the stripes use the low bits.
+            var stripe = stripes[(System.identityHashCode(object) * 0x9E3779B9) >>> shift];
+            synchronized (stripe) {
+                return stripe.visit(object);
+            }
+        }
+    }
+}
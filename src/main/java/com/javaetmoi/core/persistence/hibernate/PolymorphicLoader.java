@@ -0,0 +1,196 @@
+package com.javaetmoi.core.persistence.hibernate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.hibernate.FlushMode;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.metamodel.mapping.EntityMappingType;
+import org.hibernate.metamodel.mapping.EntityValuedModelPart;
+import org.hibernate.metamodel.mapping.ModelPart;
+import org.hibernate.persister.entity.SingleTableEntityPersister;
+import org.hibernate.proxy.HibernateProxy;
+import org.hibernate.proxy.LazyInitializer;
+
+/**
+ * Batched resolution of uninitialized proxies of {@code JOINED} or {@code TABLE_PER_CLASS} hierarchies.
+ * <p>
+ * Initializing such a proxy one by one outer joins or unions the tables of all subclasses, once per proxy.
+ * Instead, the concrete classes of a batch of proxies are resolved first by a single query selecting only
+ * the ids and the types, i.e. the discriminator if the hierarchy declares one.
+ * Then each group of proxies of the same concrete class is loaded by a query targeted at that class,
+ * which reads the tables of that class only.
+ * Afterwards, initializing the proxies finds their entities in the persistence context.
+ * </p>
+ */
+final class PolymorphicLoader {
+    /**
+     * Hydrator, for the plans.
+     */
+    private final HydratorImpl hydrator;
+
+    /**
+     * Session of the proxies.
+     */
+    private final SharedSessionContractImplementor session;
+
+    /**
+     * Ids of the uninitialized proxies per entity type of the proxy.
+     */
+    private final Map<EntityMappingType, List<Object>> ids = new LinkedHashMap<>();
+
+    private PolymorphicLoader(HydratorImpl hydrator, SharedSessionContractImplementor session) {
+        this.hydrator = hydrator;
+        this.session = session;
+    }
+
+    /**
+     * Does initializing a proxy of the entity type outer join or union subclass tables?.
+     */
+    static boolean isPolymorphic(EntityMappingType entityType) {
+        return entityType.hasSubclasses() &&
+                !(entityType.getEntityPersister() instanceof SingleTableEntityPersister) &&
+                entityType.getEntityPersister().getIdentifierPropertyName() != null;
+    }
+
+    /**
+     * May the entities of the entity type be or refer to polymorphic proxies?.
+     * Subclasses may declare additional to-one attributes.
+     */
+    static boolean isCandidate(EntityMappingType entityType) {
+        if (isPolymorphic(entityType)) {
+            return true;
+        }
+        for (var type : entityType.getSubMappingTypes()) {
+            if (hasPolymorphicToOne(type)) {
+                return true;
+            }
+        }
+        return hasPolymorphicToOne(entityType);
+    }
+
+    private static boolean hasPolymorphicToOne(EntityMappingType entityType) {
+        for (int i = 0; i < entityType.getNumberOfAttributeMappings(); i++) {
+            var attribute = entityType.getAttributeMapping(i);
+            if (attribute instanceof EntityValuedModelPart &&
+                    isPolymorphic(((EntityValuedModelPart) attribute).getEntityMappingType())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Load the uninitialized polymorphic proxies among the entities and their to-one attributes in batches.
+     *
+     * @param hydrator
+     *            Hydrator.
+     * @param entities
+     *            Entities, proxies or {@code null}s.
+     * @param entityType
+     *            Common entity type of the entities.
+     * @param part
+     *            Model part of the entities.
+     * @param traversal
+     *            Traversal to check and report the statements to.
+     */
+    static void load(HydratorImpl hydrator, Iterable<?> entities, EntityMappingType entityType, ModelPart part,
+            Traversal traversal) {
+        PolymorphicLoader loader = null;
+        for (var entity : entities) {
+            if (entity == null) {
+                continue;
+            }
+            var lazyInitializer = HibernateProxy.extractLazyInitializer(entity);
+            if (lazyInitializer != null && lazyInitializer.isUninitialized()) {
+                loader = add(hydrator, loader, lazyInitializer);
+                continue;
+            }
+
+            var target = lazyInitializer != null ? lazyInitializer.getImplementation() : entity;
+            var toOnes = hydrator.plan(target.getClass(), entityType).getPolymorphicToOnes();
+            for (int i = 0; i < toOnes.length; i++) {
+                var toOneInitializer = HibernateProxy.extractLazyInitializer(toOnes[i].get(target));
+                if (toOneInitializer != null && toOneInitializer.isUninitialized()) {
+                    loader = add(hydrator, loader, toOneInitializer);
+                }
+            }
+        }
+
+        if (loader != null) {
+            loader.load(part, traversal);
+        }
+    }
+
+    /**
+     * Add the proxy to the batch, if it is polymorphic.
+     *
+     * @return Loader, created if needed and possible.
+     */
+    private static PolymorphicLoader add(
+            HydratorImpl hydrator, PolymorphicLoader loader, LazyInitializer lazyInitializer) {
+        var session = lazyInitializer.getSession();
+        if (session == null || !session.isOpenOrWaitingForAutoClose() ||
+                (loader != null && loader.session != session)) {
+            // Leave it to Hibernate.
+            return loader;
+        }
+
+        var entityType = hydrator.getMappingMetamodel().getEntityDescriptor(lazyInitializer.getEntityName());
+        if (!isPolymorphic(entityType) || hydrator.isReferenceData(entityType.getEntityName())) {
+            // Not polymorphic, or served by the cache of the reference data.
+            return loader;
+        }
+
+        var result = loader != null ? loader : new PolymorphicLoader(hydrator, session);
+        result.ids.computeIfAbsent(entityType, type -> new ArrayList<>()).add(lazyInitializer.getInternalIdentifier());
+        return result;
+    }
+
+    /**
+     * Load the batches, unless the traversal refuses the queries.
+     */
+    private void load(ModelPart part, Traversal traversal) {
+        var chunker = hydrator.getInListChunker();
+        ids.forEach((entityType, entityIds) -> {
+            if (entityIds.size() < 2) {
+                // A single proxy is initialized with a single statement by Hibernate.
+                return;
+            } else if (!traversal.canQuery(part)) {
+                return;
+            }
+
+            var idsPerClass = new LinkedHashMap<Class<?>, List<Object>>();
+            var query = String.format("select e.%s, type(e) from %s e where e.%s in (:ids)",
+                    identifier(entityType), entityType.getEntityName(), identifier(entityType));
+            int statements = chunker.forEachChunk(entityIds, Integer.MAX_VALUE,
+                    chunk -> session.createQuery(query, Object[].class)
+                            .setHibernateFlushMode(FlushMode.MANUAL)
+                            .setParameterList("ids", chunk)
+                            .getResultList()
+                            .forEach(row -> idsPerClass.computeIfAbsent((Class<?>) row[1], type -> new ArrayList<>())
+                                    .add(row[0])));
+            traversal.queried(part, statements);
+
+            for (var entry : idsPerClass.entrySet()) {
+                if (!traversal.canQuery(part)) {
+                    return;
+                }
+                var concreteType = hydrator.getMappingMetamodel().getEntityDescriptor(entry.getKey());
+                var concreteQuery = String.format("from %s e where e.%s in (:ids)",
+                        concreteType.getEntityName(), identifier(concreteType));
+                traversal.queried(part, chunker.forEachChunk(entry.getValue(), Integer.MAX_VALUE,
+                        chunk -> session.createQuery(concreteQuery, Object.class)
+                                .setHibernateFlushMode(FlushMode.MANUAL)
+                                .setParameterList("ids", chunk)
+                                .getResultList()));
+            }
+        });
+    }
+
+    private static String identifier(EntityMappingType entityType) {
+        return entityType.getEntityPersister().getIdentifierPropertyName();
+    }
+}
@@ -0,0 +1,70 @@
+package com.javaetmoi.core.persistence.hibernate;
+
+import java.util.Collection;
+import java.util.Map;
+
+import org.hibernate.metamodel.mapping.EmbeddableValuedModelPart;
+import org.hibernate.metamodel.mapping.EntityValuedModelPart;
+import org.hibernate.metamodel.mapping.ModelPart;
+import org.hibernate.metamodel.mapping.PluralAttributeMapping;
+
+/**
+ * Dispatch of the values of attributes, collection elements and map keys to the handler of their kind,
+ * see {@link #property(Object, ModelPart, Object)}. Basic values are not dispatched.
+ *
+ * @param <C>
+ *            Context passed to the handlers, e.g. the traversal.
+ */
+interface PropertyDispatcher<C> {
+    /**
+     * Handle an entity or proxy.
+     */
+    void entity(Object entity, EntityValuedModelPart part, C context);
+
+    /**
+     * Handle an embeddable.
+     */
+    void embeddable(Object embeddable, EmbeddableValuedModelPart part, C context);
+
+    /**
+     * Handle a map.
+     */
+    void map(Map<?, ?> map, PluralAttributeMapping part, C context);
+
+    /**
+     * Handle a collection.
+     */
+    void collection(Collection<?> collection, PluralAttributeMapping part, C context);
+
+    /**
+     * Dispatch a value to the handler of the kind of its model part.
+     *
+     * @param value
+     *            Value, maybe {@code null}.
+     * @param part
+     *            Model part of the value.
+     * @param context
+     *            Context passed to the handler.
+     * @throws UnsupportedOperationException if a plural attribute is neither a map nor a collection.
+     */
+    default void property(Object value, ModelPart part, C context) {
+        if (value == null) {
+            return;
+        }
+
+        if (part instanceof EntityValuedModelPart) {
+            entity(value, (EntityValuedModelPart) part, context);
+        } else if (part instanceof EmbeddableValuedModelPart) {
+            embeddable(value, (EmbeddableValuedModelPart) part, context);
+        } else if (part instanceof PluralAttributeMapping) {
+            if (value instanceof Map) {
+                map((Map<?, ?>) value, (PluralAttributeMapping) part, context);
+            } else if (value instanceof Collection) {
+                collection((Collection<?>) value, (PluralAttributeMapping) part, context);
+            } else {
+                throw new UnsupportedOperationException(String.format("Unsupported collection type %s for %s.",
+                        value.getClass().getSimpleName(), part.getNavigableRole().getFullPath()));
+            }
+        }
+    }
+}
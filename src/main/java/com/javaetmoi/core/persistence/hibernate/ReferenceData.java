@@ -0,0 +1,108 @@
+package com.javaetmoi.core.persistence.hibernate;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.hibernate.metamodel.mapping.EntityMappingType;
+
+/**
+ * In-memory cache of the entities of immutable entity types, see {@link Hydrator#withReferenceData(Class)}.
+ * <p>
+ * All entities of the types are loaded on first use by a session of their own, deep hydrated, and indexed by id.
+ * Once that session is closed, they are detached, and can be shared by all sessions and threads because they
+ * are immutable. Uninitialized proxies of these types are then initialized with the cached entities,
+ * without SQL, and without adding them to the persistence context.
+ * </p>
+ */
+final class ReferenceData {
+    /**
+     * Names of the cached entity types.
+     */
+    private final Set<String> entityNames;
+
+    /**
+     * Entities per id per entity name, {@code null} until loaded.
+     */
+    private volatile Map<String, Map<Object, Object>> entities;
+
+    private ReferenceData(Set<String> entityNames) {
+        this.entityNames = Set.copyOf(entityNames);
+    }
+
+    /**
+     * Copy of the given reference data, or new reference data, with another entity type.
+     * The copy has its own cache.
+     */
+    static ReferenceData with(ReferenceData referenceData, EntityMappingType entityType) {
+        var entityNames = new LinkedHashSet<String>();
+        if (referenceData != null) {
+            entityNames.addAll(referenceData.entityNames);
+        }
+        entityNames.add(entityType.getEntityName());
+        return new ReferenceData(entityNames);
+    }
+
+    /**
+     * Is the entity type cached?.
+     */
+    boolean contains(String entityName) {
+        return entityNames.contains(entityName);
+    }
+
+    /**
+     * Cached entity, loading the cache on first use.
+     *
+     * @param hydrator
+     *            Hydrator to hydrate the loaded entities with, without reference data.
+     * @return The entity, {@code null} if not found, e.g. because it has been inserted after the cache was loaded.
+     */
+    Object get(String entityName, Object id, HydratorImpl hydrator) {
+        var snapshot = entities;
+        if (snapshot == null) {
+            synchronized (this) {
+                snapshot = entities;
+                if (snapshot == null) {
+                    snapshot = load(hydrator);
+                    entities = snapshot;
+                }
+            }
+        }
+        var instances = snapshot.get(entityName);
+        return instances != null ? instances.get(id) : null;
+    }
+
+    /**
+     * Reload the cache.
+     * Proxies initialized before keep the formerly cached entities.
+     *
+     * @param hydrator
+     *            Hydrator to hydrate the loaded entities with, without reference data.
+     */
+    void refresh(HydratorImpl hydrator) {
+        var snapshot = load(hydrator);
+        synchronized (this) {
+            entities = snapshot;
+        }
+    }
+
+    private Map<String, Map<Object, Object>> load(HydratorImpl hydrator) {
+        var mappingMetamodel = hydrator.getMappingMetamodel();
+        var result = new HashMap<String, Map<Object, Object>>();
+        try (var session = hydrator.getSessionFactory().openSession()) {
+            session.setDefaultReadOnly(true);
+            for (var entityName : entityNames) {
+                var entityType = mappingMetamodel.getEntityDescriptor(entityName);
+                var loaded = hydrator.deepHydrateCollection(
+                        session.createQuery("from " + entityName, Object.class).getResultList());
+                var instances = new HashMap<Object, Object>();
+                for (var entity : loaded) {
+                    instances.put(entityType.getIdentifierMapping().getIdentifier(entity), entity);
+                }
+                result.put(entityName, Map.copyOf(instances));
+            }
+        }
+        return Map.copyOf(result);
+    }
+}
@@ -0,0 +1,95 @@
+package com.javaetmoi.core.persistence.hibernate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.BaseSessionEventListener;
+import org.hibernate.collection.spi.AbstractPersistentCollection;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.metamodel.mapping.PluralAttributeMapping;
+
+/**
+ * Collections of a session replaced in their managed owners by the hydrator, e.g. by paged placeholders.
+ * <p>
+ * A flush would wrap the replacements in new persistent collections, iterating them, and remove the replaced
+ * collections as unreferenced. So the replaced collections are put back into their owners while the session flushes,
+ * and the replacements afterwards. Hibernate thus neither loads nor writes anything for them,
+ * and the owners stay managed, e.g. for the cascades of other entities.
+ * </p>
+ */
+final class ReplacedCollections extends BaseSessionEventListener {
+    private static final long serialVersionUID = 1L;
+
+    private final SharedSessionContractImplementor session;
+
+    private final List<Replacement> replacements = new ArrayList<>();
+
+    /**
+     * Constructor.
+     *
+     * @param session
+     *            Session of the replaced collections.
+     */
+    ReplacedCollections(SharedSessionContractImplementor session) {
+        this.session = session;
+    }
+
+    /**
+     * Are the replaced collections of the given session?.
+     */
+    boolean isOf(SharedSessionContractImplementor session) {
+        return this.session == session;
+    }
+
+    /**
+     * Add a collection that has been replaced in its owner.
+     */
+    void add(AbstractPersistentCollection<?> collection, PluralAttributeMapping part, Object replacement) {
+        replacements.add(new Replacement(collection, part, replacement));
+    }
+
+    @Override
+    public void flushStart() {
+        replacements.forEach(Replacement::restore);
+    }
+
+    @Override
+    public void flushEnd(int numberOfEntities, int numberOfCollections) {
+        replacements.forEach(Replacement::replace);
+    }
+
+    @Override
+    public void partialFlushStart() {
+        replacements.forEach(Replacement::restore);
+    }
+
+    @Override
+    public void partialFlushEnd(int numberOfEntities, int numberOfCollections) {
+        replacements.forEach(Replacement::replace);
+    }
+
+    /**
+     * Collection replaced in its owner.
+     */
+    private static final class Replacement {
+        private final AbstractPersistentCollection<?> collection;
+        private final Object owner;
+        private final PluralAttributeMapping part;
+        private final Object replacement;
+
+        Replacement(AbstractPersistentCollection<?> collection, PluralAttributeMapping part, Object replacement) {
+            this.collection = collection;
+            this.owner = collection.getOwner();
+            this.part = part;
+            this.replacement = replacement;
+        }
+
+        void restore() {
+            part.getPropertyAccess().getSetter().set(owner, collection);
+        }
+
+        void replace() {
+            part.getPropertyAccess().getSetter().set(owner, replacement);
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package com.javaetmoi.core.persistence.hibernate;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.hibernate.FlushMode;
+import org.hibernate.Hibernate;
+import org.hibernate.Session;
+import org.hibernate.metamodel.mapping.EntityMappingType;
+import org.hibernate.metamodel.mapping.EntityValuedModelPart;
+import org.hibernate.metamodel.mapping.ModelPart;
+import org.hibernate.metamodel.mapping.PluralAttributeMapping;
+import org.hibernate.proxy.HibernateProxy;
+
+/**
+ * Traversal that does not initialize anything but collects the versioned entities of a detached graph,
+ * to check them against the database, see {@link Hydrator#revalidate(Object)}.
+ * <p>
+ * Uninitialized proxies and collections, and the placeholders of paged collections, are not entered.
+ * The reloaded associations are resolved against the collected entities, so that each row stays a single instance.
+ * </p>
+ */
+class Revalidation extends Traversal {
+    private final HydratorImpl hydrator;
+
+    /**
+     * Versioned entities per root entity type, in the order of the traversal.
+     */
+    private final Map<EntityMappingType, List<Versioned>> versioned = new LinkedHashMap<>();
+
+    /**
+     * Collected entities, which may be reached by a proxy and without it.
+     */
+    private final Set<Object> collected = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /**
+     * Entities of the revalidated graph per root entity name and id: The collected ones, then the reloaded new ones.
+     */
+    private final Map<String, Map<Object, Object>> instances = new HashMap<>();
+
+    /**
+     * Entities of the revalidated graph whose state is current, or has been scheduled to be copied.
+     */
+    private final Set<Object> resolved = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /**
+     * Pairs of entity and reloaded entity whose state is to be copied into the first one.
+     */
+    private final Deque<Object[]> pending = new ArrayDeque<>();
+
+    /**
+     * Constructor.
+     *
+     * @param hydrator
+     *            Hydrator of the stale entities.
+     */
+    Revalidation(HydratorImpl hydrator) {
+        super(32);
+        this.hydrator = hydrator;
+    }
+
+    @Override
+    boolean initialize(Object lazy, ModelPart part) {
+        if (!Hibernate.isInitialized(lazy) || PagedCollection.isPlaceholder(lazy)) {
+            return false;
+        }
+        if (part instanceof EntityValuedModelPart) {
+            collect(Hibernate.unproxy(lazy));
+        }
+        return true;
+    }
+
+    @Override
+    boolean isLoading() {
+        // Nothing is loaded.
+        return false;
+    }
+
+    private void collect(Object entity) {
+        if (!collected.add(entity)) {
+            return;
+        }
+        var entityType = hydrator.getMappingMetamodel().getEntityDescriptor(entity.getClass());
+        instances.computeIfAbsent(entityType.getRootEntityDescriptor().getEntityName(), name -> new HashMap<>())
+                .put(entityType.getIdentifierMapping().getIdentifier(entity), entity);
+        if (entityType.isVersioned()) {
+            var persister = entityType.getEntityPersister();
+            versioned.computeIfAbsent(entityType.getRootEntityDescriptor(), rootType -> new ArrayList<>())
+                    .add(new Versioned(entity, entityType.getIdentifierMapping().getIdentifier(entity),
+                            persister.getVersion(entity)));
+        }
+    }
+
+    /**
+     * Check the collected entities with one version query per root entity type,
+     * then reload and hydrate the stale ones, and copy their state into the detached entities.
+     * The reloaded associations refer to the detached entities, whose state is copied too unless it is current.
+     *
+     * @param session
+     *            Session to query and reload with.
+     * @param root
+     *            Root of the traversal.
+     * @return The root, {@code null} if it has been deleted.
+     */
+    <E> E revalidate(Session session, E root) {
+        var stale = new LinkedHashMap<EntityMappingType, List<Versioned>>();
+        versioned.forEach((rootType, entities) -> {
+            var versions = versions(session, rootType, entities);
+            for (var entity : entities) {
+                // Missing versions are deleted entities.
+                if (!versions.containsKey(entity.id) || !Objects.equals(entity.version, versions.get(entity.id))) {
+                    stale.computeIfAbsent(rootType, type -> new ArrayList<>()).add(entity);
+                } else {
+                    resolved.add(entity.entity);
+                }
+            }
+        });
+
+        var result = root;
+        var reloaded = new ArrayList<>();
+        for (var entry : stale.entrySet()) {
+            var entities = entry.getValue();
+            var ids = new ArrayList<>(entities.size());
+            entities.forEach(entity -> ids.add(entity.id));
+            var fresh = session.byMultipleIds(entry.getKey().getEntityName()).multiLoad(ids);
+            var loaded = new ArrayList<>(fresh.size());
+            fresh.stream().filter(Objects::nonNull).forEach(loaded::add);
+            hydrator.deepHydrateCollection(loaded);
+            reloaded.addAll(loaded);
+            for (int i = 0; i < entities.size(); i++) {
+                if (fresh.get(i) == null && entities.get(i).entity == Hibernate.unproxy(root)) {
+                    result = null;
+                }
+            }
+        }
+
+        // Detach the reloaded entities, so that resolving their associations is neither flushed nor cascaded.
+        session.clear();
+        reloaded.forEach(this::resolve);
+        Object[] copy;
+        while ((copy = pending.poll()) != null) {
+            copyState(copy[0], copy[1]);
+        }
+        return result;
+    }
+
+    /**
+     * The entity of the revalidated graph for a reloaded entity or proxy:
+     * The detached entity of the same id, whose state is then copied if needed, or else the reloaded entity.
+     */
+    private Object resolve(Object fresh) {
+        var lazyInitializer = HibernateProxy.extractLazyInitializer(fresh);
+        var entityName = lazyInitializer != null ? lazyInitializer.getEntityName() : fresh.getClass().getName();
+        var entityType = hydrator.getMappingMetamodel().getEntityDescriptor(entityName);
+        var id = lazyInitializer != null ? lazyInitializer.getInternalIdentifier() :
+                entityType.getIdentifierMapping().getIdentifier(fresh);
+        var ids = instances.computeIfAbsent(entityType.getRootEntityDescriptor().getEntityName(),
+                name -> new HashMap<>());
+        var entity = ids.get(id);
+        if (entity == null) {
+            if (lazyInitializer != null && lazyInitializer.isUninitialized()) {
+                // Not hydrated, e.g. excluded.
+                return fresh;
+            }
+            entity = Hibernate.unproxy(fresh);
+            ids.put(id, entity);
+        }
+        if (resolved.add(entity) && Hibernate.isInitialized(fresh)) {
+            pending.add(new Object[] { entity, Hibernate.unproxy(fresh) });
+        }
+        return entity;
+    }
+
+    /**
+     * Copy the state of a reloaded entity into an entity of the revalidated graph, which may be the same,
+     * resolving its to-one attributes and the entities of its collections.
+     * Embeddables are copied as loaded.
+     */
+    private void copyState(Object entity, Object fresh) {
+        var entityType = hydrator.getMappingMetamodel().getEntityDescriptor(fresh.getClass());
+        var persister = entityType.getEntityPersister();
+        var values = persister.getValues(fresh);
+        for (int i = 0; i < entityType.getNumberOfAttributeMappings(); i++) {
+            var attribute = entityType.getAttributeMapping(i);
+            var value = values[attribute.getStateArrayPosition()];
+            if (value == null) {
+                continue;
+            } else if (attribute instanceof PluralAttributeMapping) {
+                resolveElements(value, (PluralAttributeMapping) attribute);
+            } else if (attribute instanceof EntityValuedModelPart) {
+                values[attribute.getStateArrayPosition()] = resolve(value);
+            }
+        }
+        persister.setValues(entity, values);
+    }
+
+    /**
+     * Replace the reloaded entities of an initialized collection or map by the entities of the revalidated graph.
+     */
+    @SuppressWarnings("unchecked")
+    private void resolveElements(Object collection, PluralAttributeMapping part) {
+        if (!(part.getElementDescriptor() instanceof EntityValuedModelPart) || !Hibernate.isInitialized(collection)) {
+            return;
+        }
+        if (collection instanceof Map) {
+            ((Map<Object, Object>) collection).replaceAll((key, value) -> value != null ? resolve(value) : null);
+        } else if (collection instanceof List) {
+            ((List<Object>) collection).replaceAll(element -> element != null ? resolve(element) : null);
+        } else if (collection instanceof Collection) {
+            var elements = new ArrayList<>((Collection<Object>) collection);
+            elements.replaceAll(element -> element != null ? resolve(element) : null);
+            ((Collection<Object>) collection).clear();
+            ((Collection<Object>) collection).addAll(elements);
+        }
+    }
+
+    /**
+     * Current versions of the entities of a root entity type, per id.
+     */
+    private Map<Object, Object> versions(Session session, EntityMappingType rootType, List<Versioned> entities) {
+        var query = String.format("select id(e), version(e) from %s e where id(e) in (:ids)",
+                rootType.getEntityName());
+        var ids = new ArrayList<>(entities.size());
+        entities.forEach(entity -> ids.add(entity.id));
+        var versions = new HashMap<Object, Object>();
+        hydrator.getInListChunker().forEachChunk(ids, Integer.MAX_VALUE, chunk -> {
+            for (var row : session.createQuery(query, Object[].class)
+                    .setHibernateFlushMode(FlushMode.MANUAL)
+                    .setParameterList("ids", chunk)
+                    .getResultList()) {
+                versions.put(row[0], row[1]);
+            }
+        });
+        return versions;
+    }
+
+    /**
+     * Versioned entity of the detached graph, with its id and version.
+     */
+    private static final class Versioned {
+        private final Object entity;
+        private final Object id;
+        private final Object version;
+
+        Versioned(Object entity, Object id, Object version) {
+            this.entity = entity;
+            this.id = id;
+            this.version = version;
+        }
+    }
+}
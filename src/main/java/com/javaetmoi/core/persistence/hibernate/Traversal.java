@@ -0,0 +1,219 @@
+package com.javaetmoi.core.persistence.hibernate;
+
+import java.util.Arrays;
+
+import org.hibernate.Hibernate;
+import org.hibernate.collection.spi.AbstractPersistentCollection;
+import org.hibernate.metamodel.mapping.ModelPart;
+import org.hibernate.metamodel.mapping.PluralAttributeMapping;
+
+/**
+ * State of a single traversal of an object graph by {@link HydratorImpl}.
+ * <p>
+ * The recursion guard is an open addressing identity hash set,
+ * so visiting an object does not allocate, and the traversal can be reset and reused.
+ * </p>
+ */
+class Traversal {
+    /**
+     * Maximum table length of a traversal to be reused.
+     * Bigger tables are left to the garbage collector, so that a single big graph does not pin memory.
+     */
+    private static final int MAX_REUSED_LENGTH = 1 << 14;
+
+    /**
+     * A guard to avoid endless recursion: Table of visited objects with linear probing.
+     * Its length is a power of two.
+     */
+    private Object[] recursiveGuard;
+
+    /**
+     * Number of visited objects.
+     */
+    private int size;
+
+    /**
+     * Sink of the generated hydrators, created on first use.
+     */
+    HydratorImpl.GeneratedSink sink;
+
+    /**
+     * Collections replaced in their owners of the session of the last replacement, {@code null} if none.
+     */
+    private ReplacedCollections replaced;
+
+    /**
+     * Constructor.
+     *
+     * @param capacity
+     *            Initial capacity of the recursive guard.
+     */
+    Traversal(int capacity) {
+        this.recursiveGuard = new Object[tableLength(capacity)];
+    }
+
+    /**
+     * Table length for the given number of objects, with a maximum load factor of 1/2.
+     */
+    private static int tableLength(int capacity) {
+        return Integer.highestOneBit(Math.max(capacity, 8) * 2 - 1) << 1;
+    }
+
+    /**
+     * Mark the given object as visited.
+     *
+     * @return {@code true} if the object has not been visited before.
+     */
+    boolean visit(Object object) {
+        var table = recursiveGuard;
+        int mask = table.length - 1;
+        int i = index(object, mask);
+        Object visited;
+        while ((visited = table[i]) != null) {
+            if (visited == object) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+
+        table[i] = object;
+        if (++size * 2 > table.length) {
+            resize();
+        }
+        return true;
+    }
+
+    private static int index(Object object, int mask) {
+        // Spread the identity hash codes, which may have poor low bits.
+        int hash = System.identityHashCode(object) * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private void resize() {
+        var oldTable = recursiveGuard;
+        var table = new Object[oldTable.length * 2];
+        int mask = table.length - 1;
+        for (var object : oldTable) {
+            if (object != null) {
+                int i = index(object, mask);
+                while (table[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                table[i] = object;
+            }
+        }
+        recursiveGuard = table;
+    }
+
+    /**
+     * Number of visited objects.
+     */
+    int getVisitedCount() {
+        return size;
+    }
+
+    /**
+     * Forget all visited objects, so that the traversal can be reused.
+     *
+     * @return Whether the traversal is small enough to be reused.
+     */
+    boolean reset() {
+        if (recursiveGuard.length > MAX_REUSED_LENGTH) {
+            return false;
+        }
+        Arrays.fill(recursiveGuard, null);
+        size = 0;
+        replaced = null;
+        return true;
+    }
+
+    /**
+     * Initialize a lazy entity, map or collection, if needed.
+     *
+     * @param lazy
+     *            Entity (or its proxy), map or collection.
+     * @param part
+     *            Model part of the lazy object.
+     * @return Whether to navigate into the object.
+     */
+    boolean initialize(Object lazy, ModelPart part) {
+        Hibernate.initialize(lazy);
+        return true;
+    }
+
+    /**
+     * The hydrator has finished expanding an entity or collection,
+     * for which {@link #initialize(Object, ModelPart)} returned {@code true}.
+     */
+    void leave() {
+        // Not tracked.
+    }
+
+    /**
+     * May the hydrator execute a query of its own, e.g. to load entities in batches?.
+     *
+     * @param part
+     *            Model part of the objects to load.
+     * @return Whether to execute it, otherwise the objects are left to {@link #initialize(Object, ModelPart)}.
+     */
+    boolean canQuery(ModelPart part) {
+        return true;
+    }
+
+    /**
+     * The hydrator executed queries of its own, e.g. to load entities in batches.
+     *
+     * @param part
+     *            Model part of the loaded objects.
+     * @param count
+     *            Number of statements.
+     */
+    void queried(ModelPart part, int count) {
+        // Not tracked.
+    }
+
+    /**
+     * The hydrator initialized a proxy with a cached entity of the reference data, without any statement.
+     *
+     * @param part
+     *            Model part of the entity.
+     */
+    void resolved(ModelPart part) {
+        // Not tracked.
+    }
+
+    /**
+     * The hydrator replaced a collection in its managed owner, e.g. by a paged placeholder.
+     * The replaced collection is put back while the session flushes, see {@link ReplacedCollections}.
+     *
+     * @param collection
+     *            Replaced collection, with its owner and session.
+     * @param part
+     *            Collection attribute.
+     * @param replacement
+     *            Collection set in the owner instead.
+     */
+    void replaced(AbstractPersistentCollection<?> collection, PluralAttributeMapping part, Object replacement) {
+        var session = collection.getSession();
+        if (replaced == null || !replaced.isOf(session)) {
+            replaced = new ReplacedCollections(session);
+            session.getEventListenerManager().addListener(replaced);
+        }
+        replaced.add(collection, part, replacement);
+    }
+
+    /**
+     * The traversal has completed.
+     */
+    void finish() {
+        // Nothing to do.
+    }
+
+    /**
+     * Whether the traversal loads lazy objects, that is, whether it may load them ahead or replace them.
+     */
+    boolean isLoading() {
+        return true;
+    }
+
+}
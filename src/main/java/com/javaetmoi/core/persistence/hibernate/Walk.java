@@ -0,0 +1,185 @@
+package com.javaetmoi.core.persistence.hibernate;
+
+import java.util.Collection;
+import java.util.Map;
+
+import org.hibernate.Hibernate;
+import org.hibernate.collection.spi.PersistentCollection;
+import org.hibernate.metamodel.mapping.EmbeddableValuedModelPart;
+import org.hibernate.metamodel.mapping.EntityMappingType;
+import org.hibernate.metamodel.mapping.EntityValuedModelPart;
+import org.hibernate.metamodel.mapping.ModelPart;
+import org.hibernate.metamodel.mapping.PluralAttributeMapping;
+
+/**
+ * Hydration of an object graph that reports it to a {@link HydrationVisitor} on the way.
+ * <p>
+ * Unlike the plain hydration, it navigates all attributes, including basic ones, in the order of the mapping,
+ * and it does not use generated hydrators.
+ * </p>
+ */
+final class Walk {
+    /**
+     * Dispatches the attribute values to their walk.
+     */
+    private static final PropertyDispatcher<Walk> DISPATCHER = new PropertyDispatcher<>() {
+        @Override
+        public void entity(Object entity, EntityValuedModelPart part, Walk walk) {
+            walk.entity(entity, part);
+        }
+
+        @Override
+        public void embeddable(Object embeddable, EmbeddableValuedModelPart part, Walk walk) {
+            walk.embeddable(embeddable, part);
+        }
+
+        @Override
+        public void map(Map<?, ?> map, PluralAttributeMapping part, Walk walk) {
+            walk.map(map, part);
+        }
+
+        @Override
+        public void collection(Collection<?> collection, PluralAttributeMapping part, Walk walk) {
+            walk.collection(collection, part);
+        }
+    };
+
+    private final HydratorImpl hydrator;
+
+    private final Traversal traversal;
+
+    private final HydrationVisitor visitor;
+
+    Walk(HydratorImpl hydrator, Traversal traversal, HydrationVisitor visitor) {
+        this.hydrator = hydrator;
+        this.traversal = traversal;
+        this.visitor = visitor;
+    }
+
+    private void property(Object value, ModelPart part) {
+        DISPATCHER.property(value, part, this);
+    }
+
+    /**
+     * Walk an entity.
+     */
+    void entity(Object entity, EntityValuedModelPart part) {
+        if (entity == null) {
+            return;
+        }
+        if (!traversal.visit(entity)) {
+            visitor.revisit(Hibernate.unproxy(entity), part);
+            return;
+        }
+        if (traversal.isLoading()) {
+            hydrator.resolveReference(entity);
+        }
+        if (!traversal.initialize(entity, part)) {
+            return;
+        }
+
+        var target = Hibernate.unproxy(entity);
+        if (target != entity && !traversal.visit(target)) {
+            visitor.revisit(target, part);
+            traversal.leave();
+            return;
+        }
+        var plan = hydrator.plan(target.getClass(), part.getEntityMappingType());
+        var entityType = (EntityMappingType) plan.getType();
+        if (visitor.enterEntity(target, entityType)) {
+            attributes(target, plan);
+            visitor.exitEntity(target, entityType);
+        }
+        traversal.leave();
+    }
+
+    private void embeddable(Object embeddable, EmbeddableValuedModelPart part) {
+        if (!traversal.visit(embeddable)) {
+            visitor.revisit(embeddable, part);
+            return;
+        }
+
+        if (visitor.enterEmbeddable(embeddable, part)) {
+            attributes(embeddable, hydrator.plan(part.getEmbeddableTypeDescriptor()));
+            visitor.exitEmbeddable(embeddable, part);
+        }
+    }
+
+    private void attributes(Object owner, HydrationPlan plan) {
+        var parts = plan.getWalkedParts();
+        var accessors = plan.getWalkedAccessors();
+        for (int i = 0; i < parts.length; i++) {
+            var value = accessors[i].get(owner);
+            if (visitor.attribute(owner, parts[i], value)) {
+                property(value, parts[i]);
+            }
+        }
+    }
+
+    private void map(Map<?, ?> map, PluralAttributeMapping part) {
+        if (!traversal.visit(map)) {
+            visitor.revisit(map, part);
+            return;
+        }
+        if (!traversal.initialize(map, part)) {
+            return;
+        }
+        if (!visitor.enterCollection(map, part)) {
+            traversal.leave();
+            return;
+        }
+
+        var indexType = part.getIndexDescriptor();
+        var elementType = part.getElementDescriptor();
+        var entries = map instanceof PersistentCollection ?
+                ((PersistentCollection<?>) map).entries(part.getCollectionDescriptor()) :
+                map.entrySet().iterator();
+        while (entries.hasNext()) {
+            var entry = (Map.Entry<?, ?>) entries.next();
+            if (visitor.key(entry.getKey(), part)) {
+                property(entry.getKey(), indexType);
+            }
+            if (visitor.element(entry.getValue(), part)) {
+                property(entry.getValue(), elementType);
+            }
+        }
+        visitor.exitCollection(map, part);
+        traversal.leave();
+    }
+
+    private void collection(Collection<?> collection, PluralAttributeMapping part) {
+        if (!traversal.visit(collection)) {
+            visitor.revisit(collection, part);
+            return;
+        }
+        if (traversal.isLoading() && hydrator.page(collection, part, traversal) != null) {
+            // Replaced by a placeholder, whose elements are loaded when accessed.
+            return;
+        }
+        if (!hydrator.initializeCollection(collection, part, traversal)) {
+            return;
+        }
+        if (!visitor.enterCollection(collection, part)) {
+            traversal.leave();
+            return;
+        }
+
+        var elementType = part.getElementDescriptor();
+        if (elementType instanceof EntityValuedModelPart && traversal.isLoading()) {
+            var entityType = ((EntityValuedModelPart) elementType).getEntityMappingType();
+            hydrator.loadPolymorphic(collection, entityType, part, traversal);
+            hydrator.loadBatches(collection, entityType, traversal);
+        }
+        var elements = collection instanceof PersistentCollection ?
+                ((PersistentCollection<?>) collection).entries(part.getCollectionDescriptor()) :
+                collection.iterator();
+        while (elements.hasNext()) {
+            var element = elements.next();
+            if (visitor.element(element, part)) {
+                property(element, elementType);
+            }
+        }
+        visitor.exitCollection(collection, part);
+        traversal.leave();
+    }
+}
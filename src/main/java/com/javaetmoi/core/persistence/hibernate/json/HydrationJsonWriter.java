@@ -0,0 +1,292 @@
+package com.javaetmoi.core.persistence.hibernate.json;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Map;
+
+import org.hibernate.metamodel.mapping.AttributeMapping;
+import org.hibernate.metamodel.mapping.BasicValuedModelPart;
+import org.hibernate.metamodel.mapping.EmbeddableValuedModelPart;
+import org.hibernate.metamodel.mapping.EntityMappingType;
+import org.hibernate.metamodel.mapping.EntityValuedModelPart;
+import org.hibernate.metamodel.mapping.ModelPart;
+import org.hibernate.metamodel.mapping.PluralAttributeMapping;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.javaetmoi.core.persistence.hibernate.HydrationVisitor;
+import com.javaetmoi.core.persistence.hibernate.Hydrator;
+
+/**
+ * Writes an object graph as JSON while it is hydrated, see {@link Hydrator#walk(Object, HydrationVisitor)}.
+ * <p>
+ * Entities and embeddables are written as objects with the attribute names of the mapping,
+ * entities with their identifier first. Collections are written as arrays, maps as objects.
+ * An entity that has been written before, e.g. because of a cycle, is written as its identifier.
+ * Keys of maps are written as their string value, or the identifier of entity keys, and are not walked into.
+ * Attributes that are not walked, e.g. paged collections, are omitted.
+ * </p>
+ * <p>
+ * Requires {@code com.fasterxml.jackson.core:jackson-core}, which is an optional dependency.
+ * Basic values are written with the codec of the generator, if any, and as numbers, booleans or strings otherwise.
+ * </p>
+ */
+public final class HydrationJsonWriter implements HydrationVisitor {
+    /**
+     * Number of written entities after which the generator is flushed.
+     */
+    private static final int FLUSH_INTERVAL = 256;
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final JsonGenerator generator;
+
+    /**
+     * Field name of the attribute to be written by the next value, {@code null} within arrays.
+     */
+    private String pendingName;
+
+    /**
+     * Entities written since the last flush.
+     */
+    private int unflushed;
+
+    /**
+     * Constructor.
+     *
+     * @param generator
+     *            Generator to write to. Not closed.
+     */
+    public HydrationJsonWriter(JsonGenerator generator) {
+        this.generator = generator;
+    }
+
+    /**
+     * Hydrate the entity and write it as JSON in a single traversal.
+     *
+     * @param hydrator
+     *            Hydrator.
+     * @param entity
+     *            An attached Hibernate entity. May be {@code null}.
+     * @param generator
+     *            Generator to write to. Flushed, but not closed.
+     * @throws IOException if writing fails.
+     */
+    public static void write(Hydrator hydrator, Object entity, JsonGenerator generator) throws IOException {
+        try {
+            if (entity == null) {
+                generator.writeNull();
+            } else {
+                hydrator.walk(entity, new HydrationJsonWriter(generator));
+            }
+            generator.flush();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Hydrate the entity and write it as UTF-8 encoded JSON in a single traversal.
+     *
+     * @param hydrator
+     *            Hydrator.
+     * @param entity
+     *            An attached Hibernate entity. May be {@code null}.
+     * @param out
+     *            Stream to write to. Flushed, but not closed.
+     * @throws IOException if writing fails.
+     */
+    public static void write(Hydrator hydrator, Object entity, OutputStream out) throws IOException {
+        try (var generator = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+            write(hydrator, entity, generator);
+        }
+    }
+
+    @Override
+    public boolean attribute(Object owner, AttributeMapping attribute, Object value) {
+        try {
+            if (value == null) {
+                generator.writeNullField(attribute.getAttributeName());
+                return false;
+            }
+            if (attribute instanceof BasicValuedModelPart) {
+                generator.writeFieldName(attribute.getAttributeName());
+                writeBasic(value);
+                return false;
+            }
+            // Written when the value is entered, so that attributes that are not walked are omitted.
+            pendingName = attribute.getAttributeName();
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public boolean enterEntity(Object entity, EntityMappingType entityType) {
+        try {
+            writePendingName();
+            generator.writeStartObject();
+            var identifierName = entityType.getEntityPersister().getIdentifierPropertyName();
+            if (identifierName != null) {
+                generator.writeFieldName(identifierName);
+                writeBasic(entityType.getIdentifierMapping().getIdentifier(entity));
+            }
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void exitEntity(Object entity, EntityMappingType entityType) {
+        // Attributes that have not been walked are omitted.
+        pendingName = null;
+        try {
+            generator.writeEndObject();
+            if (++unflushed >= FLUSH_INTERVAL) {
+                generator.flush();
+                unflushed = 0;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public boolean enterEmbeddable(Object embeddable, EmbeddableValuedModelPart part) {
+        try {
+            writePendingName();
+            generator.writeStartObject();
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void exitEmbeddable(Object embeddable, EmbeddableValuedModelPart part) {
+        // Attributes that have not been walked are omitted.
+        pendingName = null;
+        try {
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public boolean enterCollection(Object collection, PluralAttributeMapping part) {
+        try {
+            writePendingName();
+            if (collection instanceof Map) {
+                generator.writeStartObject();
+            } else {
+                generator.writeStartArray();
+            }
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public boolean key(Object key, PluralAttributeMapping part) {
+        var indexType = part.getIndexDescriptor();
+        pendingName = key != null && indexType instanceof EntityValuedModelPart ?
+                String.valueOf(((EntityValuedModelPart) indexType).getEntityMappingType()
+                        .getIdentifierMapping().getIdentifier(key)) :
+                String.valueOf(key);
+        return false;
+    }
+
+    @Override
+    public boolean element(Object element, PluralAttributeMapping part) {
+        try {
+            if (element == null) {
+                writePendingName();
+                generator.writeNull();
+                return false;
+            }
+            if (part.getElementDescriptor() instanceof BasicValuedModelPart) {
+                writePendingName();
+                writeBasic(element);
+                return false;
+            }
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void exitCollection(Object collection, PluralAttributeMapping part) {
+        // Attributes that have not been walked are omitted.
+        pendingName = null;
+        try {
+            if (collection instanceof Map) {
+                generator.writeEndObject();
+            } else {
+                generator.writeEndArray();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void revisit(Object object, ModelPart part) {
+        try {
+            writePendingName();
+            if (part instanceof EntityValuedModelPart) {
+                // Back-reference.
+                writeBasic(((EntityValuedModelPart) part).getEntityMappingType()
+                        .getIdentifierMapping().getIdentifier(object));
+            } else {
+                generator.writeNull();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writePendingName() throws IOException {
+        if (pendingName != null) {
+            generator.writeFieldName(pendingName);
+            pendingName = null;
+        }
+    }
+
+    private void writeBasic(Object value) throws IOException {
+        if (generator.getCodec() != null) {
+            generator.writeObject(value);
+        } else if (value == null) {
+            generator.writeNull();
+        } else if (value instanceof String) {
+            generator.writeString((String) value);
+        } else if (value instanceof Boolean) {
+            generator.writeBoolean((Boolean) value);
+        } else if (value instanceof Integer || value instanceof Long || value instanceof Short ||
+                value instanceof Byte) {
+            generator.writeNumber(((Number) value).longValue());
+        } else if (value instanceof Double || value instanceof Float) {
+            generator.writeNumber(((Number) value).doubleValue());
+        } else if (value instanceof BigDecimal) {
+            generator.writeNumber((BigDecimal) value);
+        } else if (value instanceof BigInteger) {
+            generator.writeNumber((BigInteger) value);
+        } else if (value instanceof byte[]) {
+            generator.writeBinary((byte[]) value);
+        } else if (value instanceof Enum) {
+            generator.writeString(((Enum<?>) value).name());
+        } else {
+            // E.g. temporal values in their ISO-8601 representation.
+            generator.writeString(value.toString());
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package com.javaetmoi.core.persistence.hibernate.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+
+import com.javaetmoi.core.persistence.hibernate.GeneratedHydrator;
+
+/**
+ * Annotation processor that generates a {@link com.javaetmoi.core.persistence.hibernate.GeneratedHydrator}
+ * for each {@code @Entity} of the compilation unit.
+ * <p>
+ * The generated hydrators call the getters of the entity, or read its fields, directly
+ * and skip basic attributes, so their hot path can be inlined by the JIT.
+ * Attributes that are not accessible from the package of the entity are left to the mapping metamodel.
+ * </p>
+ * <p>
+ * This processor is optional and not registered as a service.
+ * Enable it explicitly, e.g. with {@code <annotationProcessors>} of the maven-compiler-plugin.
+ * </p>
+ */
+@SupportedAnnotationTypes("jakarta.persistence.Entity")
+public class HydratorProcessor extends AbstractProcessor {
+    private static final String JPA = "jakarta.persistence.";
+
+    /**
+     * Kinds of attributes, named after the methods of the sink.
+     */
+    private static final String ENTITY = "entity";
+    private static final String EMBEDDABLE = "embeddable";
+    private static final String COLLECTION = "collection";
+    private static final String MAP = "map";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (var annotation : annotations) {
+            for (var element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() == ElementKind.CLASS && !element.getModifiers().contains(Modifier.ABSTRACT)) {
+                    generate((TypeElement) element);
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Generate the hydrator of an entity class.
+     */
+    private void generate(TypeElement entity) {
+        var packageElement = processingEnv.getElementUtils().getPackageOf(entity);
+        var attributes = attributes(entity, packageElement);
+        if (attributes.isEmpty()) {
+            // Nothing to hydrate.
+            return;
+        }
+
+        var packageName = packageElement.getQualifiedName().toString();
+        var binaryName = processingEnv.getElementUtils().getBinaryName(entity).toString();
+        var simpleName = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1)) + GeneratedHydrator.SUFFIX;
+        var entityName = entity.getQualifiedName().toString();
+        try (Writer writer = processingEnv.getFiler()
+                .createSourceFile(binaryName + GeneratedHydrator.SUFFIX, entity).openWriter()) {
+            if (!packageName.isEmpty()) {
+                writer.write("package " + packageName + ";\n\n");
+            }
+            writer.write("/**\n * Hydrator for {@link " + entityName + "}.\n */\n");
+            writer.write("@javax.annotation.processing.Generated(\"" + getClass().getName() + "\")\n");
+            writer.write("public final class " + simpleName +
+                    " implements com.javaetmoi.core.persistence.hibernate.GeneratedHydrator<" + entityName + "> {\n");
+            writer.write("    private static final String[] ATTRIBUTE_NAMES = {");
+            writer.write(String.join(", ", attributes.keySet().stream().map(name -> "\"" + name + "\"")
+                    .toArray(String[]::new)));
+            writer.write("};\n\n");
+            writer.write("    @Override\n");
+            writer.write("    public String[] getAttributeNames() {\n");
+            writer.write("        return ATTRIBUTE_NAMES.clone();\n");
+            writer.write("    }\n\n");
+            writer.write("    @Override\n");
+            writer.write("    public void hydrate(" + entityName + " entity, " +
+                    "com.javaetmoi.core.persistence.hibernate.GeneratedHydrator.Sink sink) {\n");
+            int index = 0;
+            for (var attribute : attributes.values()) {
+                writer.write("        sink." + attribute.kind + "(" + index++ + ", entity." + attribute.access + ");\n");
+            }
+            writer.write("    }\n");
+            writer.write("}\n");
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Could not generate the hydrator: " + e.getMessage(), entity);
+        }
+    }
+
+    /**
+     * Navigable attributes of the entity class and its mapped super classes, accessible from the package.
+     */
+    private Map<String, Attribute> attributes(TypeElement entity, PackageElement packageElement) {
+        var result = new LinkedHashMap<String, Attribute>();
+        for (var type = entity; type != null; type = superclass(type)) {
+            for (var field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+                var kind = kind(field, field.asType());
+                if (kind != null && !result.containsKey(field.getSimpleName().toString())) {
+                    var access = fieldAccess(entity, field, packageElement);
+                    if (access != null) {
+                        result.put(field.getSimpleName().toString(), new Attribute(kind, access));
+                    }
+                }
+            }
+            for (var method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+                var name = propertyName(method);
+                var kind = name != null ? kind(method, method.getReturnType()) : null;
+                if (kind != null && !result.containsKey(name) && isAccessible(method, packageElement)) {
+                    result.put(name, new Attribute(kind, method.getSimpleName() + "()"));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Super class, if it is an entity or a mapped super class.
+     */
+    private TypeElement superclass(TypeElement type) {
+        var superclass = type.getSuperclass();
+        if (superclass.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        var superElement = (TypeElement) ((DeclaredType) superclass).asElement();
+        return hasAnnotation(superElement, "Entity") || hasAnnotation(superElement, "MappedSuperclass") ?
+                superElement : null;
+    }
+
+    /**
+     * Kind of a persistent attribute, {@code null} if the hydration does not need to navigate it.
+     */
+    private String kind(Element element, TypeMirror type) {
+        if (element.getModifiers().contains(Modifier.STATIC) || element.getModifiers().contains(Modifier.TRANSIENT) ||
+                hasAnnotation(element, "Transient")) {
+            return null;
+        }
+
+        if (hasAnnotation(element, "ManyToOne") || hasAnnotation(element, "OneToOne")) {
+            return ENTITY;
+        }
+        if (hasAnnotation(element, "OneToMany") || hasAnnotation(element, "ManyToMany") ||
+                hasAnnotation(element, "ElementCollection")) {
+            if (isAssignable(type, "java.util.Map")) {
+                return MAP;
+            }
+            return isAssignable(type, "java.util.Collection") ? COLLECTION : null;
+        }
+        if (hasAnnotation(element, "Embedded") || (type.getKind() == TypeKind.DECLARED &&
+                hasAnnotation(((DeclaredType) type).asElement(), "Embeddable"))) {
+            return EMBEDDABLE;
+        }
+        return null;
+    }
+
+    /**
+     * Access to a field: The field itself if accessible, its getter if accessible, otherwise {@code null}.
+     * Getters may return copies of collections, so the field is preferred, like Hibernate's field access does.
+     */
+    private String fieldAccess(TypeElement entity, VariableElement field, PackageElement packageElement) {
+        var name = field.getSimpleName().toString();
+        if (isAccessible(field, packageElement)) {
+            return name;
+        }
+        var capitalized = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        var getterNames = List.of("get" + capitalized, "is" + capitalized);
+        for (var method : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(entity))) {
+            if (getterNames.contains(method.getSimpleName().toString()) && method.getParameters().isEmpty() &&
+                    !method.getModifiers().contains(Modifier.STATIC) && isAccessible(method, packageElement)) {
+                return method.getSimpleName() + "()";
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Name of the property of a getter, {@code null} if the method is no getter.
+     */
+    private String propertyName(ExecutableElement method) {
+        var name = method.getSimpleName().toString();
+        if (!method.getParameters().isEmpty() || method.getModifiers().contains(Modifier.STATIC)) {
+            return null;
+        }
+        var prefix = name.startsWith("get") ? 3 : name.startsWith("is") ? 2 : 0;
+        if (prefix == 0 || name.length() == prefix) {
+            return null;
+        }
+        var property = name.substring(prefix);
+        if (property.length() > 1 && Character.isUpperCase(property.charAt(1))) {
+            return property;
+        }
+        return Character.toLowerCase(property.charAt(0)) + property.substring(1);
+    }
+
+    /**
+     * Is the member accessible from a class in the given package?.
+     */
+    private boolean isAccessible(Element member, PackageElement packageElement) {
+        var modifiers = member.getModifiers();
+        if (modifiers.contains(Modifier.PUBLIC)) {
+            return true;
+        }
+        return !modifiers.contains(Modifier.PRIVATE) &&
+                processingEnv.getElementUtils().getPackageOf(member).equals(packageElement);
+    }
+
+    private boolean isAssignable(TypeMirror type, String className) {
+        var typeUtils = processingEnv.getTypeUtils();
+        var classElement = processingEnv.getElementUtils().getTypeElement(className);
+        return classElement != null &&
+                typeUtils.isAssignable(typeUtils.erasure(type), typeUtils.erasure(classElement.asType()));
+    }
+
+    private static boolean hasAnnotation(Element element, String simpleName) {
+        for (var annotation : element.getAnnotationMirrors()) {
+            var annotationType = (TypeElement) annotation.getAnnotationType().asElement();
+            if (annotationType.getQualifiedName().contentEquals(JPA + simpleName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Attribute to hydrate.
+     */
+    private static final class Attribute {
+        /**
+         * Name of the sink method.
+         */
+        private final String kind;
+        /**
+         * Java expression to read the attribute from the entity.
+         */
+        private final String access;
+
+        private Attribute(String kind, String access) {
+            this.kind = kind;
+            this.access = access;
+        }
+    }
+}
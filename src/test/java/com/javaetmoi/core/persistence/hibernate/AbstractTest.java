@@ -43,6 +43,10 @@ public class AbstractTest {
         return sessionFactory.getStatistics();
     }
 
+    protected EntityManagerFactory entityManagerFactory() {
+        return entityManagerFactory;
+    }
+
     protected <E> E findEntity(Class<E> entityClass, long entityId) {
         return doInJPA(entityManager ->
                 entityManager.find(entityClass, entityId));
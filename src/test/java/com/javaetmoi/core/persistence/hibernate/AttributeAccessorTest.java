@@ -0,0 +1,49 @@
+package com.javaetmoi.core.persistence.hibernate;
+
+import com.javaetmoi.core.persistence.hibernate.domain.Address;
+import com.javaetmoi.core.persistence.hibernate.domain.Country;
+import com.javaetmoi.core.persistence.hibernate.domain.Employee;
+import com.javaetmoi.core.persistence.hibernate.domain.Project;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static jakarta.persistence.Persistence.createEntityManagerFactory;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Unit test of the {@link AttributeAccessor} class.
+ */
+class AttributeAccessorTest {
+    private final EntityManagerFactory entityManagerFactory =
+            createEntityManagerFactory("hibernate-hydrate");
+
+    @AfterEach
+    void closeEntityManagerFactory() {
+        entityManagerFactory.close();
+    }
+
+    /**
+     * The accessors read the same values as the mapping metamodel, for all entities of the model.
+     */
+    @Test
+    void get() {
+        var employee = new Employee(1, "James", "Developer");
+        var project = new Project(1, "Hydrate");
+        employee.getProjects().add(project);
+        project.getMembers().add(employee);
+        var address = new Address(1, "home", "Paris", employee, new Country(1, "France"));
+        employee.getAddresses().put("home", address);
+
+        var mappingMetamodel = HydratorRegistry.hydrator(entityManagerFactory).getMappingMetamodel();
+        for (var entity : new Object[] { employee, project, address }) {
+            var descriptor = mappingMetamodel.getEntityDescriptor(entity.getClass());
+            for (int i = 0; i < descriptor.getNumberOfAttributeMappings(); i++) {
+                var attributeMapping = descriptor.getAttributeMapping(i);
+                var accessor = AttributeAccessor.of(attributeMapping);
+                assertSame(attributeMapping.getValue(entity), accessor.get(entity),
+                        attributeMapping.getNavigableRole().getFullPath());
+            }
+        }
+    }
+}
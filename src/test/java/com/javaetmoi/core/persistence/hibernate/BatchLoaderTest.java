@@ -0,0 +1,37 @@
+package com.javaetmoi.core.persistence.hibernate;
+
+import com.javaetmoi.core.persistence.hibernate.domain.Biz;
+import com.javaetmoi.core.persistence.hibernate.domain.Foo;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit test of the {@link BatchLoader} class.
+ */
+class BatchLoaderTest extends AbstractTest {
+
+    /**
+     * Collections within embeddables are left out of the batches and initialized by Hibernate.
+     */
+    @Test
+    void nestedListInEmbeddable() {
+        var pool = new ForkJoinPool(2);
+        try {
+            var batchingHydrator = hydrator.withParallelScan(pool).withBatching(1, 16);
+            var dbFoos = doInJPA(entityManager -> batchingHydrator.deepHydrateCollection(new ArrayList<>(List.of(
+                    entityManager.find(Foo.class, 1), entityManager.find(Foo.class, 2)))));
+
+            assertThat(dbFoos.get(0).getBar().getBizs()).as("Bizs of the first foo only")
+                    .extracting(Biz::getName).containsExactlyInAnyOrder("Biz 10", "Biz 11");
+            assertThat(dbFoos.get(1).getBar().getBizs()).as("Bizs of the second foo only")
+                    .extracting(Biz::getName).containsExactly("Biz 20");
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.javaetmoi.core.persistence.hibernate;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.javaetmoi.core.persistence.hibernate.domain.Address;
+import com.javaetmoi.core.persistence.hibernate.domain.Employee;
+import com.javaetmoi.core.persistence.hibernate.json.HydrationJsonWriter;
+import com.javaetmoi.core.persistence.hibernate.versioned.Book;
+import com.javaetmoi.core.persistence.hibernate.versioned.Shelf;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * Unit test of the {@link GraphFingerprint} class.
+ */
+class GraphFingerprintTest extends AbstractTest {
+
+    @Test
+    void of() {
+        var james = fingerprint(Employee.class, 1);
+
+        assertEquals(james.getValue(), fingerprint(Employee.class, 1).getValue(), "Stable");
+        assertEquals(james.toETag(), fingerprint(Employee.class, 1).toETag());
+        assertNotEquals(james.getValue(), fingerprint(Employee.class, 2).getValue());
+        assertThat(james.toETag()).matches("\"[0-9a-f]{16}\"");
+    }
+
+    @Test
+    void of_changedAttribute() {
+        var james = fingerprint(Employee.class, 1);
+        doInJPAVoid(entityManager -> entityManager.find(Address.class, 300).setCity("Courbevoie"));
+
+        assertNotEquals(james.getValue(), fingerprint(Employee.class, 1).getValue());
+    }
+
+    @Test
+    void of_changedCollection() {
+        var james = fingerprint(Employee.class, 1);
+        doInJPAVoid(entityManager -> entityManager.find(Employee.class, 1).getProjects()
+                .removeIf(project -> project.getId() == 20));
+
+        assertNotEquals(james.getValue(), fingerprint(Employee.class, 1).getValue());
+    }
+
+    @Test
+    void of_reorderedList() {
+        var fingerprints = doInJPA(entityManager -> {
+            var novels = entityManager.find(Shelf.class, 1);
+            var before = GraphFingerprint.of(hydrator, novels);
+            Collections.reverse(novels.getBooks());
+            var after = GraphFingerprint.of(hydrator, novels);
+            // Does not update the database.
+            entityManager.clear();
+            return List.of(before, after);
+        });
+
+        assertNotEquals(fingerprints.get(0).getValue(), fingerprints.get(1).getValue());
+    }
+
+    @Test
+    void of_reorderedBag() {
+        var fingerprints = doInJPA(entityManager -> {
+            var james = entityManager.find(Employee.class, 1);
+            var before = GraphFingerprint.of(hydrator, james);
+            Collections.reverse(james.getProjects());
+            var after = GraphFingerprint.of(hydrator, james);
+            // Does not update the database.
+            entityManager.clear();
+            return List.of(before, after);
+        });
+
+        assertEquals(fingerprints.get(0).getValue(), fingerprints.get(1).getValue(), "Order of a bag not stable");
+    }
+
+    @Test
+    void of_changedVersion() {
+        var novels = fingerprint(Shelf.class, 1);
+        doInJPAVoid(entityManager -> entityManager.find(Book.class, 11).setTitle("Nana (1880)"));
+
+        assertNotEquals(novels.getValue(), fingerprint(Shelf.class, 1).getValue());
+    }
+
+    @Test
+    void walk_withDelegate() throws IOException {
+        var out = new ByteArrayOutputStream();
+        var fingerprint = doInJPA(entityManager -> {
+            try (var generator = new JsonFactory().createGenerator(out)) {
+                var visitor = new GraphFingerprint(new HydrationJsonWriter(generator));
+                hydrator.walk(entityManager.find(Employee.class, 1), visitor);
+                return visitor;
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        assertEquals(fingerprint(Employee.class, 1).getValue(), fingerprint.getValue(), "Computed by the same walk");
+        assertThat(out.toString()).contains("\"name\":\"James\"");
+    }
+
+    private GraphFingerprint fingerprint(Class<?> entityClass, int id) {
+        return doInJPA(entityManager -> GraphFingerprint.of(hydrator, entityManager.find(entityClass, id)));
+    }
+}
@@ -0,0 +1,101 @@
+package com.javaetmoi.core.persistence.hibernate;
+
+import com.javaetmoi.core.persistence.hibernate.domain.Employee;
+import com.javaetmoi.core.persistence.hibernate.domain.Project;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit test of the {@link HydratedGraphCache} class.
+ */
+class HydratedGraphCacheTest extends AbstractTest {
+
+    private HydratedGraphCache cache;
+
+    @BeforeEach
+    void setUpCache() {
+        cache = new HydratedGraphCache(entityManagerFactory(), Long.MAX_VALUE);
+    }
+
+    @Test
+    void get() {
+        var james = cache.get(hydrator, Employee.class, 1);
+
+        assertTrue(Hibernate.isInitialized(james.getProjects()));
+        assertTrue(Hibernate.isInitialized(james.getProjects().get(0).getMembers()));
+        assertThat(cache.getWeight()).isPositive();
+
+        statistics().clear();
+        assertSame(james, cache.get(hydrator, Employee.class, 1));
+        assertEquals(0, statistics().getPrepareStatementCount(), "Served by the cache");
+
+        assertNull(cache.getIfPresent(hydrator.withExclude(Employee.class, "addresses"), Employee.class, 1),
+                "Cached per hydrator");
+        assertNull(cache.get(hydrator, Employee.class, 3), "No such entity");
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void invalidate_update() {
+        var tom = cache.get(hydrator, Employee.class, 2);
+
+        // Project 10 is part of the graph of Tom.
+        doInJPAVoid(entityManager -> entityManager.find(Project.class, 10).setName("Android"));
+
+        assertNull(cache.getIfPresent(hydrator, Employee.class, 2));
+        var reloaded = cache.get(hydrator, Employee.class, 2);
+        assertNotSame(tom, reloaded);
+        assertEquals("Android", reloaded.getProjects().get(0).getName());
+    }
+
+    @Test
+    void invalidate_collection() {
+        cache.get(hydrator, Employee.class, 1);
+        cache.get(hydrator, Employee.class, 2);
+
+        // James is a member of the project of Tom.
+        doInJPAVoid(entityManager -> entityManager.find(Employee.class, 1).getProjects()
+                .removeIf(project -> project.getId() == 20));
+
+        assertNull(cache.getIfPresent(hydrator, Employee.class, 1));
+        assertNull(cache.getIfPresent(hydrator, Employee.class, 2));
+        assertEquals(0, cache.getWeight());
+        assertThat(cache.get(hydrator, Employee.class, 1).getProjects()).hasSize(1);
+    }
+
+    @Test
+    void invalidate_collectionAfterCommit() {
+        doInJPAVoid(entityManager -> {
+            entityManager.find(Employee.class, 1).getProjects().removeIf(project -> project.getId() == 20);
+            entityManager.flush();
+            assertThat(cache.get(hydrator, Employee.class, 1).getProjects())
+                    .as("Hydrated from the committed state")
+                    .hasSize(2);
+        });
+
+        assertNull(cache.getIfPresent(hydrator, Employee.class, 1));
+        assertThat(cache.get(hydrator, Employee.class, 1).getProjects()).hasSize(1);
+    }
+
+    @Test
+    void evict() {
+        cache.get(hydrator, Employee.class, 1);
+        var weight = cache.getWeight();
+        var smallCache = new HydratedGraphCache(entityManagerFactory(), weight);
+
+        smallCache.get(hydrator, Employee.class, 1);
+        smallCache.get(hydrator, Employee.class, 2);
+
+        assertEquals(1, smallCache.size(), "The least recently used graph is evicted");
+        assertThat(smallCache.getIfPresent(hydrator, Employee.class, 2)).isNotNull();
+        assertThat(smallCache.getWeight()).isLessThanOrEqualTo(weight);
+    }
+}
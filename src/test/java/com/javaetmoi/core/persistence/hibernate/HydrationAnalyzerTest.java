@@ -0,0 +1,122 @@
+package com.javaetmoi.core.persistence.hibernate;
+
+import com.javaetmoi.core.persistence.hibernate.domain.Address;
+import com.javaetmoi.core.persistence.hibernate.domain.Country;
+import com.javaetmoi.core.persistence.hibernate.domain.Employee;
+import com.javaetmoi.core.persistence.hibernate.domain.Project;
+import com.javaetmoi.core.persistence.hibernate.joinInheritance.ParentClass;
+import com.javaetmoi.core.persistence.hibernate.joinInheritance.ParentReference;
+import com.javaetmoi.core.persistence.hibernate.joinInheritance.SubClass;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.metamodel.model.domain.NavigableRole;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.javaetmoi.core.persistence.hibernate.Hydrator.hydrator;
+import static jakarta.persistence.Persistence.createEntityManagerFactory;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit test of the {@link HydrationAnalyzer} class.
+ */
+class HydrationAnalyzerTest {
+    private static final EntityManagerFactory entityManagerFactory =
+            createEntityManagerFactory("hibernate-hydrate");
+
+    @AfterAll
+    static void closeEntityManagerFactory() {
+        entityManagerFactory.close();
+    }
+
+    @Test
+    void analyze() {
+        var reports = new HydrationAnalyzer(hydrator(entityManagerFactory)).analyze();
+
+        assertThat(reports)
+                .extracting(HydrationAnalyzer.EntityReport::getEntityName)
+                .contains(Employee.class.getName(), ParentReference.class.getName())
+                .isSorted();
+    }
+
+    @Test
+    void analyze_cyclicGraph() {
+        var report = new HydrationAnalyzer(hydrator(entityManagerFactory)).analyze(Employee.class);
+
+        assertThat(report.getReachableEntityNames())
+                .containsOnly(Employee.class.getName(), Project.class.getName(),
+                        Address.class.getName(), Country.class.getName());
+        assertThat(report.getCyclicPaths())
+                .containsOnly(
+                        roles(Employee.class.getName() + ".addresses", Address.class.getName() + ".employee"),
+                        roles(Employee.class.getName() + ".projects", Project.class.getName() + ".members"));
+        assertThat(report.getUnboundedCollectionRoles())
+                .extracting(NavigableRole::getFullPath)
+                .containsOnly(Employee.class.getName() + ".addresses", Employee.class.getName() + ".projects",
+                        Project.class.getName() + ".members");
+        assertThat(report.getWorstCaseStatements()).isEmpty();
+        assertThat(report.getWorstCaseBatchedStatements()).isEmpty();
+    }
+
+    @Test
+    void analyze_withExclude() {
+        var hydrator = hydrator(entityManagerFactory)
+                .withExclude(Project.class, "members")
+                .withExclude(Address.class, "employee");
+
+        var report = new HydrationAnalyzer(hydrator).analyze(Employee.class);
+
+        assertThat(report.getCyclicPaths()).isEmpty();
+        assertThat(report.getReachableRoles())
+                .extracting(NavigableRole::getFullPath)
+                .doesNotContain(Project.class.getName() + ".members", Address.class.getName() + ".employee");
+        // Employee.addresses and Employee.projects. Address.country is joined eagerly.
+        assertThat(report.getWorstCaseStatements()).hasValue(2);
+        assertThat(report.getWorstCaseBatchedStatements()).hasValue(2);
+    }
+
+    @Test
+    void analyze_inheritance() {
+        var report = new HydrationAnalyzer(hydrator(entityManagerFactory)).analyze(ParentReference.class);
+
+        assertThat(report.getInheritanceFanOut())
+                .containsEntry(ParentClass.class.getName(), 1);
+        assertThat(report.getUnboundedCollectionRoles())
+                .extracting(NavigableRole::getFullPath)
+                .containsOnly(SubClass.class.getName() + ".datas");
+        // SubClass.datas. ParentReference.parent is joined eagerly.
+        assertThat(report.getWorstCaseStatements()).hasValue(1);
+        assertThat(report.getWorstCaseBatchedStatements()).hasValue(1);
+    }
+
+    @Test
+    void main() {
+        var out = new ByteArrayOutputStream();
+        var systemOut = System.out;
+        System.setOut(new PrintStream(out, true, StandardCharsets.UTF_8));
+        try {
+            HydrationAnalyzer.main("hibernate-hydrate");
+        } finally {
+            System.setOut(systemOut);
+        }
+
+        assertThat(out.toString(StandardCharsets.UTF_8))
+                .contains(Employee.class.getName() + "\n")
+                .contains("  Cyclic path: [" + Employee.class.getName() + ".addresses, ")
+                .contains("  Unbounded collection roles: [" + SubClass.class.getName() + ".datas]");
+    }
+
+    private static List<NavigableRole> roles(String... fullPaths) {
+        var result = new ArrayList<NavigableRole>();
+        for (var fullPath : fullPaths) {
+            var separator = fullPath.lastIndexOf('.');
+            result.add(new NavigableRole(fullPath.substring(0, separator)).append(fullPath.substring(separator + 1)));
+        }
+        return result;
+    }
+}
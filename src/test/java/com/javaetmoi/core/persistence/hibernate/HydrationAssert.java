@@ -0,0 +1,183 @@
+package com.javaetmoi.core.persistence.hibernate;
+
+import org.hibernate.stat.Statistics;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Assertions about the costs of a hydration, see {@link HydrationBudgetExtension}.
+ *
+ * @param <R>
+ *            Result of the hydration.
+ */
+public class HydrationAssert<R> {
+    private final R result;
+    private final Snapshot before;
+    private final Snapshot after;
+
+    /**
+     * Costs that have been bounded, so that a cost is not bounded twice.
+     */
+    private final Set<String> bounded = new HashSet<>();
+
+    HydrationAssert(R result, Snapshot before, Snapshot after) {
+        this.result = result;
+        this.before = before;
+        this.after = after;
+    }
+
+    /**
+     * Result of the hydration.
+     */
+    public R getResult() {
+        return result;
+    }
+
+    /**
+     * Start an assertion about statements.
+     */
+    public StatementBudget executesAtMost(long maximum) {
+        return new StatementBudget(maximum);
+    }
+
+    /**
+     * Start an assertion about loads.
+     */
+    public LoadBudget loadsAtMost(long maximum) {
+        return new LoadBudget(maximum);
+    }
+
+    /**
+     * Number of prepared statements.
+     */
+    public long statements() {
+        return after.statements - before.statements;
+    }
+
+    /**
+     * Number of loaded entities.
+     */
+    public long entities() {
+        return after.entities - before.entities;
+    }
+
+    /**
+     * Number of loaded entities of a class.
+     */
+    public long entitiesOf(Class<?> entityClass) {
+        var entityName = entityClass.getName();
+        return after.entitiesByName.getOrDefault(entityName, 0L) - before.entitiesByName.getOrDefault(entityName, 0L);
+    }
+
+    /**
+     * Number of loaded collections.
+     */
+    public long collections() {
+        return after.collections - before.collections;
+    }
+
+    /**
+     * Number of loaded collections of a role.
+     */
+    public long collectionsOf(Class<?> entityClass, String attribute) {
+        var role = entityClass.getName() + "." + attribute;
+        return after.collectionsByRole.getOrDefault(role, 0L) - before.collectionsByRole.getOrDefault(role, 0L);
+    }
+
+    private HydrationAssert<R> check(String cost, long maximum, long actual) {
+        if (!bounded.add(cost)) {
+            throw new IllegalStateException(String.format("The %s have already been bounded.", cost));
+        }
+        if (actual > maximum) {
+            fail(String.format("Expected at most %d %s, but were %d.", maximum, cost, actual));
+        }
+        return this;
+    }
+
+    /**
+     * Upper bound of the statements.
+     */
+    public class StatementBudget {
+        private final long maximum;
+
+        private StatementBudget(long maximum) {
+            this.maximum = maximum;
+        }
+
+        /**
+         * Bound the prepared statements.
+         */
+        public HydrationAssert<R> statements() {
+            return check("statements", maximum, HydrationAssert.this.statements());
+        }
+    }
+
+    /**
+     * Upper bound of the loads.
+     */
+    public class LoadBudget {
+        private final long maximum;
+
+        private LoadBudget(long maximum) {
+            this.maximum = maximum;
+        }
+
+        /**
+         * Bound the loaded entities.
+         */
+        public HydrationAssert<R> entities() {
+            return check("entity loads", maximum, HydrationAssert.this.entities());
+        }
+
+        /**
+         * Bound the loaded entities of a class.
+         */
+        public HydrationAssert<R> entitiesOf(Class<?> entityClass) {
+            return check("loads of " + entityClass.getSimpleName(), maximum,
+                    HydrationAssert.this.entitiesOf(entityClass));
+        }
+
+        /**
+         * Bound the loaded collections.
+         */
+        public HydrationAssert<R> collections() {
+            return check("collection loads", maximum, HydrationAssert.this.collections());
+        }
+
+        /**
+         * Bound the loaded collections of a role.
+         */
+        public HydrationAssert<R> collectionsOf(Class<?> entityClass, String attribute) {
+            return check("loads of " + entityClass.getSimpleName() + "." + attribute, maximum,
+                    HydrationAssert.this.collectionsOf(entityClass, attribute));
+        }
+    }
+
+    /**
+     * Snapshot of the cumulative statistics.
+     */
+    static final class Snapshot {
+        private final long statements;
+        private final long entities;
+        private final long collections;
+        private final Map<String, Long> entitiesByName = new HashMap<>();
+        private final Map<String, Long> collectionsByRole = new HashMap<>();
+
+        Snapshot(Statistics statistics) {
+            this.statements = statistics.getPrepareStatementCount();
+            this.entities = statistics.getEntityLoadCount();
+            this.collections = statistics.getCollectionLoadCount();
+            for (var entityName : statistics.getEntityNames()) {
+                entitiesByName.put(entityName, statistics.getEntityStatistics(entityName).getLoadCount());
+            }
+            for (var role : statistics.getCollectionRoleNames()) {
+                collectionsByRole.put(role, statistics.getCollectionStatistics(role).getLoadCount());
+            }
+        }
+    }
+}
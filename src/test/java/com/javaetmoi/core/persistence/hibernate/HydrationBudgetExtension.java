@@ -0,0 +1,57 @@
+package com.javaetmoi.core.persistence.hibernate;
+
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import java.util.function.Supplier;
+
+/**
+ * JUnit 5 extension to assert the costs of hydrations based on Hibernate {@link Statistics}.
+ * <p>
+ * Register it as a field:
+ * </p>
+ * <pre>
+ * &#64;RegisterExtension
+ * final HydrationBudgetExtension budget = new HydrationBudgetExtension(this::statistics);
+ * ...
+ * budget.assertHydration(() -&gt; findDeepHydratedEntity(Employee.class, 1))
+ *         .executesAtMost(3).statements()
+ *         .loadsAtMost(1).collectionsOf(Employee.class, "projects");
+ * </pre>
+ */
+public class HydrationBudgetExtension implements BeforeEachCallback {
+    private final Supplier<Statistics> statistics;
+
+    /**
+     * Constructor.
+     *
+     * @param statistics
+     *            Statistics of the session factory under test.
+     */
+    public HydrationBudgetExtension(Supplier<Statistics> statistics) {
+        this.statistics = statistics;
+    }
+
+    @Override
+    public void beforeEach(ExtensionContext context) {
+        var statistics = this.statistics.get();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+    }
+
+    /**
+     * Execute a hydration and record its costs.
+     *
+     * @param hydration
+     *            Hydration, including the loading of the root entities.
+     * @return Assertions about the costs.
+     */
+    public <R> HydrationAssert<R> assertHydration(Supplier<R> hydration) {
+        var statistics = this.statistics.get();
+        var before = new HydrationAssert.Snapshot(statistics);
+        var result = hydration.get();
+        var after = new HydrationAssert.Snapshot(statistics);
+        return new HydrationAssert<>(result, before, after);
+    }
+}
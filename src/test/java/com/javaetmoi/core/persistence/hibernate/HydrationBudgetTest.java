@@ -0,0 +1,130 @@
+package com.javaetmoi.core.persistence.hibernate;
+
+import com.javaetmoi.core.persistence.hibernate.domain.Address;
+import com.javaetmoi.core.persistence.hibernate.domain.Country;
+import com.javaetmoi.core.persistence.hibernate.domain.Employee;
+import com.javaetmoi.core.persistence.hibernate.domain.Project;
+import com.javaetmoi.core.persistence.hibernate.joinInheritance.ParentClass;
+import com.javaetmoi.core.persistence.hibernate.joinInheritance.ParentReference;
+import com.javaetmoi.core.persistence.hibernate.joinInheritance.SubClass;
+import com.javaetmoi.core.persistence.hibernate.listWithEmbeddable.Plan;
+import com.javaetmoi.core.persistence.hibernate.listWithEmbeddable.SubPlan;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.util.ArrayList;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Statement budgets of hydrations of the test domain models.
+ * Failures indicate regressions like N+1 selects.
+ */
+class HydrationBudgetTest extends AbstractTest {
+
+    @RegisterExtension
+    final HydrationBudgetExtension budget = new HydrationBudgetExtension(this::statistics);
+
+    /**
+     * James, his 2 projects and their members, his addresses and their country:
+     * 1 select for the root and 1 per collection.
+     */
+    @Test
+    void employee() {
+        budget.assertHydration(() -> findDeepHydratedEntity(Employee.class, 1))
+                .executesAtMost(7).statements()
+                .loadsAtMost(8).entities()
+                .loadsAtMost(2).entitiesOf(Project.class)
+                .loadsAtMost(6).collections()
+                .loadsAtMost(2).collectionsOf(Employee.class, "projects")
+                .loadsAtMost(2).collectionsOf(Project.class, "members");
+    }
+
+    /**
+     * Both roots share one graph: Each collection is loaded only once.
+     */
+    @Test
+    void employees() {
+        budget.assertHydration(() -> findDeepHydratedEntities(Employee.class, 1, 2))
+                .executesAtMost(8).statements()
+                .loadsAtMost(8).entities()
+                .loadsAtMost(3).entitiesOf(Address.class)
+                .loadsAtMost(6).collections();
+    }
+
+    /**
+     * The proxy of the parent is resolved to its subclass with a single select.
+     */
+    @Test
+    void joinInheritance() {
+        budget.assertHydration(() -> findDeepHydratedEntity(ParentReference.class, 1))
+                .executesAtMost(2).statements()
+                .loadsAtMost(3).entities()
+                .loadsAtMost(1).collectionsOf(SubClass.class, "datas");
+    }
+
+    /**
+     * Proxies of a joined hierarchy are loaded per concrete class, not one by one:
+     * 1 select for the concrete classes, 1 per concrete class and 1 per collection.
+     */
+    @Test
+    void joinInheritanceReferences() {
+        var parents = budget.assertHydration(() -> doInJPA(entityManager -> hydrator.deepHydrateCollection(
+                        Stream.of(100, 101, 102, 103, 104, 105)
+                                .map(id -> entityManager.getReference(ParentClass.class, id))
+                                .collect(toList()))))
+                .executesAtMost(7).statements()
+                .loadsAtMost(4).collectionsOf(SubClass.class, "datas")
+                .getResult();
+
+        assertEquals(4, parents.stream().filter(parent -> Hibernate.unproxy(parent) instanceof SubClass).count());
+    }
+
+    /**
+     * Proxies of a joined hierarchy are loaded per concrete class too, when mixed with entities of another type:
+     * 1 find, 1 select for the concrete classes, 1 per concrete class and 1 per collection.
+     */
+    @Test
+    void joinInheritanceReferences_mixedTypes() {
+        budget.assertHydration(() -> doInJPA(entityManager -> {
+                    var entities = new ArrayList<Object>();
+                    entities.add(entityManager.find(Country.class, 1000));
+                    Stream.of(100, 101, 102, 103, 104, 105)
+                            .forEach(id -> entities.add(entityManager.getReference(ParentClass.class, id)));
+                    return hydrator.deepHydrateCollection(entities);
+                }))
+                .executesAtMost(8).statements()
+                .loadsAtMost(4).collectionsOf(SubClass.class, "datas");
+    }
+
+    /**
+     * Associations within the elements of an embeddable collection are navigated too.
+     */
+    @Test
+    void listWithEmbeddable() {
+        budget.assertHydration(() -> findDeepHydratedEntity(Plan.class, 1))
+                .executesAtMost(3).statements()
+                .loadsAtMost(4).entities()
+                .loadsAtMost(1).collectionsOf(Plan.class, "transfers")
+                .loadsAtMost(1).collectionsOf(SubPlan.class, "events");
+    }
+
+    @Test
+    void overBudget() {
+        var hydration = budget.assertHydration(() -> findDeepHydratedEntity(Employee.class, 1));
+
+        assertThrows(AssertionError.class, () -> hydration.executesAtMost(0).statements());
+    }
+
+    @Test
+    void boundTwice() {
+        var hydration = budget.assertHydration(() -> findDeepHydratedEntity(Employee.class, 1))
+                .executesAtMost(7).statements();
+
+        assertThrows(IllegalStateException.class, () -> hydration.executesAtMost(9).statements());
+    }
+}
@@ -0,0 +1,134 @@
+package com.javaetmoi.core.persistence.hibernate;
+
+import com.javaetmoi.core.persistence.hibernate.domain.Employee;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit test of the {@link HydrationCoalescer} class.
+ */
+class HydrationCoalescerTest extends AbstractTest {
+
+    @Test
+    void hydrate() {
+        var coalescer = new HydrationCoalescer(entityManagerFactory(), Duration.ofSeconds(10));
+
+        var james = coalescer.hydrate(hydrator, Employee.class, 1);
+
+        assertTrue(Hibernate.isInitialized(james.getProjects()));
+        assertTrue(Hibernate.isInitialized(james.getAddresses()));
+        assertNotSame(james, coalescer.hydrate(hydrator, Employee.class, 1), "Nothing kept after a flight");
+        assertEquals(0, coalescer.getCoalescedCount());
+    }
+
+    @Test
+    void hydrate_concurrent() throws Exception {
+        var coalescer = new HydrationCoalescer(entityManagerFactory(), Duration.ofSeconds(10));
+        var blockedHydrator = new BlockedHydrator();
+        var executor = Executors.newFixedThreadPool(5);
+        try {
+            var leader = executor.submit(() -> coalescer.hydrate(blockedHydrator.hydrator, Employee.class, 1));
+            blockedHydrator.awaitStarted();
+            statistics().clear();
+            var followers = submit(executor, 4, () -> coalescer.hydrate(blockedHydrator.hydrator, Employee.class, 1));
+            awaitWaiting(followers);
+            blockedHydrator.release();
+
+            var james = leader.get(10, TimeUnit.SECONDS);
+            for (var follower : followers) {
+                assertSame(james, follower.get(10, TimeUnit.SECONDS));
+            }
+            assertEquals(4, coalescer.getCoalescedCount());
+            assertEquals(0, statistics().getSessionOpenCount(), "Only the leader hydrated");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void hydrate_timeout() throws Exception {
+        var coalescer = new HydrationCoalescer(entityManagerFactory(), Duration.ofMillis(50));
+        var blockedHydrator = new BlockedHydrator();
+        var executor = Executors.newSingleThreadExecutor();
+        try {
+            var leader = executor.submit(() -> coalescer.hydrate(blockedHydrator.hydrator, Employee.class, 1));
+            blockedHydrator.awaitStarted();
+
+            var james = coalescer.hydrate(blockedHydrator.hydrator, Employee.class, 1);
+            blockedHydrator.release();
+
+            assertTrue(Hibernate.isInitialized(james.getProjects()));
+            assertNotSame(james, leader.get(10, TimeUnit.SECONDS));
+            assertEquals(1, coalescer.getTimeoutCount());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static List<Future<Employee>> submit(ExecutorService executor, int count,
+            Callable<Employee> task) {
+        var futures = new ArrayList<Future<Employee>>();
+        for (int i = 0; i < count; i++) {
+            futures.add(executor.submit(task));
+        }
+        return futures;
+    }
+
+    /**
+     * Wait until the followers are blocked waiting for the leader, or for at most 5 seconds.
+     * The leader and idle threads wait without timeout.
+     */
+    private static void awaitWaiting(List<Future<Employee>> followers)
+            throws InterruptedException {
+        var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().startsWith("pool-"))
+                .filter(thread -> thread.getState() == Thread.State.TIMED_WAITING)
+                .count() < followers.size() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * Hydrator whose first hydration blocks until released.
+     */
+    private final class BlockedHydrator {
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch released = new CountDownLatch(1);
+        private final AtomicBoolean blocked = new AtomicBoolean();
+        private final Hydrator hydrator = HydrationCoalescerTest.this.hydrator.withProgressListener(progress -> {
+            if (blocked.compareAndSet(false, true)) {
+                started.countDown();
+                try {
+                    released.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }, Duration.ZERO);
+
+        void awaitStarted() throws InterruptedException {
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+        }
+
+        void release() {
+            released.countDown();
+        }
+    }
+}
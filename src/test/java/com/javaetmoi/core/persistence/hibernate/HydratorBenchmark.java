@@ -0,0 +1,169 @@
+package com.javaetmoi.core.persistence.hibernate;
+
+import com.javaetmoi.core.persistence.hibernate.domain.Address;
+import com.javaetmoi.core.persistence.hibernate.domain.Country;
+import com.javaetmoi.core.persistence.hibernate.domain.Employee;
+import com.javaetmoi.core.persistence.hibernate.domain.Project;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.metamodel.mapping.AttributeMapping;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static jakarta.persistence.Persistence.createEntityManagerFactory;
+
+/**
+ * Benchmark of the traversal of an already initialized object graph, that is, of pure CPU cost.
+ * <p>
+ * Run its main method with the test classpath, e.g. from the IDE.
+ * It profiles the allocations too: The traversal of an initialized graph should allocate next to nothing.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HydratorBenchmark {
+    private static final int EMPLOYEES = 200;
+    private static final int PROJECTS = 20;
+    private static final int PROJECTS_PER_EMPLOYEE = 5;
+
+    private EntityManagerFactory entityManagerFactory;
+    private EntityManager entityManager;
+    private HydratorImpl hydrator;
+    private List<Employee> employees;
+
+    /**
+     * Navigable attributes per entity, read through the mapping metamodel.
+     */
+    private AttributeMapping[] attributes;
+
+    /**
+     * Accessors of the same attributes.
+     */
+    private AttributeAccessor[] accessors;
+
+    public static void main(String... args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(HydratorBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build())
+                .run();
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        entityManagerFactory = createEntityManagerFactory("hibernate-hydrate");
+        hydrator = HydratorRegistry.hydrator(entityManagerFactory);
+        persistGraph();
+
+        entityManager = entityManagerFactory.createEntityManager();
+        employees = hydrator.deepHydrateCollection(entityManager
+                .createQuery("from Employee", Employee.class)
+                .getResultList());
+
+        var descriptor = hydrator.getMappingMetamodel().getEntityDescriptor(Employee.class);
+        var plan = hydrator.plan(Employee.class, descriptor);
+        attributes = plan.getAttributes().toArray(new AttributeMapping[0]);
+        accessors = new AttributeAccessor[attributes.length];
+        for (int i = 0; i < attributes.length; i++) {
+            accessors[i] = AttributeAccessor.of(attributes[i]);
+        }
+    }
+
+    private void persistGraph() {
+        var entityManager = entityManagerFactory.createEntityManager();
+        try {
+            entityManager.getTransaction().begin();
+            var country = new Country(1, "France");
+            entityManager.persist(country);
+            var projects = new ArrayList<Project>();
+            for (int p = 0; p < PROJECTS; p++) {
+                var project = new Project(p, "Project " + p);
+                entityManager.persist(project);
+                projects.add(project);
+            }
+            for (int e = 0; e < EMPLOYEES; e++) {
+                var employee = new Employee(e, "Employee " + e, "Job");
+                for (int p = 0; p < PROJECTS_PER_EMPLOYEE; p++) {
+                    var project = projects.get((e + p) % PROJECTS);
+                    employee.getProjects().add(project);
+                    project.getMembers().add(employee);
+                }
+                employee.getAddresses().put("home", new Address(2 * e, "home", "Paris", employee, country));
+                employee.getAddresses().put("work", new Address(2 * e + 1, "work", "Lyon", employee, country));
+                entityManager.persist(employee);
+            }
+            entityManager.getTransaction().commit();
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        entityManager.close();
+        entityManagerFactory.close();
+    }
+
+    /**
+     * Read the navigable attributes of all employees through the mapping metamodel.
+     */
+    @Benchmark
+    public void getValue_metamodel(Blackhole blackhole) {
+        for (var employee : employees) {
+            for (var attribute : attributes) {
+                blackhole.consume(attribute.getValue(employee));
+            }
+        }
+    }
+
+    /**
+     * Read the navigable attributes of all employees through the runtime-generated accessors.
+     */
+    @Benchmark
+    public void getValue_accessor(Blackhole blackhole) {
+        for (var employee : employees) {
+            for (var accessor : accessors) {
+                blackhole.consume(accessor.get(employee));
+            }
+        }
+    }
+
+    /**
+     * Traverse the already initialized graph of a single employee.
+     */
+    @Benchmark
+    public Employee deepHydrate() {
+        return hydrator.deepHydrate(employees.get(0));
+    }
+
+    /**
+     * Traverse the whole, already initialized graph.
+     */
+    @Benchmark
+    public List<Employee> deepHydrateCollection() {
+        return hydrator.deepHydrateCollection(employees);
+    }
+}
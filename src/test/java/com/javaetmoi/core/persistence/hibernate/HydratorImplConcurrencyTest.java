@@ -0,0 +1,111 @@
+package com.javaetmoi.core.persistence.hibernate;
+
+import com.javaetmoi.core.persistence.hibernate.domain.Address;
+import com.javaetmoi.core.persistence.hibernate.domain.Employee;
+import com.javaetmoi.core.persistence.hibernate.domain.Project;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Multithreaded stress test of the plan and hydrator caches of {@link HydratorImpl}.
+ */
+class HydratorImplConcurrencyTest extends AbstractTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HydratorImplConcurrencyTest.class);
+
+    private static final int ITERATIONS = 200_000;
+
+    private final int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+
+    /**
+     * Derive hydrators per request from many threads.
+     * All threads have to get the same interned instance.
+     */
+    @Test
+    void withExclude_concurrent() throws Exception {
+        var expected = hydrator
+                .withExclude(Project.class, "members")
+                .withExclude(Employee.class, "addresses");
+
+        var singleThreaded = derive(1, expected);
+        var multiThreaded = derive(threads, expected);
+
+        LOGGER.info("withExclude: 1 thread {} ops/ms, {} threads {} ops/ms ({} cores)",
+                singleThreaded, threads, multiThreaded, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @return Throughput in operations per millisecond.
+     */
+    private long derive(int threads, Hydrator expected) throws Exception {
+        long start = System.nanoTime();
+        runConcurrently(threads, () -> {
+            for (int i = 0; i < ITERATIONS; i++) {
+                var derived = hydrator
+                        .withExclude(Employee.class, "addresses")
+                        .withExclude(Project.class, "members");
+                assertSame(expected, derived);
+            }
+            return null;
+        });
+        long millis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        return (long) threads * ITERATIONS / millis;
+    }
+
+    /**
+     * Hydrate the same graph from many threads, each with its own session, sharing the plans of one hydrator.
+     */
+    @Test
+    void deepHydrate_concurrent() throws Exception {
+        var results = runConcurrently(threads, () -> {
+            var dbJames = findDeepHydratedEntity(Employee.class, 1);
+            assertThat(dbJames.getAddresses()).hasSize(2);
+            assertThat(dbJames.getProjects()).hasSize(2);
+            return dbJames.getAddresses().get("home");
+        });
+
+        assertThat(results)
+                .extracting(Address::getId)
+                .containsOnly(100);
+        assertEquals(threads * 8, statistics().getEntityLoadCount(),
+                "Every thread loads the 8 entities in its own session");
+    }
+
+    /**
+     * Start the action in all threads at once and wait for their results.
+     */
+    private <R> ArrayList<R> runConcurrently(int threads, Callable<R> action) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            var start = new CountDownLatch(1);
+            var futures = new ArrayList<Future<R>>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return action.call();
+                }));
+            }
+            start.countDown();
+
+            var results = new ArrayList<R>();
+            for (var future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -17,9 +17,14 @@ import com.javaetmoi.core.persistence.hibernate.domain.Address;
 import com.javaetmoi.core.persistence.hibernate.domain.Country;
 import com.javaetmoi.core.persistence.hibernate.domain.Employee;
 import com.javaetmoi.core.persistence.hibernate.domain.Project;
+import com.javaetmoi.core.persistence.hibernate.versioned.Shelf;
+import org.hibernate.Hibernate;
 import org.hibernate.LazyInitializationException;
 import org.hibernate.collection.spi.PersistentMap;
 import org.hibernate.collection.spi.PersistentCollection;
+import org.hibernate.metamodel.mapping.AttributeMapping;
+import org.hibernate.metamodel.mapping.EntityMappingType;
+import org.hibernate.metamodel.model.domain.NavigableRole;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.slf4j.Logger;
@@ -28,7 +33,13 @@ import org.unitils.reflectionassert.ReflectionComparatorMode;
 
 import jakarta.persistence.ManyToOne;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
@@ -183,6 +194,437 @@ class HydratorImplTest extends AbstractTest {
                 partiallyHydratedEntity.getAddresses().get("home"));
     }
 
+    /**
+     * Tests the method {@link HydratorImpl#withExclude(Class, String)}.
+     */
+    @Test
+    void withExclude_interned() {
+        var hydrator1 = hydrator.withExclude(Project.class, "members")
+                .withExclude(Employee.class, "addresses");
+        var hydrator2 = hydrator.withExclude(Employee.class, "addresses")
+                .withExclude(Project.class, "members");
+
+        assertSame(hydrator1, hydrator2, "Equal excludes share one instance");
+        assertSame(hydrator1, hydrator1.withExclude(Employee.class, "addresses"), "Excluding twice is a no-op");
+        assertNotSame(hydrator, hydrator1);
+    }
+
+    /**
+     * Tests the method {@link HydratorImpl#withPaging(Class, String, int, int)}.
+     */
+    @Test
+    void deepHydrate_withPaging() {
+        var pagedEntity = doInJPA(entityManager ->
+                hydrator.withPaging(Project.class, "members", 1, 1)
+                        .deepHydrate(entityManager.find(Employee.class, james.getId())));
+
+        // At this step, transaction and session are closed.
+        var dbAndroid = pagedEntity.getProjects().stream()
+                .filter(project -> project.getId().equals(android.getId())).findFirst().orElseThrow();
+        var dbIphone = pagedEntity.getProjects().stream()
+                .filter(project -> project.getId().equals(iphone.getId())).findFirst().orElseThrow();
+        assertThat(dbIphone.getMembers())
+                .as("Below the threshold")
+                .isInstanceOf(PersistentCollection.class)
+                .extracting(Employee::getName).containsExactly("James");
+        assertThat(dbAndroid.getMembers())
+                .as("Loaded page by page after the session has been closed")
+                .hasSize(2)
+                .extracting(Employee::getName).containsExactly("James", "Tom");
+        assertThat(dbAndroid.getMembers().iterator().next().getAddresses())
+                .as("Pages are hydrated")
+                .containsKey("home");
+    }
+
+    /**
+     * Tests the method {@link HydratorImpl#withPaging(Class, String, int, int)}.
+     */
+    @Test
+    void deepHydrate_withPagingAndCommit() {
+        var pagedEntity = doInJPA(entityManager -> hydrator.withPaging(Project.class, "members", 1, 1)
+                .deepHydrate(entityManager.find(Project.class, android.getId())));
+
+        // At this step, the transaction has been committed.
+        assertEquals(1, statistics().getSessionOpenCount(), "No page loaded by the flush of the commit");
+        assertEquals(0, statistics().getCollectionRecreateCount() + statistics().getCollectionRemoveCount());
+        assertThat(pagedEntity.getMembers()).isNotInstanceOf(PersistentCollection.class).hasSize(2);
+        int members = doInJPA(entityManager -> entityManager.find(Project.class, android.getId()).getMembers().size());
+        assertEquals(2, members, "Not written back");
+    }
+
+    /**
+     * Tests the method {@link HydratorImpl#withPaging(Class, String, int, int)}.
+     */
+    @Test
+    void withPaging_unsupported() {
+        assertThrows(IllegalArgumentException.class, () -> hydrator.withPaging(Employee.class, "projects", 1, 1),
+                "Not an inverse collection");
+        assertThrows(IllegalArgumentException.class, () -> hydrator.withPaging(Employee.class, "name", 1, 1),
+                "Not a collection");
+        assertThrows(IllegalArgumentException.class, () -> hydrator.withPaging(Shelf.class, "books", 1, 1),
+                "Cascading collection");
+        assertThrows(IllegalArgumentException.class, () -> hydrator.withPaging(Project.class, "members", 1, 0),
+                "Invalid page size");
+    }
+
+    /**
+     * Tests the method {@link HydratorImpl#withFilter(Class, String, String, Map)}.
+     */
+    @Test
+    void deepHydrate_withFilter() {
+        var filteredEntity = doInJPA(entityManager ->
+                hydrator.withFilter(Project.class, "members", "job", Map.of("job", "Developer"))
+                        .deepHydrate(entityManager.find(Employee.class, james.getId())));
+
+        // At this step, transaction and session are closed.
+        var dbAndroid = filteredEntity.getProjects().stream()
+                .filter(project -> project.getId().equals(android.getId())).findFirst().orElseThrow();
+        assertThat(dbAndroid.getMembers())
+                .as("Filtered at the database")
+                .extracting(Employee::getName).containsExactly("James");
+        assertThrows(UnsupportedOperationException.class, () -> dbAndroid.getMembers().clear(),
+                "Marked as filtered");
+
+        var fullEntity = findDeepHydratedEntity(Employee.class, james.getId());
+        var fullAndroid = fullEntity.getProjects().stream()
+                .filter(project -> project.getId().equals(android.getId())).findFirst().orElseThrow();
+        assertThat(fullAndroid.getMembers())
+                .as("Nothing written back, and filter not left enabled")
+                .extracting(Employee::getName).containsExactlyInAnyOrder("James", "Tom");
+    }
+
+    /**
+     * Tests the method {@link HydratorImpl#withFilter(Class, String, String, Map)}.
+     */
+    @Test
+    void deepHydrate_withFilterAndCommit() {
+        var filteredEntity = doInJPA(entityManager ->
+                hydrator.withFilter(Project.class, "members", "job", Map.of("job", "Developer"))
+                        .deepHydrate(entityManager.find(Project.class, android.getId())));
+
+        // At this step, the transaction has been committed.
+        assertEquals(0, statistics().getCollectionRecreateCount() + statistics().getCollectionRemoveCount(),
+                "Not written back");
+        assertThat(filteredEntity.getMembers()).extracting(Employee::getName).containsExactly("James");
+        assertThrows(UnsupportedOperationException.class, () -> filteredEntity.getMembers().clear(),
+                "Still marked as filtered");
+        var members = doInJPA(entityManager -> new ArrayList<>(
+                entityManager.find(Project.class, android.getId()).getMembers()));
+        assertThat(members).extracting(Employee::getName).containsExactlyInAnyOrder("James", "Tom");
+    }
+
+    /**
+     * Tests the method {@link HydratorImpl#withFilter(Class, String, String, Map)}.
+     */
+    @Test
+    void withFilter_unsupported() {
+        var parameters = Map.of("job", "Developer");
+        assertThrows(IllegalArgumentException.class, () -> hydrator.withFilter(Employee.class, "projects", "job", parameters),
+                "Not an inverse collection");
+        assertThrows(IllegalArgumentException.class, () -> hydrator.withFilter(Project.class, "members", "unknown", parameters),
+                "Unknown filter");
+        assertThrows(IllegalArgumentException.class, () -> hydrator.withFilter(Project.class, "members", "job", Map.of()),
+                "Missing parameter");
+    }
+
+    /**
+     * Tests the method {@link HydratorImpl#withParallelScan(ForkJoinPool)}.
+     */
+    @Test
+    void deepHydrate_withParallelScan() {
+        var pool = new ForkJoinPool(4);
+        try {
+            var parallelHydrator = hydrator.withParallelScan(pool);
+            var dbJames = doInJPA(entityManager ->
+                    parallelHydrator.deepHydrate(entityManager.getReference(Employee.class, james.getId())));
+            var dbEmployees = doInJPA(entityManager -> parallelHydrator.deepHydrateCollection(new ArrayList<>(List.of(
+                    entityManager.find(Employee.class, james.getId()), entityManager.find(Employee.class, tom.getId())))));
+
+            // At this step, transaction and session are closed.
+            assertReflectionEquals(james, dbJames, ReflectionComparatorMode.LENIENT_ORDER);
+            assertReflectionEquals(List.of(james, tom), dbEmployees, ReflectionComparatorMode.LENIENT_ORDER);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Tests the method {@link HydratorImpl#withBatching(int, int)}.
+     */
+    @Test
+    void deepHydrate_withBatching() {
+        var batchingHydrator = hydrator.withBatching(1, 16);
+        var dbEmployees = doInJPA(entityManager -> batchingHydrator.deepHydrateCollection(new ArrayList<>(List.of(
+                entityManager.find(Employee.class, james.getId()), entityManager.find(Employee.class, tom.getId())))));
+
+        // At this step, transaction and session are closed.
+        assertReflectionEquals(List.of(james, tom), dbEmployees, ReflectionComparatorMode.LENIENT_ORDER);
+        assertEquals(6, statistics().getPrepareStatementCount(),
+                "Finds of the employees, one batch for their addresses, projects and members each, and the country");
+        var addresses = batchingHydrator.getBatchStatistics()
+                .get(new NavigableRole(Employee.class.getName()).append("addresses"));
+        assertEquals(1, addresses.getBatchCount());
+        assertEquals(2, addresses.getLoadedCount());
+        assertEquals(1.5, addresses.getAverageFanOut());
+        assertEquals(2, addresses.getBatchSize(), "All candidates of a level");
+        assertThat(hydrator.getBatchStatistics()).isEmpty();
+    }
+
+    /**
+     * Tests the methods {@link HydratorImpl#withReferenceData(Class)} and {@link HydratorImpl#refreshReferenceData()}.
+     */
+    @Test
+    void deepHydrate_withReferenceData() {
+        var referenceHydrator = hydrator.withReferenceData(Country.class);
+        referenceHydrator.refreshReferenceData();
+        statistics().clear();
+
+        var countries = doInJPA(entityManager -> {
+            var country = referenceHydrator.deepHydrate(entityManager.getReference(Country.class, france.getId()));
+            assertTrue(Hibernate.isInitialized(country));
+            assertFalse(entityManager.contains(Hibernate.unproxy(country)), "Not added to the persistence context");
+            return List.of(Hibernate.unproxy(country), Hibernate.unproxy(referenceHydrator.withExclude(
+                    Employee.class, "projects").deepHydrate(entityManager.getReference(Country.class, france.getId()))));
+        });
+
+        assertEquals(0, statistics().getPrepareStatementCount(), "Served by the cache");
+        assertEquals(france, countries.get(0));
+        assertSame(countries.get(0), countries.get(1), "Shared by the derived hydrators");
+
+        referenceHydrator.refreshReferenceData();
+        var refreshed = doInJPA(entityManager -> Hibernate.unproxy(
+                referenceHydrator.deepHydrate(entityManager.getReference(Country.class, france.getId()))));
+        assertNotSame(countries.get(0), refreshed);
+        assertEquals(france, refreshed);
+
+        var progresses = new ArrayList<HydrationProgress>();
+        doInJPA(entityManager -> referenceHydrator.withProgressListener(progresses::add, Duration.ZERO)
+                .deepHydrate(entityManager.getReference(Country.class, france.getId())));
+        assertThat(progresses).as("Progress of the entity served by the cache").hasSize(2);
+        var estimated = doInJPA(entityManager -> {
+            var country = entityManager.getReference(Country.class, france.getId());
+            referenceHydrator.estimate(country);
+            return Hibernate.isInitialized(country);
+        });
+        assertFalse(estimated, "Not resolved by the estimation");
+
+        assertThrows(IllegalArgumentException.class, () -> hydrator.withReferenceData(Employee.class));
+    }
+
+    /**
+     * Tests the method {@link HydratorImpl#withBudget(long, long, Duration)}.
+     */
+    @Test
+    void withBudget_failFast() {
+        var budgetHydrator = hydrator.withBudget(3, 100, Duration.ofMinutes(1));
+
+        var exception = assertThrows(HydrationBudgetExceededException.class, () ->
+                doInJPA(entityManager -> budgetHydrator.deepHydrate(entityManager.find(Employee.class, james.getId()))));
+        var report = exception.getReport();
+        assertEquals(HydrationBudgetReport.Limit.ENTITIES, report.getLimit());
+        assertEquals(3, report.getEntityCount());
+        assertThat(report.getRoles()).containsKey(new NavigableRole(Employee.class.getName()));
+
+        var deadline = assertThrows(HydrationBudgetExceededException.class, () ->
+                doInJPA(entityManager -> hydrator.withBudget(100, 100, Duration.ZERO)
+                        .deepHydrate(entityManager.find(Employee.class, james.getId()))));
+        assertEquals(HydrationBudgetReport.Limit.DEADLINE, deadline.getReport().getLimit());
+    }
+
+    /**
+     * Tests the method {@link HydratorImpl#withBudget(long, long, Duration, java.util.function.Consumer)}.
+     */
+    @Test
+    void withBudget_partial() {
+        var reports = new ArrayList<HydrationBudgetReport>();
+        var partialEntity = doInJPA(entityManager -> hydrator.withBudget(100, 1, Duration.ofMinutes(1), reports::add)
+                .deepHydrate(entityManager.find(Employee.class, james.getId())));
+
+        // At this step, transaction and session are closed.
+        assertThat(reports).hasSize(1);
+        assertEquals(HydrationBudgetReport.Limit.STATEMENTS, reports.get(0).getLimit());
+        assertEquals(1, reports.get(0).getStatementCount());
+        var initializedCollections = (Hibernate.isInitialized(partialEntity.getProjects()) ? 1 : 0) +
+                (Hibernate.isInitialized(partialEntity.getAddresses()) ? 1 : 0);
+        assertEquals(1, initializedCollections, "Stopped expanding after the first load");
+    }
+
+    /**
+     * Tests the methods {@link HydratorImpl#withBudget(long, long, Duration, java.util.function.Consumer)}
+     * and {@link HydratorImpl#withBatching(int, int)}.
+     */
+    @Test
+    void withBudget_batching() {
+        var reports = new ArrayList<HydrationBudgetReport>();
+        var budgetHydrator = hydrator.withBatching(1, 16).withBudget(100, 2, Duration.ofMinutes(1), reports::add);
+        doInJPA(entityManager -> budgetHydrator.deepHydrateCollection(new ArrayList<>(List.of(
+                entityManager.find(Employee.class, james.getId()), entityManager.find(Employee.class, tom.getId())))));
+
+        assertThat(reports).hasSize(1);
+        assertEquals(HydrationBudgetReport.Limit.STATEMENTS, reports.get(0).getLimit());
+        assertEquals(2, reports.get(0).getStatementCount());
+        assertEquals(5, statistics().getPrepareStatementCount(),
+                "Finds of the employees, one batch for their addresses and projects each, and the country, not the members");
+
+        assertThrows(HydrationBudgetExceededException.class, () -> doInJPA(entityManager ->
+                hydrator.withBatching(1, 16).withBudget(100, 2, Duration.ofMinutes(1))
+                        .deepHydrateCollection(new ArrayList<>(List.of(entityManager.find(Employee.class, james.getId()),
+                                entityManager.find(Employee.class, tom.getId()))))));
+    }
+
+    /**
+     * Tests the methods {@link HydratorImpl#withMemoryBudget(long)}
+     * and {@link HydratorImpl#withMemoryBudget(long, java.util.function.Consumer)}.
+     */
+    @Test
+    void withMemoryBudget() {
+        var progresses = new ArrayList<HydrationProgress>();
+        doInJPA(entityManager -> hydrator.withProgressListener(progresses::add, Duration.ofDays(1))
+                .deepHydrate(entityManager.find(Employee.class, james.getId())));
+        var graphBytes = progresses.get(progresses.size() - 1).getEstimatedBytes();
+        assertThat(graphBytes).isPositive();
+
+        var exception = assertThrows(HydrationBudgetExceededException.class, () ->
+                doInJPA(entityManager -> hydrator.withMemoryBudget(graphBytes / 2)
+                        .deepHydrate(entityManager.find(Employee.class, james.getId()))));
+        var report = exception.getReport();
+        assertEquals(HydrationBudgetReport.Limit.MEMORY, report.getLimit());
+        assertThat(report.getEstimatedBytes()).isGreaterThanOrEqualTo(graphBytes / 2).isLessThan(graphBytes);
+        assertThat(report.getRoles().get(new NavigableRole(Employee.class.getName())).getEstimatedBytes()).isPositive();
+
+        var reports = new ArrayList<HydrationBudgetReport>();
+        var partialEntity = doInJPA(entityManager -> hydrator.withMemoryBudget(1, reports::add)
+                .deepHydrate(entityManager.find(Employee.class, james.getId())));
+        assertThat(reports).hasSize(1);
+        assertEquals(HydrationBudgetReport.Limit.MEMORY, reports.get(0).getLimit());
+        assertFalse(Hibernate.isInitialized(partialEntity.getProjects()), "Stopped expanding after the root");
+
+        var entities = assertThrows(HydrationBudgetExceededException.class, () ->
+                doInJPA(entityManager -> hydrator.withBudget(3, 100, Duration.ofMinutes(1)).withMemoryBudget(graphBytes)
+                        .deepHydrate(entityManager.find(Employee.class, james.getId()))));
+        assertEquals(HydrationBudgetReport.Limit.ENTITIES, entities.getReport().getLimit(), "Other limits kept");
+
+        var partialReports = new ArrayList<HydrationBudgetReport>();
+        doInJPA(entityManager -> hydrator.withBudget(3, 100, Duration.ofMinutes(1), partialReports::add)
+                .withMemoryBudget(graphBytes)
+                .deepHydrate(entityManager.find(Employee.class, james.getId())));
+        assertThat(partialReports).extracting(HydrationBudgetReport::getLimit)
+                .as("Behavior of the other limits kept")
+                .containsExactly(HydrationBudgetReport.Limit.ENTITIES);
+        var memory = assertThrows(HydrationBudgetExceededException.class, () ->
+                doInJPA(entityManager -> hydrator.withBudget(100, 100, Duration.ofMinutes(1), partialReports::add)
+                        .withMemoryBudget(1)
+                        .deepHydrate(entityManager.find(Employee.class, james.getId()))));
+        assertEquals(HydrationBudgetReport.Limit.MEMORY, memory.getReport().getLimit());
+        assertThat(partialReports).hasSize(1);
+    }
+
+    /**
+     * Tests the method {@link HydratorImpl#withProgressListener(HydrationProgressListener, Duration)}.
+     */
+    @Test
+    void withProgressListener() {
+        var progresses = new ArrayList<HydrationProgress>();
+        doInJPA(entityManager -> hydrator.withProgressListener(progresses::add, Duration.ZERO)
+                .deepHydrate(entityManager.find(Employee.class, james.getId())));
+
+        assertThat(progresses).hasSizeGreaterThan(1);
+        var last = progresses.get(progresses.size() - 1);
+        assertTrue(last.isCompleted());
+        assertEquals(0, last.getDepth(), "Everything has been expanded");
+        assertThat(last.getLoadCount()).isPositive();
+        assertThat(progresses.subList(0, progresses.size() - 1))
+                .allSatisfy(progress -> assertFalse(progress.isCompleted()))
+                .anySatisfy(progress -> assertThat(progress.getDepth()).isPositive());
+    }
+
+    /**
+     * Tests the method {@link HydratorImpl#withCancellation(java.util.function.BooleanSupplier)}.
+     */
+    @Test
+    void withCancellation() {
+        var cancelled = new AtomicBoolean();
+        var cancellableHydrator = hydrator.withCancellation(cancelled::get)
+                .withProgressListener(progress -> cancelled.set(progress.getVisitedCount() >= 3), Duration.ZERO);
+
+        var exception = assertThrows(HydrationCancelledException.class, () -> doInJPA(entityManager ->
+                cancellableHydrator.deepHydrate(entityManager.find(Employee.class, james.getId()))));
+        assertThat(exception.getProgress().getVisitedCount()).isGreaterThanOrEqualTo(3);
+
+        Thread.currentThread().interrupt();
+        try {
+            assertThrows(HydrationCancelledException.class, () -> doInJPA(entityManager ->
+                    hydrator.withCancellation(() -> false)
+                            .deepHydrate(entityManager.find(Employee.class, james.getId()))));
+        } finally {
+            assertTrue(Thread.interrupted(), "Interrupted status is kept");
+        }
+
+        Thread.currentThread().interrupt();
+        try {
+            assertThrows(HydrationCancelledException.class, () -> doInJPA(entityManager ->
+                    hydrator.withProgressListener(progress -> { }, Duration.ofDays(1))
+                            .deepHydrate(entityManager.find(Employee.class, james.getId()))),
+                    "Interruption honored without a cancellation token");
+        } finally {
+            assertTrue(Thread.interrupted());
+        }
+    }
+
+    /**
+     * Tests the method {@link HydratorImpl#walk(Object, HydrationVisitor)}.
+     */
+    @Test
+    void walk_Employee() {
+        var entered = new ArrayList<String>();
+        var names = new ArrayList<Object>();
+        var dbJames = doInJPA(entityManager -> hydrator.walk(entityManager.find(Employee.class, james.getId()),
+                new HydrationVisitor() {
+                    @Override
+                    public boolean attribute(Object owner, AttributeMapping attribute, Object value) {
+                        if (attribute.getAttributeName().equals("name")) {
+                            names.add(value);
+                        }
+                        // Prune the members of the projects.
+                        return !attribute.getAttributeName().equals("members");
+                    }
+
+                    @Override
+                    public boolean enterEntity(Object entity, EntityMappingType entityType) {
+                        entered.add(entityType.getJavaType().getJavaTypeClass().getSimpleName());
+                        return true;
+                    }
+                }));
+
+        // At this step, transaction and session are closed.
+        assertThat(entered).containsExactlyInAnyOrder(
+                "Employee", "Address", "Address", "Country", "Project", "Project");
+        assertThat(names).contains("James", "Android Project", "iPhone Project", "France");
+        assertThat(dbJames.getAddresses().get("home").getCountry().getName()).isEqualTo("France");
+        assertThrows(LazyInitializationException.class, () ->
+                dbJames.getProjects().get(0).getMembers().size());
+    }
+
+    /**
+     * Tests that plans use the hydrators generated by the annotation processor.
+     */
+    @Test
+    void plan_generated() {
+        var hydratorImpl = (HydratorImpl) hydrator;
+        var descriptor = hydratorImpl.getMappingMetamodel().getEntityDescriptor(Employee.class);
+
+        var plan = hydratorImpl.plan(Employee.class, descriptor);
+        assertNotNull(plan.getGenerated());
+        assertThat(plan.getRemaining()).isEmpty();
+        assertThat(plan.getGeneratedParts()).doesNotContainNull();
+
+        var excludingPlan = ((HydratorImpl) hydrator.withExclude(Employee.class, "addresses"))
+                .plan(Employee.class, descriptor);
+        var attributeNames = List.of(excludingPlan.getGenerated().getAttributeNames());
+        assertNotNull(excludingPlan.getGeneratedParts()[attributeNames.indexOf("projects")]);
+        assertNull(excludingPlan.getGeneratedParts()[attributeNames.indexOf("addresses")], "Excluded attribute");
+    }
+
     /**
      * Tests the method {@link HydratorImpl#deepHydrateCollection(Collection)}.
      */
@@ -278,4 +720,40 @@ class HydratorImplTest extends AbstractTest {
                 dbLyon.getEmployee().getProjects().size(),
                 "Compare projetcs size");
     }
+
+    /**
+     * Tests the method {@link HydratorImpl#estimate(Object)}.
+     */
+    @Test
+    void estimate_Employee() {
+        var estimate = doInJPA(entityManager -> {
+            var dbJames = entityManager.find(Employee.class, 1);
+            var result = hydrator.estimate(dbJames);
+
+            assertFalse(Hibernate.isInitialized(dbJames.getProjects()), "Projects should not be initialized");
+            assertFalse(Hibernate.isInitialized(dbJames.getAddresses()), "Addresses should not be initialized");
+            return result;
+        });
+
+        assertEquals(0, statistics().getCollectionFetchCount(), "No collection should be fetched");
+        assertThat(estimate.getRoles().keySet())
+                .extracting(NavigableRole::getFullPath)
+                .containsOnly(Employee.class.getName() + ".projects", Employee.class.getName() + ".addresses");
+        assertEquals(4, estimate.getEntityCount(), "2 projects and 2 addresses");
+        assertEquals(4, estimate.getRowCount(), "2 projects and 2 addresses");
+        assertEquals(2, estimate.getStatementCount(), "1 statement per collection");
+    }
+
+    /**
+     * Tests the method {@link HydratorImpl#estimate(Object)}.
+     */
+    @Test
+    void estimate_attachedEntityProxy() {
+        var estimate = doInJPA(entityManager ->
+                hydrator.estimate(entityManager.getReference(Employee.class, 1)));
+
+        assertEquals(0, statistics().getEntityLoadCount(), "No entity should be loaded");
+        assertEquals(1, estimate.getEntityCount(), "The proxy");
+        assertEquals(1, estimate.getStatementCount(), "1 statement per proxy");
+    }
 }
@@ -0,0 +1,65 @@
+package com.javaetmoi.core.persistence.hibernate;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static com.javaetmoi.core.persistence.hibernate.Hydrator.hydrator;
+import static jakarta.persistence.Persistence.createEntityManagerFactory;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit test of the {@link HydratorRegistry} class.
+ */
+class HydratorRegistryTest {
+    private final EntityManagerFactory entityManagerFactory =
+            createEntityManagerFactory("hibernate-hydrate");
+
+    @AfterEach
+    void closeEntityManagerFactory() {
+        if (entityManagerFactory.isOpen()) {
+            entityManagerFactory.close();
+        }
+    }
+
+    @Test
+    void hydrator_sharedPerEntityManagerFactory() {
+        var hydrator = hydrator(entityManagerFactory);
+
+        assertSame(hydrator, hydrator(entityManagerFactory));
+        assertSame(hydrator, hydrator(entityManagerFactory.unwrap(SessionFactory.class)));
+        var entityManager = entityManagerFactory.createEntityManager();
+        try {
+            assertSame(hydrator, hydrator(entityManager));
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    @Test
+    void hydrator_perEntityManagerFactory() {
+        var otherEntityManagerFactory = createEntityManagerFactory("hibernate-hydrate");
+        try {
+            assertNotSame(hydrator(entityManagerFactory), hydrator(otherEntityManagerFactory));
+        } finally {
+            otherEntityManagerFactory.close();
+        }
+    }
+
+    @Test
+    void hydrator_releasedOnClose() {
+        var sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        hydrator(entityManagerFactory);
+        assertTrue(HydratorRegistry.isRegistered(sessionFactory));
+
+        entityManagerFactory.close();
+
+        assertFalse(HydratorRegistry.isRegistered(sessionFactory));
+        hydrator(sessionFactory);
+        assertFalse(HydratorRegistry.isRegistered(sessionFactory), "Not registered again");
+    }
+}
@@ -0,0 +1,160 @@
+package com.javaetmoi.core.persistence.hibernate;
+
+import com.javaetmoi.core.persistence.hibernate.synthetic.GraphFixture;
+import com.javaetmoi.core.persistence.hibernate.synthetic.Node;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static jakarta.persistence.Persistence.createEntityManagerFactory;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Scaling test of the hydration of synthetic graphs.
+ * <p>
+ * Records hydration time, statements, peak heap and size of the recursion guard per graph size
+ * into {@code target/hydration-scaling.csv}, to be plotted.
+ * By default, only small graphs are hydrated.
+ * Use {@code -Dhydrate.scaling.maxDepth=7} for graphs up to about 10M rows.
+ * </p>
+ */
+class HydratorScalingTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HydratorScalingTest.class);
+
+    private static final int FAN_OUT = 10;
+
+    private static final int MAX_DEPTH = Integer.getInteger("hydrate.scaling.maxDepth", 3);
+
+    private static final Path RESULTS = Path.of("target", "hydration-scaling.csv");
+
+    private static final List<String> LINES = new ArrayList<>();
+
+    private final EntityManagerFactory entityManagerFactory =
+            createEntityManagerFactory("hibernate-hydrate");
+    private final SessionFactory sessionFactory =
+            entityManagerFactory.unwrap(SessionFactory.class);
+    private final HydratorImpl hydrator = HydratorRegistry.hydrator(entityManagerFactory);
+
+    @BeforeAll
+    static void header() {
+        LINES.clear();
+        LINES.add("fixture;nodes;rows;millis;statements;peakHeapBytes;visited");
+    }
+
+    @AfterAll
+    static void write() throws IOException {
+        Files.createDirectories(RESULTS.getParent());
+        Files.write(RESULTS, LINES);
+    }
+
+    @AfterEach
+    void closeEntityManagerFactory() {
+        entityManagerFactory.close();
+    }
+
+    @Test
+    void tree() throws Exception {
+        for (int depth = 1; depth <= MAX_DEPTH; depth++) {
+            hydrate(new GraphFixture(FAN_OUT, depth));
+        }
+    }
+
+    @Test
+    void cyclicGraphWithInheritance() throws Exception {
+        for (int depth = 1; depth <= MAX_DEPTH; depth++) {
+            hydrate(new GraphFixture(FAN_OUT, depth)
+                    .withCycleDensity(0.2)
+                    .withInheritanceMix(0.3));
+        }
+    }
+
+    @Test
+    void cyclicGraphWithParallelScan() throws Exception {
+        var fixture = new GraphFixture(FAN_OUT, MAX_DEPTH)
+                .withCycleDensity(0.2)
+                .withInheritanceMix(0.3);
+        var url = (String) entityManagerFactory.getProperties().get("hibernate.connection.url");
+        fixture.insert(url);
+
+        var pool = new ForkJoinPool(4);
+        try {
+            var parallelHydrator = hydrator.withParallelScan(pool);
+            long start = System.nanoTime();
+            var estimate = sessionFactory.fromSession(session -> {
+                var root = parallelHydrator.deepHydrate(session.getReference(Node.class, GraphFixture.ROOT_ID));
+                return hydrator.estimate(root);
+            });
+            LOGGER.info("{} with parallel scan: {} ms", fixture, (System.nanoTime() - start) / 1_000_000);
+
+            assertEquals(0, estimate.getStatementCount(), "Nothing left to load");
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private void hydrate(GraphFixture fixture) throws Exception {
+        var url = (String) entityManagerFactory.getProperties().get("hibernate.connection.url");
+        long rows = fixture.insert(url);
+        long nodes = fixture.getNodeCount();
+
+        var statistics = sessionFactory.getStatistics();
+        statistics.clear();
+        var heapPools = resetPeakHeap();
+        var traversal = new Traversal(32);
+        long start = System.nanoTime();
+        sessionFactory.inSession(session ->
+                hydrator.deepHydrate(session.getReference(Node.class, GraphFixture.ROOT_ID), traversal));
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        long peakHeap = peakHeap(heapPools);
+        long statements = statistics.getPrepareStatementCount();
+
+        LOGGER.info("{}: {} nodes, {} rows, {} ms, {} statements, {} bytes peak heap, {} visited",
+                fixture, nodes, rows, millis, statements, peakHeap, traversal.getVisitedCount());
+        LINES.add(String.join(";", fixture.toString(), Long.toString(nodes), Long.toString(rows),
+                Long.toString(millis), Long.toString(statements), Long.toString(peakHeap),
+                Integer.toString(traversal.getVisitedCount())));
+
+        // Every node and its children collection are visited once, proxies of nodes additionally.
+        assertTrue(traversal.getVisitedCount() >= 2 * nodes, "Visits all nodes");
+        assertTrue(traversal.getVisitedCount() <= 3 * nodes, "Visits nodes at most once");
+        // At most one select per node and per children collection.
+        assertTrue(statements <= 2 * nodes, "Statements grow linearly");
+    }
+
+    private static List<MemoryPoolMXBean> resetPeakHeap() {
+        System.gc();
+        var heapPools = new ArrayList<MemoryPoolMXBean>();
+        for (var pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+                pool.resetPeakUsage();
+                heapPools.add(pool);
+            }
+        }
+        return heapPools;
+    }
+
+    private static long peakHeap(List<MemoryPoolMXBean> heapPools) {
+        long peak = 0;
+        for (var pool : heapPools) {
+            peak += pool.getPeakUsage().getUsed();
+        }
+        return peak;
+    }
+}
@@ -0,0 +1,77 @@
+package com.javaetmoi.core.persistence.hibernate;
+
+import org.hibernate.dialect.DerbyDialect;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.HSQLDialect;
+import org.hibernate.dialect.OracleDialect;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.dialect.SQLServerDialect;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit test of the {@link InListChunker} class.
+ */
+class InListChunkerTest {
+
+    @Test
+    void maxChunkSize() {
+        for (var dialect : List.of(new H2Dialect(), new HSQLDialect(), new DerbyDialect(), new PostgreSQLDialect(),
+                new OracleDialect(), new SQLServerDialect())) {
+            var maxChunkSize = new InListChunker(dialect).getMaxChunkSize();
+
+            assertEquals(Integer.highestOneBit(maxChunkSize), maxChunkSize, "Power of two");
+            assertTrue(maxChunkSize <= InListChunker.MAX_CHUNK_SIZE);
+            if (dialect.getInExpressionCountLimit() > 0) {
+                assertTrue(maxChunkSize <= dialect.getInExpressionCountLimit(), dialect.toString());
+            }
+        }
+        assertEquals(512, new InListChunker(new OracleDialect()).getMaxChunkSize(), "In-lists up to 1000 elements");
+        assertEquals(InListChunker.MAX_CHUNK_SIZE, new InListChunker(new H2Dialect()).getMaxChunkSize());
+    }
+
+    @Test
+    void forEachChunk() {
+        var chunker = new InListChunker(new H2Dialect());
+        var ids = ids(21);
+        var chunks = new ArrayList<List<Object>>();
+
+        assertEquals(3, chunker.forEachChunk(ids, 10, chunks::add));
+
+        // Batch size rounded down to 8, last chunk of 5 padded to 8.
+        assertEquals(List.of(8, 8, 8), chunks.stream().map(List::size).collect(Collectors.toList()));
+        assertEquals(ids, chunks.stream().flatMap(List::stream).distinct().collect(Collectors.toList()));
+        assertEquals(List.of(16, 17, 18, 19, 20, 20, 20, 20), chunks.get(2));
+    }
+
+    @Test
+    void forEachChunk_dialectLimit() {
+        var chunker = new InListChunker(new OracleDialect());
+        var ids = ids(1500);
+        var sizes = new HashSet<Integer>();
+
+        assertEquals(3, chunker.forEachChunk(ids, Integer.MAX_VALUE, chunk -> sizes.add(chunk.size())));
+        assertEquals(Set.of(512), sizes, "Last chunk of 476 padded to 512");
+    }
+
+    @Test
+    void pad() {
+        assertEquals(List.of(1), InListChunker.pad(List.of(1)));
+        assertEquals(List.of(1, 2), InListChunker.pad(List.of(1, 2)));
+        assertEquals(List.of(1, 2, 3, 3), InListChunker.pad(List.of(1, 2, 3)));
+        assertEquals(List.of(1, 2, 3, 4, 5, 5, 5, 5), InListChunker.pad(List.of(1, 2, 3, 4, 5)));
+    }
+
+    private static List<Object> ids(int count) {
+        return IntStream.range(0, count).boxed().collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,101 @@
+package com.javaetmoi.core.persistence.hibernate;
+
+import com.javaetmoi.core.persistence.hibernate.versioned.Book;
+import com.javaetmoi.core.persistence.hibernate.versioned.Shelf;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit test of the {@link Revalidation} class, see {@link Hydrator#revalidate(Object)}.
+ */
+class RevalidationTest extends AbstractTest {
+
+    @Test
+    void revalidate_unchanged() {
+        var novels = findDeepHydratedEntity(Shelf.class, 1);
+        var books = novels.getBooks();
+        statistics().clear();
+
+        assertSame(novels, hydrator.revalidate(novels));
+
+        assertSame(books, novels.getBooks());
+        assertEquals(2, statistics().getPrepareStatementCount(), "One version query per entity type");
+        assertEquals(0, statistics().getEntityLoadCount());
+    }
+
+    @Test
+    void revalidate_staleEntity() {
+        var novels = findDeepHydratedEntity(Shelf.class, 1);
+        var books = novels.getBooks();
+        var nana = books.get(1);
+        doInJPAVoid(entityManager -> entityManager.find(Book.class, 11).setTitle("Nana (1880)"));
+        statistics().clear();
+
+        assertSame(novels, hydrator.revalidate(novels));
+
+        assertSame(books, novels.getBooks(), "Shelf is not stale");
+        assertSame(nana, novels.getBooks().get(1));
+        assertEquals("Nana (1880)", nana.getTitle());
+        assertEquals(1, nana.getVersion());
+        assertEquals("Novels", novels.getName());
+    }
+
+    @Test
+    void revalidate_staleSubgraph() {
+        var novels = findDeepHydratedEntity(Shelf.class, 1);
+        var books = novels.getBooks();
+        doInJPAVoid(entityManager -> entityManager.find(Shelf.class, 1).setName("French novels"));
+
+        assertSame(novels, hydrator.revalidate(novels));
+
+        assertEquals("French novels", novels.getName());
+        assertEquals(1, novels.getVersion());
+        assertNotSame(books, novels.getBooks(), "Subgraph reloaded");
+        assertEquals(2, novels.getBooks().size());
+        assertTrue(Hibernate.isInitialized(novels.getBooks().get(0).getShelf()));
+        assertEquals("Germinal", books.get(0).getTitle());
+        assertSame(books.get(0), novels.getBooks().get(0), "Resolved to the detached entities");
+        assertSame(books.get(1), novels.getBooks().get(1));
+        assertSame(novels, Hibernate.unproxy(novels.getBooks().get(1).getShelf()));
+    }
+
+    @Test
+    void revalidate_staleSubgraphWithNewEntity() {
+        var novels = findDeepHydratedEntity(Shelf.class, 1);
+        var germinal = novels.getBooks().get(0);
+        doInJPAVoid(entityManager -> {
+            var shelf = entityManager.find(Shelf.class, 1);
+            var book = new Book();
+            book.setId(12);
+            book.setTitle("L'Assommoir");
+            book.setShelf(shelf);
+            shelf.getBooks().add(book);
+            shelf.setName("French novels");
+            entityManager.find(Book.class, 10).setTitle("Germinal (1885)");
+        });
+
+        assertSame(novels, hydrator.revalidate(novels));
+
+        assertEquals(3, novels.getBooks().size());
+        assertSame(germinal, novels.getBooks().get(0));
+        assertEquals("Germinal (1885)", germinal.getTitle());
+        assertSame(novels, Hibernate.unproxy(novels.getBooks().get(2).getShelf()), "New entity resolved too");
+    }
+
+    @Test
+    void revalidate_deleted() {
+        var essays = findDeepHydratedEntity(Shelf.class, 2);
+        doInJPAVoid(entityManager -> {
+            entityManager.remove(entityManager.find(Book.class, 20));
+            entityManager.remove(entityManager.find(Shelf.class, 2));
+        });
+
+        assertNull(hydrator.revalidate(essays));
+    }
+}
@@ -0,0 +1,60 @@
+package com.javaetmoi.core.persistence.hibernate;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit test of the {@link Traversal} class.
+ */
+class TraversalTest {
+
+    @Test
+    void visit() {
+        var traversal = new Traversal(1);
+        var objects = new ArrayList<Object>();
+        for (int i = 0; i < 10_000; i++) {
+            var object = new Object();
+            objects.add(object);
+            assertTrue(traversal.visit(object));
+        }
+
+        for (var object : objects) {
+            assertFalse(traversal.visit(object), "Visited before");
+        }
+        assertEquals(10_000, traversal.getVisitedCount());
+    }
+
+    @Test
+    void visit_identity() {
+        var traversal = new Traversal(8);
+
+        assertTrue(traversal.visit(new String("equal")));
+        assertTrue(traversal.visit(new String("equal")), "Equal, but not the same");
+    }
+
+    @Test
+    void reset() {
+        var traversal = new Traversal(8);
+        var object = new Object();
+        traversal.visit(object);
+
+        assertTrue(traversal.reset());
+        assertEquals(0, traversal.getVisitedCount());
+        assertTrue(traversal.visit(object));
+    }
+
+    @Test
+    void reset_tooBig() {
+        var traversal = new Traversal(8);
+        for (int i = 0; i < 100_000; i++) {
+            traversal.visit(new Object());
+        }
+
+        assertFalse(traversal.reset(), "Not to be reused");
+    }
+}
@@ -20,11 +20,16 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
 import jakarta.persistence.ManyToMany;
 
+import org.hibernate.annotations.Filter;
+import org.hibernate.annotations.FilterDef;
+import org.hibernate.annotations.ParamDef;
+
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
 import org.apache.commons.lang3.builder.ToStringBuilder;
 
 @Entity
+@FilterDef(name = "job", parameters = @ParamDef(name = "job", type = String.class))
 public class Project {
 
     @Id
@@ -33,6 +38,7 @@ public class Project {
     private String               name;
 
     @ManyToMany(mappedBy = "projects")
+    @Filter(name = "job", condition = "job = :job")
     private Collection<Employee> members = new ArrayList<Employee>();
 
     public Project() {
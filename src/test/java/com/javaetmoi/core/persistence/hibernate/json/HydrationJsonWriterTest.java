@@ -0,0 +1,67 @@
+package com.javaetmoi.core.persistence.hibernate.json;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.javaetmoi.core.persistence.hibernate.AbstractTest;
+import com.javaetmoi.core.persistence.hibernate.domain.Employee;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit test of the {@link HydrationJsonWriter} class.
+ */
+class HydrationJsonWriterTest extends AbstractTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void write_Employee() throws IOException {
+        var out = new ByteArrayOutputStream();
+        doInJPAVoid(entityManager -> {
+            try {
+                HydrationJsonWriter.write(hydrator, entityManager.find(Employee.class, 1), out);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        var james = objectMapper.readTree(out.toByteArray());
+        assertThat(james.get("id").asInt()).isEqualTo(1);
+        assertThat(james.get("name").asText()).isEqualTo("James");
+        assertThat(james.get("addresses").get("home").get("city").asText()).isEqualTo("Paris");
+        assertThat(james.get("addresses").findValuesAsText("name"))
+                .as("The shared country is written once")
+                .containsExactly("France");
+        assertThat(james.get("addresses").get("home").get("employee").asInt())
+                .as("Back-reference by id")
+                .isEqualTo(1);
+        assertThat(james.get("projects")).hasSize(2);
+        var android = project(james, "Android Project");
+        assertThat(android.get("members")).hasSize(2);
+        var members = android.get("members");
+        var tom = members.get(0).isInt() ? members.get(1) : members.get(0);
+        assertThat(tom.get("name").asText()).isEqualTo("Tom");
+    }
+
+    @Test
+    void write_null() throws IOException {
+        var out = new ByteArrayOutputStream();
+        HydrationJsonWriter.write(hydrator, null, out);
+
+        assertThat(objectMapper.readTree(out.toByteArray()).isNull()).isTrue();
+    }
+
+    private static JsonNode project(JsonNode employee, String name) {
+        for (var project : employee.get("projects")) {
+            if (project.get("name").asText().equals(name)) {
+                return project;
+            }
+        }
+        throw new AssertionError("No project " + name);
+    }
+}
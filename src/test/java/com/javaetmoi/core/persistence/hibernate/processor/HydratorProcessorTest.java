@@ -0,0 +1,107 @@
+package com.javaetmoi.core.persistence.hibernate.processor;
+
+import com.javaetmoi.core.persistence.hibernate.GeneratedHydrator;
+import com.javaetmoi.core.persistence.hibernate.domain.Employee;
+import jakarta.persistence.Entity;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit test of the {@link HydratorProcessor} class.
+ */
+class HydratorProcessorTest {
+
+    @TempDir
+    Path output;
+
+    /**
+     * The test entities are compiled with the processor.
+     */
+    @Test
+    void generated_Employee() throws Exception {
+        var generated = Class.forName(Employee.class.getName() + GeneratedHydrator.SUFFIX)
+                .getConstructor().newInstance();
+
+        assertThat(generated).isInstanceOf(GeneratedHydrator.class);
+        assertArrayEquals(new String[] { "projects", "addresses" },
+                ((GeneratedHydrator<?>) generated).getAttributeNames());
+    }
+
+    @Test
+    void process() throws Exception {
+        var sources = List.of(
+                source("example.Owner",
+                        "package example;\n" +
+                        "import jakarta.persistence.*;\n" +
+                        "import java.util.*;\n" +
+                        "@MappedSuperclass\n" +
+                        "abstract class Base {\n" +
+                        "    @ManyToOne Owner parent;\n" +
+                        "}\n" +
+                        "@Entity\n" +
+                        "public class Owner extends Base {\n" +
+                        "    @Id Long id;\n" +
+                        "    private String name;\n" +
+                        "    @OneToMany private List<Owner> children;\n" +
+                        "    @OneToMany private Set<Owner> hidden;\n" +
+                        "    @ElementCollection private Map<String, String> tags;\n" +
+                        "    @Transient @ManyToOne Owner ignored;\n" +
+                        "    public List<Owner> getChildren() { return children; }\n" +
+                        "    public Map<String, String> getTags() { return tags; }\n" +
+                        "}\n"),
+                source("example.Basic",
+                        "package example;\n" +
+                        "import jakarta.persistence.*;\n" +
+                        "@Entity\n" +
+                        "public class Basic {\n" +
+                        "    @Id Long id;\n" +
+                        "    String name;\n" +
+                        "}\n"));
+
+        var compiler = ToolProvider.getSystemJavaCompiler();
+        var classpath = location(Entity.class) + File.pathSeparator + location(HydratorProcessor.class);
+        var task = compiler.getTask(null, null, null,
+                List.of("-proc:only", "-classpath", classpath, "-s", output.toString()),
+                null, sources);
+        task.setProcessors(List.of(new HydratorProcessor()));
+        assertTrue(task.call());
+
+        var owner = Files.readString(output.resolve("example/Owner_Hydrator.java"));
+        assertThat(owner)
+                .contains("\"children\", \"tags\", \"parent\"")
+                .contains("sink.collection(0, entity.getChildren());")
+                .contains("sink.map(1, entity.getTags());")
+                .contains("sink.entity(2, entity.parent);")
+                .doesNotContain("hidden")
+                .doesNotContain("ignored")
+                .doesNotContain("entity.name");
+        assertThat(output.resolve("example/Basic_Hydrator.java")).doesNotExist();
+    }
+
+    private static JavaFileObject source(String className, String code) {
+        var uri = URI.create("string:///" + className.replace('.', '/') + JavaFileObject.Kind.SOURCE.extension);
+        return new SimpleJavaFileObject(uri, JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return code;
+            }
+        };
+    }
+
+    private static String location(Class<?> type) throws Exception {
+        return Path.of(type.getProtectionDomain().getCodeSource().getLocation().toURI()).toString();
+    }
+}
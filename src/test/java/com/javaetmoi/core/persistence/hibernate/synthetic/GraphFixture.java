@@ -0,0 +1,175 @@
+package com.javaetmoi.core.persistence.hibernate.synthetic;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Random;
+
+/**
+ * Generator of synthetic graphs of {@link Node}s, inserted by JDBC batches so that millions of rows are feasible.
+ * <p>
+ * The graph is a tree with the root {@link #ROOT_ID}, the given fan-out and depth.
+ * Nodes are numbered breadth first, so parents are inserted before their children.
+ * Besides the parent/children cycles, a fraction of the nodes links to a random node inserted before ("cycle density").
+ * A fraction of the nodes are {@link SubNode}s ("inheritance mix").
+ * </p>
+ * Immutable.
+ */
+public final class GraphFixture {
+    /**
+     * Id of the root node.
+     */
+    public static final long ROOT_ID = 1;
+
+    private static final int BATCH_SIZE = 10_000;
+
+    private final int fanOut;
+    private final int depth;
+    private final double cycleDensity;
+    private final double inheritanceMix;
+    private final long seed;
+
+    /**
+     * Constructor for a plain tree.
+     *
+     * @param fanOut
+     *            Number of children per inner node.
+     * @param depth
+     *            Depth of the leaves. 0 for just the root.
+     */
+    public GraphFixture(int fanOut, int depth) {
+        this(fanOut, depth, 0, 0, 42);
+    }
+
+    private GraphFixture(int fanOut, int depth, double cycleDensity, double inheritanceMix, long seed) {
+        if (fanOut < 1 || depth < 0) {
+            throw new IllegalArgumentException("Fan-out has to be positive and depth must not be negative.");
+        }
+        this.fanOut = fanOut;
+        this.depth = depth;
+        this.cycleDensity = cycleDensity;
+        this.inheritanceMix = inheritanceMix;
+        this.seed = seed;
+    }
+
+    /**
+     * Fraction of nodes with a link to a random node.
+     */
+    public GraphFixture withCycleDensity(double cycleDensity) {
+        return new GraphFixture(fanOut, depth, cycleDensity, inheritanceMix, seed);
+    }
+
+    /**
+     * Fraction of nodes that are {@link SubNode}s.
+     */
+    public GraphFixture withInheritanceMix(double inheritanceMix) {
+        return new GraphFixture(fanOut, depth, cycleDensity, inheritanceMix, seed);
+    }
+
+    /**
+     * Seed of the random links and subclasses.
+     */
+    public GraphFixture withSeed(long seed) {
+        return new GraphFixture(fanOut, depth, cycleDensity, inheritanceMix, seed);
+    }
+
+    /**
+     * Number of nodes of the graph.
+     */
+    public long getNodeCount() {
+        long nodes = 0;
+        long level = 1;
+        for (int d = 0; d <= depth; d++) {
+            nodes += level;
+            level *= fanOut;
+        }
+        return nodes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("fan-out %d, depth %d, cycle density %.2f, inheritance mix %.2f",
+                fanOut, depth, cycleDensity, inheritanceMix);
+    }
+
+    /**
+     * Replace the nodes in the database by the graph.
+     *
+     * @param url
+     *            JDBC URL of a database with the schema of {@link Node} and {@link SubNode}.
+     * @return Number of inserted rows.
+     */
+    public long insert(String url) throws SQLException {
+        try (var connection = DriverManager.getConnection(url)) {
+            connection.setAutoCommit(false);
+            delete(connection);
+            long rows = insert(connection);
+            connection.commit();
+            return rows;
+        }
+    }
+
+    private static void delete(Connection connection) throws SQLException {
+        try (var statement = connection.createStatement()) {
+            statement.executeUpdate("DELETE FROM SUBNODE");
+            // Drop the references first, because of the foreign keys.
+            statement.executeUpdate("UPDATE NODE SET PARENT_ID = NULL, LINK_ID = NULL");
+            statement.executeUpdate("DELETE FROM NODE");
+        }
+    }
+
+    private long insert(Connection connection) throws SQLException {
+        var random = new Random(seed);
+        long rows = 0;
+        int pending = 0;
+        try (var nodes = connection.prepareStatement(
+                "INSERT INTO NODE (ID, DEPTH, PARENT_ID, LINK_ID) VALUES (?, ?, ?, ?)");
+             var subNodes = connection.prepareStatement(
+                "INSERT INTO SUBNODE (ID, PAYLOAD) VALUES (?, ?)")) {
+            long id = ROOT_ID;
+            // First id of the previous level, whose nodes are the parents of the current level.
+            long parentStart = 0;
+            long levelSize = 1;
+            for (int d = 0; d <= depth; d++) {
+                for (long i = 0; i < levelSize; i++, id++) {
+                    nodes.setLong(1, id);
+                    nodes.setInt(2, d);
+                    if (d == 0) {
+                        nodes.setNull(3, Types.BIGINT);
+                    } else {
+                        nodes.setLong(3, parentStart + i / fanOut);
+                    }
+                    if (id > ROOT_ID && random.nextDouble() < cycleDensity) {
+                        nodes.setLong(4, ROOT_ID + (long) (random.nextDouble() * (id - ROOT_ID)));
+                    } else {
+                        nodes.setNull(4, Types.BIGINT);
+                    }
+                    nodes.addBatch();
+                    rows++;
+                    pending++;
+
+                    if (random.nextDouble() < inheritanceMix) {
+                        subNodes.setLong(1, id);
+                        subNodes.setString(2, "payload " + id);
+                        subNodes.addBatch();
+                        rows++;
+                        pending++;
+                    }
+
+                    if (pending >= BATCH_SIZE) {
+                        pending = 0;
+                        // Nodes first, because the sub nodes reference them.
+                        nodes.executeBatch();
+                        subNodes.executeBatch();
+                    }
+                }
+                parentStart = id - levelSize;
+                levelSize *= fanOut;
+            }
+            nodes.executeBatch();
+            subNodes.executeBatch();
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,56 @@
+package com.javaetmoi.core.persistence.hibernate.synthetic;
+
+import java.util.List;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Inheritance;
+import jakarta.persistence.InheritanceType;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.OneToMany;
+
+/**
+ * Node of a synthetic graph, see {@link GraphFixture}.
+ */
+@Entity
+@Inheritance(strategy = InheritanceType.JOINED)
+public class Node {
+
+    @Id
+    private Long id;
+
+    private int depth;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    private Node parent;
+
+    @OneToMany(mappedBy = "parent")
+    private List<Node> children;
+
+    /**
+     * Cross edge to an arbitrary node, mostly closing a cycle.
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    private Node link;
+
+    public Long getId() {
+        return id;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public Node getParent() {
+        return parent;
+    }
+
+    public List<Node> getChildren() {
+        return children;
+    }
+
+    public Node getLink() {
+        return link;
+    }
+}
@@ -0,0 +1,16 @@
+package com.javaetmoi.core.persistence.hibernate.synthetic;
+
+import jakarta.persistence.Entity;
+
+/**
+ * Subclass of {@link Node}, to mix inheritance into a synthetic graph.
+ */
+@Entity
+public class SubNode extends Node {
+
+    private String payload;
+
+    public String getPayload() {
+        return payload;
+    }
+}
@@ -0,0 +1,53 @@
+package com.javaetmoi.core.persistence.hibernate.versioned;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.Id;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Version;
+
+/**
+ * Versioned entity of a {@link Shelf}.
+ */
+@Entity
+public class Book {
+
+    @Id
+    private Integer id;
+
+    @Version
+    private int version;
+
+    private String title;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    private Shelf shelf;
+
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public Shelf getShelf() {
+        return shelf;
+    }
+
+    public void setShelf(Shelf shelf) {
+        this.shelf = shelf;
+    }
+}
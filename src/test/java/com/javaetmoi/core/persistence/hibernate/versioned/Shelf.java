@@ -0,0 +1,50 @@
+package com.javaetmoi.core.persistence.hibernate.versioned;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import jakarta.persistence.CascadeType;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.OneToMany;
+import jakarta.persistence.OrderBy;
+import jakarta.persistence.Version;
+
+/**
+ * Versioned entity with a collection of versioned entities.
+ */
+@Entity
+public class Shelf {
+
+    @Id
+    private Integer id;
+
+    @Version
+    private int version;
+
+    private String name;
+
+    @OneToMany(mappedBy = "shelf", cascade = CascadeType.ALL)
+    @OrderBy("id")
+    private List<Book> books = new ArrayList<>();
+
+    public Integer getId() {
+        return id;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public List<Book> getBooks() {
+        return books;
+    }
+}